@@ -0,0 +1,42 @@
+package cellsociety.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Runs the benchmarks with the gc profiler always on, so every result comes with its allocation
+ * rate. Takes the same arguments as the JMH command line, such as -p size=256 to run one size, or
+ * -rf json -rff baseline.json to save results to compare later runs against.
+ *
+ * Assumptions: None
+ *
+ * Dependencies: JMH
+ *
+ * Example usage: java -jar benchmarks/target/benchmarks.jar GridUpdateBenchmark -p shape=Rect
+ */
+public class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  /**
+   * Runs the benchmarks chosen on the command line, with the gc profiler added
+   * @param args JMH command line arguments
+   * @throws CommandLineOptionException if the arguments are not valid
+   * @throws RunnerException if a benchmark could not be run
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    Options options = new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(options).run();
+  }
+}
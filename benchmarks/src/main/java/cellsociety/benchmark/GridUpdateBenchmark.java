@@ -0,0 +1,77 @@
+package cellsociety.benchmark;
+
+import cellsociety.simulation.grid.Grid;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Measures Grid.update for every combination of cell type, grid shape, border mode and grid size.
+ * Grids are stepped by engines unless -p storage=cells is given, which steps one Cell object per location as
+ * before engines were added, so engines can be measured against it.
+ *
+ * Every iteration times a fixed number of updates of a new grid made from the same seed, so every iteration
+ * steps the same part of the same simulation. Many rules settle within a few steps, after which an engine
+ * only skips unchanged tiles; timing a fixed run from a fresh grid keeps those steps from filling a
+ * measurement, and keeps infinite grids to the same growth in every iteration. Scores are the time of one run
+ * of updates, and the gc profiler's gc.alloc.rate.norm is the bytes allocated by one run.
+ *
+ * Assumptions: Run through BenchmarkMain, which adds the gc profiler for allocation rates.
+ *
+ * Dependencies: Grid, GridWorkload, JMH
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(3)
+public class GridUpdateBenchmark {
+
+  @Param({"ConwayCell", "FireCell", "SegregationCell", "WaTorCell", "PercolationCell", "RPSCell",
+      "LangtonLoopCell", "BylLoopCell", "ChouReggiaLoopCell"})
+  public String cellType;
+
+  @Param({"Rect", "Hex", "Tri"})
+  public String shape;
+
+  @Param({GridWorkload.FINITE, GridWorkload.TOROIDAL, GridWorkload.INFINITE})
+  public String border;
+
+  @Param({"64", "256", "1024"})
+  public int size;
+
+  @Param({GridWorkload.FLAT})
+  public String storage;
+
+  @Param({"20"})
+  public int steps;
+
+  private Grid grid;
+
+  @Setup(Level.Iteration)
+  public void makeGrid() {
+    grid = GridWorkload.makeGrid(cellType, shape, border, size, storage);
+  }
+
+  @Benchmark
+  public boolean update() {
+    boolean resized = false;
+    for (int step = 0; step < steps; step++) {
+      resized |= grid.update();
+    }
+    return resized;
+  }
+}
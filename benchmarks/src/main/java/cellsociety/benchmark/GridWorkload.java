@@ -0,0 +1,121 @@
+package cellsociety.benchmark;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.grid.Grid;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Builds the grids that benchmarks step, the same way Config does for a random grid: flat storage
+ * on, every state equally likely, and the parameters of the files in data/. Grids are seeded, so every run
+ * of a benchmark steps the same simulation. Grids can also be kept as one Cell object per location, as
+ * before engines were added, to measure engines against.
+ *
+ * Assumptions: Cell types and shapes are the class names without their packages or the Grid suffix.
+ *
+ * Dependencies: Cell, Grid
+ */
+public final class GridWorkload {
+
+  public static final String GRID_PACKAGE = "cellsociety.simulation.grid.";
+  public static final String GRID_SUFFIX = "Grid";
+  public static final String FINITE = "finite";
+  public static final String TOROIDAL = "toroidal";
+  public static final String INFINITE = "infinite";
+  public static final String FLAT = "flat";
+  public static final String CELLS = "cells";
+  public static final long SEED = 308;
+  public static final Map<String, Double> PARAMS = Map.of("probCatch", 0.7, "probGrow", 0.1,
+      "happinessThresh", 0.3, "sharkBreedTime", 40.0, "fishBreedTime", 5.0, "fishFeedEnergy", 2.0,
+      "sharkStartEnergy", 5.0);
+  private static final Map<String, Integer> HIGHEST_STATES = Map.of("ConwayCell", 1, "FireCell", 2,
+      "SegregationCell", 2, "WaTorCell", 2, "PercolationCell", 2, "RPSCell", 3, "LangtonLoopCell", 7,
+      "BylLoopCell", 6, "ChouReggiaLoopCell", 7);
+
+  private GridWorkload() {
+  }
+
+  /**
+   * Returns the highest state of a cell type
+   * @param cellType the cell class, such as ConwayCell
+   * @return the highest state the cells can be in
+   */
+  public static int getHighestState(String cellType) {
+    return HIGHEST_STATES.getOrDefault(cellType, 1);
+  }
+
+  /**
+   * Returns the edge value of a border mode
+   * @param border FINITE, TOROIDAL or INFINITE
+   * @return the default edge to give the cells
+   */
+  public static int getEdge(String border) {
+    if (border.equals(TOROIDAL)) {
+      return Cell.TOROIDAL;
+    }
+    if (border.equals(INFINITE)) {
+      return Cell.INFINTE;
+    }
+    return 0;
+  }
+
+  /**
+   * Makes a square grid of random states
+   * @param cellType the cell class, such as ConwayCell
+   * @param shape the grid shape, such as Rect
+   * @param border FINITE, TOROIDAL or INFINITE
+   * @param size the number of rows and columns
+   * @param storage FLAT to step the grid in an engine, or CELLS to step one Cell object per location
+   * @return the grid, ready to be stepped
+   */
+  public static Grid makeGrid(String cellType, String shape, String border, int size, String storage) {
+    double[] stateChances = new double[getHighestState(cellType) + 1];
+    for (int i = 0; i < stateChances.length; i++) {
+      stateChances[i] = 1;
+    }
+    return makeGrid(cellType, shape, border, size, stateChances, storage);
+  }
+
+  /**
+   * Makes a square grid of random states, each with a given chance
+   * @param cellType the cell class, such as ConwayCell
+   * @param shape the grid shape, such as Rect
+   * @param border FINITE, TOROIDAL or INFINITE
+   * @param size the number of rows and columns
+   * @param stateChances the chance of each state, which need not add up to 1
+   * @return the grid, ready to be stepped in an engine
+   */
+  public static Grid makeGrid(String cellType, String shape, String border, int size, double[] stateChances) {
+    return makeGrid(cellType, shape, border, size, stateChances, FLAT);
+  }
+
+  /**
+   * Makes a square grid of random states, each with a given chance
+   * @param cellType the cell class, such as ConwayCell
+   * @param shape the grid shape, such as Rect
+   * @param border FINITE, TOROIDAL or INFINITE
+   * @param size the number of rows and columns
+   * @param stateChances the chance of each state, which need not add up to 1
+   * @param storage FLAT to step the grid in an engine, or CELLS to step one Cell object per location
+   * @return the grid, ready to be stepped
+   */
+  public static Grid makeGrid(String cellType, String shape, String border, int size, double[] stateChances,
+      String storage) {
+    Grid grid;
+    try {
+      grid = (Grid) Class.forName(GRID_PACKAGE + shape + GRID_SUFFIX).getConstructor().newInstance();
+      grid.setFlatStorage(!storage.equals(CELLS));
+      grid.setSeed(SEED);
+      grid.setRandomGrid(cellType, PARAMS, stateChances, getEdge(border), null, size, size);
+    } catch (ClassNotFoundException | InstantiationException | IllegalAccessException
+        | NoSuchMethodException | InvocationTargetException e) {
+      throw new IllegalArgumentException(e);
+    }
+    for (int state = 0; state < stateChances.length; state++) {
+      grid.addState(state);
+    }
+    return grid;
+  }
+}
@@ -0,0 +1,276 @@
+package cellsociety.benchmark;
+
+import cellsociety.simulation.cell.LangtonLoopCell;
+import cellsociety.simulation.engine.Engine;
+import cellsociety.simulation.grid.Grid;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.ref.Reference;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Finds where stepping stops scaling, by running fixed workloads over a range of grid edge lengths
+ * and thread counts. The workloads are a random Life soup, a Langton loop colony growing from one loop in the
+ * center of the grid, and WaTor and Segregation at fixed densities, all seeded, so every version of the code
+ * steps the same simulations.
+ *
+ * For each workload, edge length and thread count, the suite reports steps per second, bytes of heap held per
+ * cell once the grid is built, milliseconds spent in garbage collection while stepping, and parallel
+ * efficiency: the speedup over one thread divided by the number of threads. Each point first steps a throwaway
+ * grid for half of its time, so that the measured grid runs on compiled code. The first thread count of a
+ * workload and edge length steps for the time given, and the other thread counts make the same number of
+ * steps, so that they all step the same part of the simulation. Points that run out of heap are
+ * reported as such instead of stopping the suite. The report is a CSV file with one row per point in a fixed
+ * order, so reports of two versions can be diffed.
+ *
+ * Assumptions: Nothing else runs in the JVM, so the heap and garbage collection counters belong to the suite.
+ * Heap per cell is the heap freed by a full collection once the stepped grid is dropped, so it includes
+ * anything the engine allocated while stepping, and is only accurate for grids much larger than the
+ * rest of the heap.
+ *
+ * Dependencies: Grid, GridWorkload, LangtonLoopCell
+ *
+ * Example usage: java -Xmx8g -cp benchmarks/target/benchmarks.jar cellsociety.benchmark.ScalingSuite
+ * --sizes 64,256,1024 --threads 1,2,4 --out scaling.csv
+ */
+public class ScalingSuite {
+
+  public static final String USAGE = "usage: ScalingSuite [--sizes <edge>,<edge>...] "
+      + "[--threads <count>,<count>...] [--seconds <minimum seconds per point>] [--out <report csv>]";
+  public static final String SIZES_OPTION = "--sizes";
+  public static final String THREADS_OPTION = "--threads";
+  public static final String SECONDS_OPTION = "--seconds";
+  public static final String OUT_OPTION = "--out";
+  public static final int[] DEFAULT_SIZES = {64, 256, 1024, 4096, 16384};
+  public static final double DEFAULT_SECONDS = 1.0;
+  public static final String DEFAULT_OUT = "scaling.csv";
+  public static final String[] WORKLOADS = {"life", "langton", "wator", "segregation"};
+  public static final String[] LANGTON_LOOP = {
+      "0222222220",
+      "2170140142",
+      "2022222202",
+      "272    212",
+      "212    212",
+      "202    212",
+      "272    212",
+      "21222222122222",
+      "20710710711111",
+      "02222222222222"};
+  public static final String HEADER = "workload,size,threads,status,steps,stepsPerSecond,heapBytesPerCell,"
+      + "gcMillis,parallelEfficiency";
+  private static final int MIN_STEPS = 3;
+  private static final int MAX_STEPS = 10000;
+  private static final String OK = "ok";
+  private static final String OUT_OF_MEMORY = "outOfMemory";
+
+  private final int[] sizes;
+  private final int[] threadCounts;
+  private final double minSeconds;
+  private final Map<String, Double> singleThreadRates = new HashMap<>();
+  private final Map<String, Long> stepCounts = new HashMap<>();
+
+  /**
+   * Creates a suite over a set of edge lengths and thread counts
+   * @param sizes the edge lengths of the grids
+   * @param threadCounts the numbers of threads to step with, which should start with 1 to get efficiencies
+   * @param minSeconds the least time to step each point for
+   */
+  public ScalingSuite(int[] sizes, int[] threadCounts, double minSeconds) {
+    this.sizes = sizes;
+    this.threadCounts = threadCounts;
+    this.minSeconds = minSeconds;
+  }
+
+  /**
+   * Returns 1, 2, 4 and so on up to the number of cores, and the number of cores itself
+   * @return the default thread counts
+   */
+  public static int[] getDefaultThreadCounts() {
+    int cores = Runtime.getRuntime().availableProcessors();
+    List<Integer> counts = new ArrayList<>();
+    for (int count = 1; count < cores; count *= 2) {
+      counts.add(count);
+    }
+    counts.add(cores);
+    return counts.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Makes the grid of a workload
+   * @param workload one of WORKLOADS
+   * @param size the edge length
+   * @return the grid, ready to be stepped
+   */
+  public static Grid makeWorkload(String workload, int size) {
+    if (workload.equals("langton")) {
+      Grid grid = GridWorkload.makeGrid("LangtonLoopCell", "Rect", GridWorkload.FINITE, size,
+          new double[]{1});
+      for (int state = 0; state <= GridWorkload.getHighestState("LangtonLoopCell"); state++) {
+        grid.addState(state);
+      }
+      int top = (size - LANGTON_LOOP.length) / 2;
+      int left = (size - LANGTON_LOOP[LANGTON_LOOP.length - 1].length()) / 2;
+      for (int r = 0; r < LANGTON_LOOP.length; r++) {
+        for (int c = 0; c < LANGTON_LOOP[r].length(); c++) {
+          char state = LANGTON_LOOP[r].charAt(c);
+          if (state != ' ' && state != '0') {
+            LangtonLoopCell cell = new LangtonLoopCell();
+            cell.setState(state - '0');
+            grid.placeCell(left + c, top + r, cell);
+          }
+        }
+      }
+      return grid;
+    }
+    if (workload.equals("wator")) {
+      return GridWorkload.makeGrid("WaTorCell", "Rect", GridWorkload.TOROIDAL, size,
+          new double[]{0.6, 0.3, 0.1});
+    }
+    if (workload.equals("segregation")) {
+      return GridWorkload.makeGrid("SegregationCell", "Rect", GridWorkload.TOROIDAL, size,
+          new double[]{0.1, 0.45, 0.45});
+    }
+    return GridWorkload.makeGrid("ConwayCell", "Rect", GridWorkload.TOROIDAL, size, new double[]{0.5, 0.5});
+  }
+
+  /**
+   * Runs every point of the suite, writing each row of the report as soon as it is measured
+   * @param out the report to write
+   */
+  public void run(PrintWriter out) {
+    out.println(HEADER);
+    out.flush();
+    for (String workload : WORKLOADS) {
+      for (int size : sizes) {
+        for (int threads : threadCounts) {
+          String row = measure(workload, size, threads);
+          out.println(row);
+          out.flush();
+          System.out.println(row);
+        }
+      }
+    }
+  }
+
+  private String measure(String workload, int size, int threads) {
+    String point = workload + "," + size + "," + threads;
+    try {
+      Grid warmup = makeWorkload(workload, size);
+      warmup.setThreads(threads);
+      stepFor(warmup, minSeconds / 2);
+      warmup = null;
+      Grid grid = makeWorkload(workload, size);
+      grid.setThreads(threads);
+      String key = workload + "," + size;
+      long gcBefore = gcMillis();
+      long start = System.nanoTime();
+      long steps;
+      if (stepCounts.containsKey(key)) {
+        steps = stepCounts.get(key);
+        for (long step = 0; step < steps; step++) {
+          grid.update();
+        }
+      } else {
+        steps = stepFor(grid, minSeconds);
+        stepCounts.put(key, steps);
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+      long gc = gcMillis() - gcBefore;
+      long heapWithGrid = usedHeap();
+      Reference.reachabilityFence(grid);
+      grid = null;
+      long heapBytes = heapWithGrid - usedHeap();
+      double rate = steps / seconds;
+      if (threads == 1) {
+        singleThreadRates.put(key, rate);
+      }
+      Double single = singleThreadRates.get(key);
+      String efficiency = single == null ? "" : String.format("%.3f", rate / (single * threads));
+      return String.format("%s,%s,%d,%.3f,%.1f,%d,%s", point, OK, steps, rate,
+          (double) heapBytes / ((long) size * size), gc, efficiency);
+    } catch (OutOfMemoryError e) {
+      return point + "," + OUT_OF_MEMORY + ",0,,,,";
+    } finally {
+      Engine.shutdownPools();
+    }
+  }
+
+  /**
+   * Steps a grid for at least MIN_STEPS steps and a number of seconds, and returns the number of steps made
+   */
+  private static long stepFor(Grid grid, double seconds) {
+    long steps = 0;
+    long start = System.nanoTime();
+    while (steps < MAX_STEPS && (steps < MIN_STEPS || System.nanoTime() - start < seconds * 1e9)) {
+      grid.update();
+      steps++;
+    }
+    return steps;
+  }
+
+  private static long usedHeap() {
+    for (int i = 0; i < 2; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long gcMillis() {
+    long ret = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      ret += Math.max(0, collector.getCollectionTime());
+    }
+    return ret;
+  }
+
+  private static int[] parseList(String list) {
+    String[] parts = list.split(",");
+    int[] ret = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      ret[i] = Integer.parseInt(parts[i].trim());
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the suite from the command line
+   * @param args any options given in USAGE
+   * @throws IOException if the report could not be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length % 2 != 0) {
+      System.err.println(USAGE);
+      System.exit(1);
+    }
+    int[] sizes = DEFAULT_SIZES;
+    int[] threadCounts = getDefaultThreadCounts();
+    double seconds = DEFAULT_SECONDS;
+    String out = DEFAULT_OUT;
+    for (int i = 0; i < args.length; i += 2) {
+      if (args[i].equals(SIZES_OPTION)) {
+        sizes = parseList(args[i + 1]);
+      } else if (args[i].equals(THREADS_OPTION)) {
+        threadCounts = parseList(args[i + 1]);
+      } else if (args[i].equals(SECONDS_OPTION)) {
+        seconds = Double.parseDouble(args[i + 1]);
+      } else if (args[i].equals(OUT_OPTION)) {
+        out = args[i + 1];
+      } else {
+        System.err.println(USAGE);
+        System.exit(1);
+      }
+    }
+    System.out.println(HEADER);
+    try (PrintWriter writer = new PrintWriter(new FileWriter(out))) {
+      new ScalingSuite(sizes, threadCounts, seconds).run(writer);
+    }
+  }
+}
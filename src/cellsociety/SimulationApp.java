@@ -14,6 +14,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ResourceBundle;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
@@ -60,7 +61,6 @@ public class SimulationApp {
   private static final String TITLE = "Cell Simulator";
   private static final int FRAMES_PER_SECOND = 60;
   private static final int MILLISECOND_DELAY = 1000 / FRAMES_PER_SECOND;
-  private static final double SECOND_DELAY = 1.0 / FRAMES_PER_SECOND;
   private static final String RESOURCES = "resources";
   private static final String DEFAULT_RESOURCE_PACKAGE = RESOURCES + ".";
   public static final String DEFAULT_RESOURCE_FOLDER = RESOURCES + "/";
@@ -93,7 +93,6 @@ public class SimulationApp {
   private MenuBar menuBar;
   private Menu menu;
   private File myFile;
-  private double secondsElapsed;
   private double speed;
   private boolean running;
 
@@ -118,9 +117,10 @@ public class SimulationApp {
 
     myStage.setScene(createScene());
     myStage.setTitle(TITLE);
+    myStage.setOnHidden(e -> myVisualizer.getSimulation().stop());
     myStage.show();
 
-    KeyFrame frame = new KeyFrame(Duration.millis(MILLISECOND_DELAY), e -> update(SECOND_DELAY));
+    KeyFrame frame = new KeyFrame(Duration.millis(MILLISECOND_DELAY), e -> update());
     Timeline animation = new Timeline();
     animation.setCycleCount(Timeline.INDEFINITE);
     animation.getKeyFrames().add(frame);
@@ -147,23 +147,12 @@ public class SimulationApp {
   }
 
   /**
-   * Update method which calls the model to update the states of all the cells on the backend, and
-   * redraws the shapes with their new color values. Calls the inner update methods at a rate
-   * dependent on the speed of the simulation (specified in the .xml config file and controlled by
-   * the slider).
-   *
-   * @param elapsedTime - The elapsed time between frame calls made in the simulation loop of
-   *                    the App
+   * Update method which redraws the cells with the newest states handed out by the simulation loop, which
+   * steps the cells on its own thread at a rate dependent on the speed of the simulation (specified in the
+   * .xml config file and controlled by the slider). Called every frame, however fast the simulation steps.
    */
-  private void update(double elapsedTime) {
-    if (running) {
-      secondsElapsed += elapsedTime;
-      if (secondsElapsed > speed) {
-        myVisualizer.stepGrid();
-        myVisualizer.updateChart();
-        secondsElapsed = 0;
-      }
-    }
+  private void update() {
+    myVisualizer.drawLatest();
   }
 
   /**
@@ -210,6 +199,7 @@ public class SimulationApp {
       }
 
       Class visualizerClass = null;
+      Visualizer previous = myVisualizer;
       try {
         visualizerClass = Class.forName(PACKAGE_PREFIX_NAME + myConfig.getVisualizer());
         myVisualizer = (Visualizer) (visualizerClass.getConstructor(Grid.class)
@@ -220,9 +210,26 @@ public class SimulationApp {
         return;
       }
       myVisualizer.setColorMap(myConfig.getStates());
+      if (myVisualizer != previous) {
+        startSimulation(previous);
+      }
     }
   }
 
+  /**
+   * Starts the simulation loop of a newly loaded visualizer at the current speed, playing if the last one
+   * was playing, and stops the loop of the visualizer it replaces
+   * @param previous - the visualizer being replaced, or null if this is the first
+   */
+  private void startSimulation(Visualizer previous) {
+    if (previous != null) {
+      previous.getSimulation().stop();
+    }
+    myVisualizer.getSimulation().setStepPeriod(speed);
+    myVisualizer.getSimulation().setRunning(running);
+    myVisualizer.getSimulation().start();
+  }
+
   /**
    * Helps with error handling by creating a loop which will pop up an error message until the user has
    * selected a valid XML file
@@ -282,14 +289,10 @@ public class SimulationApp {
     });
     exit = makeMenuItem("Exit", e-> closeWindow());
     save = makeMenuItem("Save", e->{
-      XMLWriter myWriter = new XMLWriter(myConfig, myVisualizer.getGrid());
       String filepath = saveFile();
       if(filepath != null){
-        try {
-          myWriter.saveXML(filepath);
-        } catch (XMLWriteException x) {
-          displayError("Writing File caused exceptional error. Please check disk space, working libraries, and status of loaded XML file.");
-        }
+        Config config = myConfig;
+        myVisualizer.getSimulation().submit(grid -> saveGrid(config, grid, filepath));
       }
     });
     playpause = makeButton("Play", e -> handlePlayPause(playpause));
@@ -298,14 +301,10 @@ public class SimulationApp {
       frame.setCenter(myVisualizer.bundledUI());
       myVisualizer.drawGrid();
     });
-    step = makeButton("Step", e -> {
-      myVisualizer.stepGrid();
-      myVisualizer.updateChart();
-    });
+    step = makeButton("Step", e -> myVisualizer.getSimulation().step());
     shuffle = makeButton("Shuffle", e->{
       myConfig.createRandomGrid(myVisualizer.getWidth(), myVisualizer.getHeight());
       myVisualizer.setGrid(myConfig.getGrid());
-      myVisualizer.drawGrid();
     });
     gridLines = makeButton("GridLines", e->{
       myVisualizer.setGridLines(!myVisualizer.getGridLines());
@@ -335,6 +334,21 @@ public class SimulationApp {
     return toolbar;
   }
 
+  /**
+   * Writes a grid to an XML file. Runs on the simulation loop's thread between steps, so the grid is not
+   * read while it is being stepped, and shows any error back on the JavaFX thread
+   * @param config - the Config the grid was loaded from
+   * @param grid - the grid being stepped by the simulation loop
+   * @param filepath - where the file will be saved
+   */
+  private void saveGrid(Config config, Grid grid, String filepath) {
+    try {
+      new XMLWriter(config, grid).saveXML(filepath);
+    } catch (XMLWriteException x) {
+      Platform.runLater(() -> displayError("Writing File caused exceptional error. Please check disk space, working libraries, and status of loaded XML file."));
+    }
+  }
+
   /**
    * Creates filechooser dialog where the user can select the filepath for the current configuration of the simulation
    * to be saved to.
@@ -381,6 +395,7 @@ public class SimulationApp {
    */
   private void handlePlayPause(Button button) {
     running = !running;
+    myVisualizer.getSimulation().setRunning(running);
     final String IMAGEFILE_SUFFIXES = String
         .format(".*\\.(%s)", String.join("|", ImageIO.getReaderFileSuffixes()));
     String label = "";
@@ -403,6 +418,7 @@ public class SimulationApp {
   private void setSpeed(double percentSpeed) {
     percentSpeed *= MAX_UPDATE_PERIOD;
     speed = MAX_UPDATE_PERIOD - percentSpeed;
+    myVisualizer.getSimulation().setStepPeriod(speed);
   }
 
   /**
@@ -1,5 +1,6 @@
 package cellsociety;
 
+import cellsociety.metrics.StepMetrics;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -11,7 +12,8 @@ import javafx.stage.Stage;
  *
  * Assumptions: this class assumes nothing except that the SimulationApp takes in a stage as its constructor
  *
- * Dependencies: this class is dependent on JavaFX as well as the SimulationApp class
+ * Dependencies: this class is dependent on JavaFX as well as the SimulationApp class, and StepMetrics, which it
+ * installs so the step metrics can be turned on
  *
  * Example usage: Simply press the "Run" button in whatever IDE you are using: This class contains the
  * main() method and so is only used when called by the run button.
@@ -34,6 +36,7 @@ public class SimulationRunner extends Application {
    * @param args: the arguments to the main method (unused in this case, syntax for main method)
    */
   public static void main(String[] args){
+    StepMetrics.install();
     launch(args);
   }
 }
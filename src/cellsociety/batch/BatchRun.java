@@ -0,0 +1,153 @@
+package cellsociety.batch;
+
+import cellsociety.simulation.grid.Grid;
+import java.util.Arrays;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Steps a single grid as fast as it can, without anything to draw, until a number of steps have
+ * been made or a stop condition is met. The run can stop early once the populations have not changed for a
+ * number of steps in a row (a steady state), or once a state has died out. Keeps the wall time and the
+ * number of cells stepped, for reporting throughput.
+ *
+ * Steps are generations: a grid in a HashLifeEngine moves forward 2^stepLog generations per update, and every
+ * count here, along with the steps and cells per second, counts each of those generations.
+ *
+ * Assumptions: The grid is only used by this run while it runs. Populations staying the same is taken as a
+ * steady state, even though cells may still be moving around. An update that moves forward many generations
+ * may take the run past maxSteps, and the populations between updates are not seen.
+ *
+ * Dependencies: Grid
+ */
+public class BatchRun {
+
+  public static final int OFF = -1;
+
+  private final Grid grid;
+  private long maxSteps;
+  private int steadySteps = OFF;
+  private int extinctState = OFF;
+  private long steps;
+  private long updates;
+  private long steadyStep = OFF;
+  private long cellSteps;
+  private long nanos;
+
+  /**
+   * Creates a run of a grid
+   * @param grid the grid to step
+   * @param maxSteps the most steps to make, in generations
+   */
+  public BatchRun(Grid grid, long maxSteps) {
+    this.grid = grid;
+    this.maxSteps = maxSteps;
+  }
+
+  /**
+   * Stops the run once the populations have stayed the same for a number of steps in a row
+   * @param count the number of unchanged steps, or OFF
+   */
+  public void setSteadySteps(int count) {
+    steadySteps = count;
+  }
+
+  /**
+   * Stops the run once no cells are left in a state
+   * @param state the state to watch, or OFF
+   */
+  public void setExtinctState(int state) {
+    extinctState = state;
+  }
+
+  /**
+   * Steps the grid until maxSteps steps have been made or a stop condition is met
+   */
+  public void run() {
+    int[] last = grid.getPopulations().clone();
+    long changedStep = steps;
+    long start = System.nanoTime();
+    while (steps < maxSteps) {
+      long generations = grid.getGenerationsPerUpdate();
+      cellSteps += (long) grid.getWidth() * grid.getHeight() * generations;
+      grid.update();
+      updates++;
+      steps += generations;
+      int[] populations = grid.getPopulations();
+      if (!Arrays.equals(populations, last)) {
+        changedStep = steps;
+        if (last.length == populations.length) {
+          System.arraycopy(populations, 0, last, 0, last.length);
+        } else {
+          last = populations.clone();
+        }
+      }
+      if (steadySteps != OFF && steps - changedStep >= steadySteps) {
+        steadyStep = changedStep;
+        break;
+      }
+      if (extinctState != OFF && (extinctState >= populations.length || populations[extinctState] == 0)) {
+        break;
+      }
+    }
+    nanos += System.nanoTime() - start;
+  }
+
+  /**
+   * Returns the number of steps made, in generations
+   * @return the number of generations the grid moved forward
+   */
+  public long getSteps() {
+    return steps;
+  }
+
+  /**
+   * Returns the number of times the grid was updated, which is less than the number of steps if each update
+   * moves forward many generations
+   * @return the number of updates of the grid
+   */
+  public long getUpdates() {
+    return updates;
+  }
+
+  /**
+   * Returns the first step of the steady state the run stopped in, or OFF if it never stopped for one
+   * @return the step after which the populations stopped changing
+   */
+  public long getSteadyStep() {
+    return steadyStep;
+  }
+
+  /**
+   * Returns the wall time spent stepping, in nanoseconds
+   * @return the wall time spent stepping
+   */
+  public long getNanos() {
+    return nanos;
+  }
+
+  /**
+   * Returns the number of steps made per second of wall time
+   * @return the number of steps made per second of wall time
+   */
+  public double getStepsPerSecond() {
+    return nanos == 0 ? 0 : steps * 1e9 / nanos;
+  }
+
+  /**
+   * Returns the number of cells stepped per second of wall time, counting every cell of the grid once per
+   * step
+   * @return the number of cells stepped per second of wall time
+   */
+  public double getCellsPerSecond() {
+    return nanos == 0 ? 0 : cellSteps * 1e9 / nanos;
+  }
+
+  /**
+   * Returns the grid being stepped
+   * @return the grid being stepped
+   */
+  public Grid getGrid() {
+    return grid;
+  }
+}
@@ -0,0 +1,126 @@
+package cellsociety.batch;
+
+import cellsociety.config.Config;
+import cellsociety.config.XMLWriter;
+import cellsociety.metrics.StepMetrics;
+import cellsociety.simulation.engine.Engine;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.PopulationListener;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Runs a simulation from the command line, without JavaFX or a display. Loads a config file, steps
+ * it as fast as it can for a number of steps or until a stop condition is met, and writes the final states
+ * as a config file along with the populations after every step as a CSV file. Prints the steps and cells
+ * stepped per second when done. Steps are generations, so with a HashLife engine that moves forward
+ * 2^stepLog generations per update, the steps given, the step column of the CSV file and the rates printed
+ * all count generations, and the populations are written once per update.
+ *
+ * Assumptions: Nothing on the path from Config to the engines imports javafx, so this starts without the
+ * JavaFX runtime on the classpath.
+ *
+ * Dependencies: Config, XMLWriter, Grid, PopulationListener, BatchRun, StepMetrics
+ *
+ * Example usage: java cellsociety.batch.HeadlessRunner data/GameofLife.xml 1000 --out results --steady 10
+ */
+public class HeadlessRunner {
+
+  public static final String USAGE = "usage: HeadlessRunner <config file> <steps> [--out <directory>] "
+      + "[--steady <unchanged steps>] [--extinct <state>]";
+  public static final String OUT_OPTION = "--out";
+  public static final String STEADY_OPTION = "--steady";
+  public static final String EXTINCT_OPTION = "--extinct";
+  public static final String FINAL_SUFFIX = "_final.xml";
+  public static final String POPULATIONS_SUFFIX = "_populations.csv";
+
+  private HeadlessRunner() {
+  }
+
+  /**
+   * Writes the populations after every update as a row of a CSV file, starting with the generation number
+   */
+  private static class PopulationWriter implements PopulationListener {
+
+    private final PrintWriter out;
+
+    private PopulationWriter(PrintWriter out, int[] populations) {
+      this.out = out;
+      out.print("step");
+      for (int state = 0; state < populations.length; state++) {
+        out.print(",state" + state);
+      }
+      out.println();
+      populationsUpdated(0, populations);
+    }
+
+    @Override
+    public void populationsUpdated(long step, int[] populations) {
+      out.print(step);
+      for (int population : populations) {
+        out.print(',');
+        out.print(population);
+      }
+      out.println();
+    }
+  }
+
+  /**
+   * Runs a simulation from the command line
+   * @param args the config file, the most steps to make in generations, and then any options given in USAGE
+   * @throws IOException if the populations file could not be written
+   */
+  public static void main(String[] args) throws IOException {
+    StepMetrics.install();
+    if (args.length < 2 || args.length % 2 != 0) {
+      System.err.println(USAGE);
+      System.exit(1);
+    }
+    File file = new File(args[0]);
+    long maxSteps = Long.parseLong(args[1]);
+    File outDirectory = new File(".");
+    int steady = BatchRun.OFF;
+    int extinct = BatchRun.OFF;
+    for (int i = 2; i < args.length; i += 2) {
+      if (args[i].equals(OUT_OPTION)) {
+        outDirectory = new File(args[i + 1]);
+      } else if (args[i].equals(STEADY_OPTION)) {
+        steady = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals(EXTINCT_OPTION)) {
+        extinct = Integer.parseInt(args[i + 1]);
+      } else {
+        System.err.println(USAGE);
+        System.exit(1);
+      }
+    }
+    outDirectory.mkdirs();
+    String name = file.getName().replaceFirst("\\.[^.]*$", "");
+
+    Config config = new Config(file);
+    Grid grid = config.getGrid();
+    BatchRun run = new BatchRun(grid, maxSteps);
+    run.setSteadySteps(steady);
+    run.setExtinctState(extinct);
+    try (PrintWriter out = new PrintWriter(new FileWriter(new File(outDirectory, name + POPULATIONS_SUFFIX)))) {
+      PopulationWriter writer = new PopulationWriter(out, grid.getPopulations());
+      grid.addPopulationListener(writer);
+      run.run();
+      grid.removePopulationListener(writer);
+    }
+    Engine.shutdownPools();
+    new XMLWriter(config, grid).saveXML(new File(outDirectory, name + FINAL_SUFFIX).getPath());
+
+    System.out.printf("%s: %d steps in %.3f s%n", name, run.getSteps(), run.getNanos() / 1e9);
+    if (run.getUpdates() != run.getSteps()) {
+      System.out.printf("%d updates of %d generations%n", run.getUpdates(), grid.getGenerationsPerUpdate());
+    }
+    if (run.getSteadyStep() != BatchRun.OFF) {
+      System.out.printf("steady after step %d%n", run.getSteadyStep());
+    }
+    System.out.printf("%.1f steps/sec, %.4g cells/sec%n", run.getStepsPerSecond(), run.getCellsPerSecond());
+  }
+}
@@ -0,0 +1,268 @@
+package cellsociety.batch;
+
+import cellsociety.config.Config;
+import cellsociety.metrics.StepMetrics;
+import cellsociety.simulation.engine.Engine;
+import cellsociety.simulation.grid.Grid;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Runs a simulation for every combination of a set of parameter values, a number of times each with
+ * different seeds, and writes one row of summary metrics per run to a CSV file: the final populations, the
+ * step a steady state was reached, and the wall time. Runs are spread over a work-stealing pool of a bounded
+ * number of threads. Each run has its own grid, stepped on one thread, and every thread of the pool reads the
+ * config file once and reuses it for all of its runs, so runs share nothing but the output file and the
+ * sweep speeds up with the number of cores.
+ *
+ * Replica i of every combination uses the seed base + i, so combinations are compared on the same random
+ * numbers. Rows are written as runs finish, so they are not in order.
+ *
+ * Assumptions: Parameter values are given as start:end:step, which includes end, or as a comma separated
+ * list. Without --seed, the base seed is the one in the config file, or 0.
+ *
+ * Dependencies: Config, Grid, BatchRun, StepMetrics
+ *
+ * Example usage: java cellsociety.batch.SweepRunner data/Fire.xml 500 10 fire.csv --param probCatch=0:1:0.05
+ */
+public class SweepRunner {
+
+  public static final String USAGE = "usage: SweepRunner <config file> <steps> <replicas> <output csv> "
+      + "[--param <name>=<start>:<end>:<step> | --param <name>=<value>,<value>...] "
+      + "[--steady <unchanged steps>] [--threads <threads>] [--seed <base seed>]";
+  public static final String PARAM_OPTION = "--param";
+  public static final String STEADY_OPTION = "--steady";
+  public static final String THREADS_OPTION = "--threads";
+  public static final String SEED_OPTION = "--seed";
+  public static final int DEFAULT_STEADY_STEPS = 10;
+  private static final double RANGE_TOLERANCE = 1e-9;
+
+  private final File file;
+  private final long steps;
+  private final int replicas;
+  private final List<String> names = new ArrayList<>();
+  private final List<double[]> values = new ArrayList<>();
+  private int steadySteps = DEFAULT_STEADY_STEPS;
+  private long baseSeed;
+  private int states;
+  private PrintWriter out;
+  private ThreadLocal<Config> configs;
+
+  /**
+   * Creates a sweep over a config file with no parameters to vary yet
+   * @param file the config file of the simulation
+   * @param steps the most steps of each run, in generations
+   * @param replicas the number of runs of each combination of parameter values
+   */
+  public SweepRunner(File file, long steps, int replicas) {
+    this.file = file;
+    this.steps = steps;
+    this.replicas = replicas;
+    Config config = new Config(file);
+    states = Collections.max(config.getStates().keySet()) + 1;
+    baseSeed = config.getSeed() == null ? 0 : config.getSeed();
+    configs = ThreadLocal.withInitial(() -> new Config(file));
+  }
+
+  /**
+   * Adds a parameter to vary
+   * @param name the name of the parameter
+   * @param range start:end:step, or a comma separated list of values
+   */
+  public void addParam(String name, String range) {
+    names.add(name);
+    values.add(parseRange(range));
+  }
+
+  /**
+   * Sets the number of unchanged steps after which a run is taken to be steady and stopped
+   * @param count the number of unchanged steps, or BatchRun.OFF to always make every step
+   */
+  public void setSteadySteps(int count) {
+    steadySteps = count;
+  }
+
+  /**
+   * Sets the seed of the first replica of every combination
+   * @param seed the base seed
+   */
+  public void setBaseSeed(long seed) {
+    baseSeed = seed;
+  }
+
+  /**
+   * Returns the values of a range of a parameter, for tests
+   */
+  static double[] parseRange(String range) {
+    if (range.contains(":")) {
+      String[] parts = range.split(":");
+      double start = Double.parseDouble(parts[0]);
+      double end = Double.parseDouble(parts[1]);
+      double step = Double.parseDouble(parts[2]);
+      int count = (int) Math.floor((end - start) / step + RANGE_TOLERANCE) + 1;
+      double[] ret = new double[Math.max(count, 0)];
+      for (int i = 0; i < ret.length; i++) {
+        ret[i] = start + i * step;
+      }
+      return ret;
+    }
+    String[] parts = range.split(",");
+    double[] ret = new double[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      ret[i] = Double.parseDouble(parts[i].trim());
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the number of combinations of parameter values
+   * @return the number of combinations of parameter values
+   */
+  public int getCombinations() {
+    int ret = 1;
+    for (double[] range : values) {
+      ret *= range.length;
+    }
+    return ret;
+  }
+
+  /**
+   * Runs every replica of every combination on a pool of threads, writing a row to the output as each finishes
+   * @param output the CSV file to write
+   * @param threads the number of threads of the pool
+   * @throws IOException if the output could not be written
+   * @throws InterruptedException if the sweep was interrupted
+   */
+  public void run(File output, int threads) throws IOException, InterruptedException {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try (PrintWriter writer = new PrintWriter(new FileWriter(output))) {
+      out = writer;
+      writeHeader();
+      List<Future<?>> runs = new ArrayList<>();
+      for (int combination = 0; combination < getCombinations(); combination++) {
+        for (int replica = 0; replica < replicas; replica++) {
+          int runCombination = combination;
+          int runReplica = replica;
+          runs.add(pool.submit(() -> runOne(runCombination, runReplica)));
+        }
+      }
+      for (Future<?> run : runs) {
+        try {
+          run.get();
+        } catch (ExecutionException e) {
+          System.err.println("run failed: " + e.getCause());
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void runOne(int combination, int replica) {
+    Config config = configs.get();
+    long seed = baseSeed + replica;
+    double[] setting = getSetting(combination);
+    for (int i = 0; i < setting.length; i++) {
+      config.setParam(names.get(i), setting[i]);
+    }
+    config.setSeed(seed);
+    config.setThreads(1);
+    config.reloadGrid();
+    Grid grid = config.getGrid();
+    BatchRun run = new BatchRun(grid, steps);
+    run.setSteadySteps(steadySteps);
+    run.run();
+    writeRow(combination * replicas + replica, replica, seed, setting, run);
+  }
+
+  /**
+   * Returns the parameter values of a combination, counting through the last parameter fastest, for tests
+   */
+  double[] getSetting(int combination) {
+    double[] ret = new double[values.size()];
+    for (int i = values.size() - 1; i >= 0; i--) {
+      double[] range = values.get(i);
+      ret[i] = range[combination % range.length];
+      combination /= range.length;
+    }
+    return ret;
+  }
+
+  private void writeHeader() {
+    StringBuilder header = new StringBuilder("run,replica,seed");
+    for (String name : names) {
+      header.append(',').append(name);
+    }
+    header.append(",steps,steadyStep,wallMillis");
+    for (int state = 0; state < states; state++) {
+      header.append(",state").append(state);
+    }
+    out.println(header);
+    out.flush();
+  }
+
+  private void writeRow(int id, int replica, long seed, double[] setting, BatchRun run) {
+    StringBuilder row = new StringBuilder();
+    row.append(id).append(',').append(replica).append(',').append(seed);
+    for (double value : setting) {
+      row.append(',').append(value);
+    }
+    row.append(',').append(run.getSteps()).append(',').append(run.getSteadyStep());
+    row.append(',').append(run.getNanos() / 1e6);
+    for (int population : run.getGrid().getPopulations()) {
+      row.append(',').append(population);
+    }
+    synchronized (this) {
+      out.println(row);
+      out.flush();
+    }
+  }
+
+  /**
+   * Runs a sweep from the command line
+   * @param args the config file, steps, replicas and output file, and then any options given in USAGE
+   * @throws IOException if the output could not be written
+   * @throws InterruptedException if the sweep was interrupted
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    StepMetrics.install();
+    if (args.length < 4 || args.length % 2 != 0) {
+      System.err.println(USAGE);
+      System.exit(1);
+    }
+    SweepRunner sweep = new SweepRunner(new File(args[0]), Long.parseLong(args[1]), Integer.parseInt(args[2]));
+    File output = new File(args[3]);
+    int threads = Runtime.getRuntime().availableProcessors();
+    for (int i = 4; i < args.length; i += 2) {
+      if (args[i].equals(PARAM_OPTION) && args[i + 1].contains("=")) {
+        String[] param = args[i + 1].split("=", 2);
+        sweep.addParam(param[0], param[1]);
+      } else if (args[i].equals(STEADY_OPTION)) {
+        sweep.setSteadySteps(Integer.parseInt(args[i + 1]));
+      } else if (args[i].equals(THREADS_OPTION)) {
+        threads = Integer.parseInt(args[i + 1]);
+      } else if (args[i].equals(SEED_OPTION)) {
+        sweep.setBaseSeed(Long.parseLong(args[i + 1]));
+      } else {
+        System.err.println(USAGE);
+        System.exit(1);
+      }
+    }
+    long start = System.nanoTime();
+    sweep.run(output, threads);
+    Engine.shutdownPools();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    int runs = sweep.getCombinations() * sweep.replicas;
+    System.out.printf("%d runs on %d threads in %.3f s (%.2f runs/sec)%n", runs, threads, seconds, runs / seconds);
+  }
+}
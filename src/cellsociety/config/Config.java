@@ -10,7 +10,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import javafx.scene.paint.Color;
 
 import javax.imageio.ImageIO;
 import javax.xml.parsers.DocumentBuilder;
@@ -57,6 +56,12 @@ public class Config {
   public static final String CUSTOM_NODE_NAME = "Custom";
   public static final String BORDER_TYPE_NODE = "BorderType";
   public static final String MASK_NODE_NAME = "Mask";
+  public static final String SEED_NODE_NAME = "Seed";
+  public static final String ENGINE_NODE_NAME = "Engine";
+  public static final String STEP_LOG_ATTRIBUTE_NAME = "stepLog";
+  public static final String THREADS_ATTRIBUTE_NAME = "threads";
+  public static final String MAX_NODES_ATTRIBUTE_NAME = "maxNodes";
+  public static final String HASHLIFE_ENGINE_NAME = "HashLife";
 
   private String packagePrefixName = "cellsociety.simulation.";
   private String gridPrefixName = packagePrefixName+"grid.";
@@ -79,12 +84,18 @@ public class Config {
   private double mySpeed;
   private int myWidth;
   private int myHeight;
-  private Map<Integer, Color> myStates;
+  private Map<Integer, String> myStates;
   private Map<String, Double> myParameters;
   private int defaultState = 0;
   private int myBorderType = 0;
   private double[] randomGridVariables;
   private int[] myMask;
+  private String myEngine = "";
+  private int myStepLog = 0;
+  private int myThreads = 0;
+  private int myMaxNodes = 0;
+  private Long mySeed = null;
+  private int myRandomGrids = 0;
 
   /**
    * Constructor for the Config object. Sets the file and sets up the documentBuilder. Then loads the file content.
@@ -134,10 +145,11 @@ public class Config {
   }
 
   /**
-   * Returns color/state mappings.
+   * Returns color/state mappings. Colors are kept as the web color strings given in the file, so that
+   * configs can be loaded without JavaFX
    * @return Map with the color mappings
    */
-  public Map<Integer, Color> getStates() {
+  public Map<Integer, String> getStates() {
     return myStates;
   }
 
@@ -190,6 +202,87 @@ public class Config {
       return myMask;
   }
 
+  /**
+   * Returns the engine requested for the simulation, or an empty String if none was requested
+   * @return String, which represents the engine requested
+   */
+  public String getEngine(){
+    return myEngine;
+  }
+
+  /**
+   * Returns the step size requested for the engine, as a power of 2
+   * @return the log base 2 of the number of generations in each step
+   */
+  public int getStepLog(){
+    return myStepLog;
+  }
+
+  /**
+   * Returns the seed requested for the simulation's random numbers
+   * @return the seed, or null if none was requested
+   */
+  public Long getSeed(){
+    return mySeed;
+  }
+
+  /**
+   * Sets the seed used for the random numbers of grids created from now on, as if it had been requested in the XML
+   * @param seed the seed
+   */
+  public void setSeed(long seed){
+    mySeed = seed;
+    myRandomGrids = 0;
+  }
+
+  /**
+   * Sets the number of threads used to step grids created from now on, as if it had been requested in the XML
+   * @param threads the number of threads
+   */
+  public void setThreads(int threads){
+    myThreads = threads;
+  }
+
+  /**
+   * Sets a simulation parameter of grids created from now on, replacing the value given in the XML
+   * @param name the name of the parameter
+   * @param value the value of the parameter
+   */
+  public void setParam(String name, double value){
+    myParameters.put(name, value);
+  }
+
+  /**
+   * Creates the grid again from the loaded file, with the current seed, the same way the constructor did. Lets one
+   * Config make many independent runs of a simulation without reading the file again.
+   * @throws InvalidCellException
+   * @throws InvalidGridException
+   */
+  public void reloadGrid() throws InvalidCellException, InvalidGridException{
+    if(customRequested) {
+      createGrid();
+    }
+    else{
+      createRandomGrid();
+    }
+  }
+
+  /**
+   * Returns the number of threads requested for stepping the simulation
+   * @return the number of threads, or 0 if none was requested
+   */
+  public int getThreads(){
+    return myThreads;
+  }
+
+  /**
+   * Returns the number of quadtree nodes HashLife may store before dropping the unused ones
+   * @return the number of nodes, or 0 if none was requested
+   */
+  public int getMaxNodes(){
+    return myMaxNodes;
+  }
+
   /**
    * Based on the parameters set, creates a grid with a randomized configuration of CELLS
    * @throws InvalidCellException
@@ -207,6 +300,11 @@ public class Config {
     } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
       throw new InvalidGridException(e);
     }
+    myGrid.setFlatStorage(true);
+    if(mySeed != null){
+      myGrid.setSeed(mySeed + myRandomGrids);
+      myRandomGrids++;
+    }
     try {
       myGrid.setRandomGrid(myTitle, myParameters, randomGridVariables, myBorderType, myMask, width, height);
     } catch (ClassNotFoundException e) {
@@ -215,6 +313,7 @@ public class Config {
     for (int i: myStates.keySet()) {
       myGrid.addState(i);
     }
+    applyEngine();
   }
 
   /**
@@ -292,6 +391,8 @@ public class Config {
       extractParameters(configElement);
       extractCustom(configElement);
       printCustom();
+      extractSeed(configElement);
+      extractEngine(configElement);
     }
   }
 
@@ -335,7 +436,7 @@ public class Config {
               singleStateElement.getElementsByTagName(STATE_ID_NODE_NAME).item(0).getTextContent());
           String stateColor = singleStateElement.getElementsByTagName(COLOR_NODE_NAME).item(0)
               .getTextContent();
-          myStates.put(stateID, Color.web(stateColor));
+          myStates.put(stateID, stateColor);
         }
       }
     }
@@ -391,6 +492,47 @@ public class Config {
     customRequested = Boolean.parseBoolean(extractElementValue(startingElement, CUSTOM_NODE_NAME));
   }
 
+  private void extractSeed(Element startingElement){
+    NodeList seedNodeList = startingElement.getElementsByTagName(SEED_NODE_NAME);
+    if(seedNodeList.getLength() > 0){
+      mySeed = Long.parseLong(seedNodeList.item(0).getTextContent().trim());
+      System.out.println("Seed requested: " + mySeed);
+    }
+  }
+
+  private void extractEngine(Element startingElement){
+    NodeList engineNodeList = startingElement.getElementsByTagName(ENGINE_NODE_NAME);
+    if(engineNodeList.getLength() > 0){
+      Element engineElement = (Element) engineNodeList.item(0);
+      myEngine = engineElement.getTextContent().trim();
+      String stepLog = engineElement.getAttribute(STEP_LOG_ATTRIBUTE_NAME);
+      if(!stepLog.isEmpty()){
+        myStepLog = Integer.parseInt(stepLog.trim());
+      }
+      String threads = engineElement.getAttribute(THREADS_ATTRIBUTE_NAME);
+      if(!threads.isEmpty()){
+        myThreads = Integer.parseInt(threads.trim());
+      }
+      String maxNodes = engineElement.getAttribute(MAX_NODES_ATTRIBUTE_NAME);
+      if(!maxNodes.isEmpty()){
+        myMaxNodes = Integer.parseInt(maxNodes.trim());
+      }
+      System.out.println("Engine requested: " + myEngine + " (2^" + myStepLog + " generations per step, " + myThreads + " threads)");
+    }
+  }
+
+  /**
+   * Moves the grid into the engine requested in the XML, if any. Grids that the engine cannot run are left as they are.
+   */
+  private void applyEngine(){
+    if(myThreads > 0){
+      myGrid.setThreads(myThreads);
+    }
+    if(myEngine.equals(HASHLIFE_ENGINE_NAME) && !myGrid.setHashLife(myStepLog, myMaxNodes)){
+      System.out.println("HashLife is not supported for this simulation, using the default engine");
+    }
+  }
+
   private void extractSpeed(Element dimensionsElement) {
     mySpeed = Double.parseDouble(extractElementValue(dimensionsElement, SPEED_NODE_NAME).trim());
   }
@@ -496,9 +638,14 @@ public class Config {
       }
     }
     fillRemainingRows(row);
+    if(mySeed != null){
+      myGrid.setSeed(mySeed);
+    }
+    myGrid.setFlatStorage(true);
     for (int i: myStates.keySet()) {
       myGrid.addState(i);
     }
+    applyEngine();
   }
 
   /**
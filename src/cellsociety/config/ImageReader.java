@@ -5,7 +5,6 @@ import cellsociety.simulation.cell.Cell;
 import cellsociety.simulation.cell.RPSCell;
 import cellsociety.simulation.grid.Grid;
 import cellsociety.simulation.grid.RectGrid;
-import javafx.scene.paint.Color;
 
 import java.io.File;
 import java.io.IOException;
@@ -19,12 +18,14 @@ import javax.imageio.ImageIO;
  * @author Alex Xu, aqx
  */
 public class ImageReader {
+    public static final String COLOR_FORMAT = "#%02x%02x%02x";
+
     private File myFile;
     private BufferedImage myImage;
     private int imageWidth;
     private int imageHeight;
     private Grid myGrid;
-    private Map<Integer, Color> myStates;
+    private Map<Integer, String> myStates;
 
     /**
      * Creates an Image
@@ -66,7 +67,7 @@ public class ImageReader {
                 myCell.setState(stateValue);
                 myGrid.placeCell(row, column, myCell);
 
-                Color myColor = Color.rgb(red, green, blue);
+                String myColor = String.format(COLOR_FORMAT, red, green, blue);
                 myStates.put(stateValue, myColor);
             }
         }
@@ -77,7 +78,7 @@ public class ImageReader {
      * Returns a mapping of states/colors for the visualizer
      * @return Map representing the mapping of colors to cell states
      */
-    public Map<Integer, Color> getStates(){
+    public Map<Integer, String> getStates(){
         return myStates;
     }
 }
\ No newline at end of file
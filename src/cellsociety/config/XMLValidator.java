@@ -7,6 +7,7 @@ import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
 
 import cellsociety.exceptions.InvalidXMLStructureException;
 import org.xml.sax.SAXException;
@@ -18,20 +19,25 @@ import org.xml.sax.SAXException;
  * @author Alex Xu, aqx
  */
 public class XMLValidator {
-    public static final String XSD_SCHEMA_FILEPATH = "src\\cellsociety\\config\\schema_v2.xsd";
+    public static final String XSD_SCHEMA_RESOURCE = "schema_v2.xsd";
+    public static final String XSD_SCHEMA_FILEPATH = "src/cellsociety/config/schema_v2.xsd";
     public static final String INVALID_XML_STRUCTURE = "(Invalid XML Config Structure)";
 
     private XMLValidator(){}
 
     /**
-     * Validates a XML file against the XSD file that is given as part of the program.
+     * Validates a XML file against the XSD file that is given as part of the program. The XSD is read from
+     * the classpath next to this class when the build copies it there, and otherwise from the source tree
+     * relative to the working directory.
      * @param xmlFile the file to be validated
      * @return true if the document structure is valid, false otherwise.
      */
     public static boolean validateXMLStructure(File xmlFile) throws InvalidXMLStructureException{
         try {
             SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = factory.newSchema(new File(XSD_SCHEMA_FILEPATH));
+            URL schemaURL = XMLValidator.class.getResource(XSD_SCHEMA_RESOURCE);
+            Schema schema = schemaURL != null ? factory.newSchema(schemaURL)
+                : factory.newSchema(new File(XSD_SCHEMA_FILEPATH));
             Validator validator = schema.newValidator();
             validator.validate(new StreamSource(xmlFile));
         }catch(IOException | SAXException e){
@@ -2,7 +2,6 @@ package cellsociety.config;
 
 import cellsociety.exceptions.XMLWriteException;
 import cellsociety.simulation.grid.Grid;
-import javafx.scene.paint.Color;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -89,9 +88,26 @@ public class XMLWriter {
         configInfo.appendChild(getSpecialParametersInfo());
         configInfo.appendChild(getStatesInfo());
         configInfo.appendChild(createEndNode(Config.CUSTOM_NODE_NAME, custom));
+        if(myConfig.getSeed() != null){
+            configInfo.appendChild(createEndNode(Config.SEED_NODE_NAME, ""+myConfig.getSeed()));
+        }
+        if(!myConfig.getEngine().isEmpty() || myConfig.getThreads() > 0){
+            configInfo.appendChild(getEngineInfo());
+        }
         return configInfo;
     }
 
+    private Node getEngineInfo(){
+        Element engineInfo = (Element) createEndNode(Config.ENGINE_NODE_NAME, myConfig.getEngine(), Config.STEP_LOG_ATTRIBUTE_NAME, ""+myConfig.getStepLog());
+        if(myConfig.getThreads() > 0){
+            engineInfo.setAttribute(Config.THREADS_ATTRIBUTE_NAME, ""+myConfig.getThreads());
+        }
+        if(myConfig.getMaxNodes() > 0){
+            engineInfo.setAttribute(Config.MAX_NODES_ATTRIBUTE_NAME, ""+myConfig.getMaxNodes());
+        }
+        return engineInfo;
+    }
+
     private Node getCellsInfo(){
         Element cellsInfo = myDocument.createElement(Config.CELLS_NODE_NAME);
         for(int r = 0; r<myGrid.getHeight(); r++){
@@ -130,17 +146,17 @@ public class XMLWriter {
         Element statesInfoNode = myDocument.createElement(Config.STATES_NODE_NAME);
         statesInfoNode.appendChild(createEndNode(Config.DEFAULT_STATE_NODE_NAME, myConfig.getDefaultState()));
 
-        Map<Integer, Color> statesMap = myConfig.getStates();
-        for(Map.Entry<Integer, Color> entry : statesMap.entrySet()){
+        Map<Integer, String> statesMap = myConfig.getStates();
+        for(Map.Entry<Integer, String> entry : statesMap.entrySet()){
             statesInfoNode.appendChild(createStateNode(entry.getKey(), entry.getValue()));
         }
         return statesInfoNode;
     }
 
-    private Node createStateNode(Integer id, Color color){
+    private Node createStateNode(Integer id, String color){
         Element stateNode = myDocument.createElement(Config.SINGLE_STATE_NODE_NAME);
         stateNode.appendChild(createEndNode(Config.STATE_ID_NODE_NAME, ""+id));
-        stateNode.appendChild(createEndNode(Config.COLOR_NODE_NAME, ""+color));
+        stateNode.appendChild(createEndNode(Config.COLOR_NODE_NAME, color));
         return stateNode;
     }
 
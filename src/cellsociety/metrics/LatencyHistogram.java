@@ -0,0 +1,122 @@
+package cellsociety.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Counts how long something took, in buckets of powers of two nanoseconds. Bucket i holds
+ * durations of less than 2^i nanoseconds that did not fit in bucket i - 1, so recording is a few adds with no
+ * allocation, and percentiles are accurate to within a factor of two.
+ *
+ * Assumptions: Durations are not negative. Recording and reading may happen on different threads, and a
+ * reading taken while durations are recorded may be off by the durations being recorded.
+ *
+ * Dependencies: None
+ */
+public class LatencyHistogram {
+
+  public static final int BUCKETS = 64;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  /**
+   * Records one duration
+   * @param nanos the duration in nanoseconds
+   */
+  public void record(long nanos) {
+    buckets.incrementAndGet(getBucket(nanos));
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+    maxNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  /**
+   * Returns the bucket a duration falls in
+   * @param nanos the duration in nanoseconds
+   * @return the bucket index, from 0 to BUCKETS - 1
+   */
+  public static int getBucket(long nanos) {
+    return Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+  }
+
+  /**
+   * Returns the durations bucket i holds are less than, or Long.MAX_VALUE for the last bucket
+   * @param i the bucket index
+   * @return the upper bound of the bucket in nanoseconds
+   */
+  public static long getUpperBound(int i) {
+    return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+  }
+
+  /**
+   * Returns the number of durations recorded in a bucket
+   * @param i the bucket index
+   * @return the number of durations in the bucket
+   */
+  public long getBucketCount(int i) {
+    return buckets.get(i);
+  }
+
+  /**
+   * Returns the number of durations recorded
+   * @return the number of durations
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Returns the sum of the durations recorded
+   * @return the sum in nanoseconds
+   */
+  public long getTotalNanos() {
+    return totalNanos.get();
+  }
+
+  /**
+   * Returns the longest duration recorded
+   * @return the longest duration in nanoseconds, or 0 if none were recorded
+   */
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * Returns the upper bound of the bucket holding a percentile of the durations
+   * @param percentile the percentile, from 0 to 100
+   * @return a duration in nanoseconds that at least that percent of durations were shorter than, or 0 if none
+   * were recorded
+   */
+  public long getPercentile(double percentile) {
+    long total = getCount();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(getUpperBound(i), getMaxNanos());
+      }
+    }
+    return getMaxNanos();
+  }
+
+  /**
+   * Forgets every duration recorded
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    totalNanos.set(0);
+    maxNanos.set(0);
+  }
+}
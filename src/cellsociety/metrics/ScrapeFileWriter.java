@@ -0,0 +1,51 @@
+package cellsociety.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Writes the text of StepMetrics to a file each time it is run, for a metrics scraper or a person
+ * to read. The text is written to a file beside it and moved into place, so readers never see half a file.
+ *
+ * Assumptions: The folder of the file can be written to.
+ *
+ * Dependencies: StepMetrics
+ */
+public class ScrapeFileWriter implements Runnable {
+
+  public static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path file;
+  private boolean warned;
+
+  /**
+   * Creates a writer for a file
+   * @param file the file to write the metrics to
+   */
+  public ScrapeFileWriter(Path file) {
+    this.file = file;
+  }
+
+  @Override
+  public synchronized void run() {
+    Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+    try {
+      Files.write(temp, StepMetrics.toText().getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      if (!warned) {
+        System.err.println("Could not write step metrics to " + file + ": " + e.getMessage());
+        warned = true;
+      }
+    }
+  }
+}
@@ -0,0 +1,264 @@
+package cellsociety.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Times the phases of stepping and drawing a simulation, and counts the cells evaluated and changed
+ * by each step, so that a slow simulation shows where its time goes. Each phase has a LatencyHistogram of its
+ * durations. Code being timed calls start before a phase and stop after it:
+ *
+ *     long start = StepMetrics.start();
+ *     ...
+ *     StepMetrics.stop(StepMetrics.PLAN, start);
+ *
+ * While metrics are off, start returns 0 without reading the clock and stop does nothing when handed 0, so the
+ * cost is one field read per phase. Metrics are turned on with setEnabled, through the MBean, or by starting
+ * the program with -Dcellsociety.metrics=true. Adding -Dcellsociety.metrics.file=path also writes every
+ * metric to a text file in the Prometheus format every second and when the program exits.
+ *
+ * Assumptions: install is called when a program starts. Phases may be timed on any thread, and grids
+ * stepped on several threads at once add to the same histograms and counts.
+ *
+ * Dependencies: LatencyHistogram, StepMetricsMXBean, StepMetricsBean, ScrapeFileWriter
+ */
+public final class StepMetrics {
+
+  public static final int UPDATE = 0;
+  public static final int ENGINE_STEP = 1;
+  public static final int PAD_GRID = 2;
+  public static final int EMPTY_QUEUE = 3;
+  public static final int PLAN = 4;
+  public static final int COMMIT = 5;
+  public static final int POPULATIONS = 6;
+  public static final int STEP_GRID = 7;
+  public static final int DRAW_GRID = 8;
+  public static final int UPDATE_CHART = 9;
+  public static final int PUBLISH = 10;
+  public static final String[] PHASE_NAMES = {"update", "engineStep", "padGrid", "emptyQueue", "plan",
+      "commit", "populations", "stepGrid", "drawGrid", "updateChart", "publish"};
+  public static final String ENABLED_PROPERTY = "cellsociety.metrics";
+  public static final String FILE_PROPERTY = "cellsociety.metrics.file";
+  public static final String OBJECT_NAME = "cellsociety:type=StepMetrics";
+  public static final long FILE_INTERVAL_MILLIS = 1000;
+  public static final int FIRST_TEXT_BUCKET = 10;
+  public static final int LAST_TEXT_BUCKET = 36;
+
+  private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[PHASE_NAMES.length];
+  private static final AtomicLong STEPS = new AtomicLong();
+  private static final AtomicLong CELLS_EVALUATED = new AtomicLong();
+  private static final AtomicLong CELLS_CHANGED = new AtomicLong();
+  private static volatile long lastCellsEvaluated = -1;
+  private static volatile long lastCellsChanged = -1;
+  private static volatile boolean enabled;
+  private static boolean installed;
+
+  static {
+    for (int i = 0; i < HISTOGRAMS.length; i++) {
+      HISTOGRAMS[i] = new LatencyHistogram();
+    }
+  }
+
+  private StepMetrics() {
+  }
+
+  /**
+   * Registers the MBean, and turns metrics on and starts writing the text file if the system properties ask
+   * for it. Calling it again does nothing
+   */
+  public static synchronized void install() {
+    if (installed) {
+      return;
+    }
+    installed = true;
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(new StepMetricsBean(), new ObjectName(OBJECT_NAME));
+    } catch (JMException e) {
+      System.err.println("Could not register step metrics: " + e.getMessage());
+    }
+    if (Boolean.getBoolean(ENABLED_PROPERTY)) {
+      setEnabled(true);
+    }
+    String file = System.getProperty(FILE_PROPERTY);
+    if (file != null) {
+      setEnabled(true);
+      ScrapeFileWriter writer = new ScrapeFileWriter(Paths.get(file));
+      ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "step-metrics-file");
+        thread.setDaemon(true);
+        return thread;
+      });
+      timer.scheduleWithFixedDelay(writer, FILE_INTERVAL_MILLIS, FILE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      Runtime.getRuntime().addShutdownHook(new Thread(writer));
+    }
+  }
+
+  /**
+   * Returns whether or not metrics are being taken
+   * @return true if phases are timed and cells counted
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Turns metrics on or off. Metrics already taken are kept
+   * @param on true to time phases and count cells
+   */
+  public static void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  /**
+   * Returns the time a phase starts at, to be handed to stop
+   * @return the current System.nanoTime, or 0 if metrics are off
+   */
+  public static long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records the duration of a phase, if metrics were on when it started
+   * @param phase the phase, such as PLAN
+   * @param start the value start returned before the phase
+   */
+  public static void stop(int phase, long start) {
+    if (start != 0) {
+      HISTOGRAMS[phase].record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records the cells of one step
+   * @param evaluated the number of cells whose next state was planned, or -1 if it is not known
+   * @param changed the number of cells whose state changed, or -1 if it is not known
+   */
+  public static void recordStep(long evaluated, long changed) {
+    if (!enabled) {
+      return;
+    }
+    STEPS.incrementAndGet();
+    if (evaluated >= 0) {
+      CELLS_EVALUATED.addAndGet(evaluated);
+    }
+    if (changed >= 0) {
+      CELLS_CHANGED.addAndGet(changed);
+    }
+    lastCellsEvaluated = evaluated;
+    lastCellsChanged = changed;
+  }
+
+  /**
+   * Returns the durations of a phase
+   * @param phase the phase, such as PLAN
+   * @return the histogram of the phase
+   */
+  public static LatencyHistogram getHistogram(int phase) {
+    return HISTOGRAMS[phase];
+  }
+
+  /**
+   * Returns the number of steps recorded
+   * @return the number of steps
+   */
+  public static long getSteps() {
+    return STEPS.get();
+  }
+
+  /**
+   * Returns the number of cells evaluated over every step recorded, leaving out steps that did not know
+   * @return the number of cells evaluated
+   */
+  public static long getCellsEvaluated() {
+    return CELLS_EVALUATED.get();
+  }
+
+  /**
+   * Returns the number of cells changed over every step recorded, leaving out steps that did not know
+   * @return the number of cells changed
+   */
+  public static long getCellsChanged() {
+    return CELLS_CHANGED.get();
+  }
+
+  /**
+   * Returns the number of cells evaluated in the last step recorded
+   * @return the number of cells, or -1 if it is not known
+   */
+  public static long getLastCellsEvaluated() {
+    return lastCellsEvaluated;
+  }
+
+  /**
+   * Returns the number of cells changed in the last step recorded
+   * @return the number of cells, or -1 if it is not known
+   */
+  public static long getLastCellsChanged() {
+    return lastCellsChanged;
+  }
+
+  /**
+   * Forgets every duration and count recorded
+   */
+  public static void reset() {
+    for (LatencyHistogram histogram : HISTOGRAMS) {
+      histogram.reset();
+    }
+    STEPS.set(0);
+    CELLS_EVALUATED.set(0);
+    CELLS_CHANGED.set(0);
+    lastCellsEvaluated = -1;
+    lastCellsChanged = -1;
+  }
+
+  /**
+   * Returns every metric in the Prometheus text format. Durations are in seconds, and histograms list the
+   * same buckets every time, from about a microsecond to about a minute
+   * @return the metrics, one per line
+   */
+  public static String toText() {
+    StringBuilder text = new StringBuilder();
+    text.append("# TYPE cellsociety_phase_seconds histogram\n");
+    for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+      LatencyHistogram histogram = HISTOGRAMS[phase];
+      String label = "phase=\"" + PHASE_NAMES[phase] + "\"";
+      long cumulative = 0;
+      for (int i = 0; i <= LAST_TEXT_BUCKET; i++) {
+        cumulative += histogram.getBucketCount(i);
+        if (i >= FIRST_TEXT_BUCKET) {
+          text.append(String.format("cellsociety_phase_seconds_bucket{%s,le=\"%s\"} %d%n", label,
+              seconds(LatencyHistogram.getUpperBound(i)), cumulative));
+        }
+      }
+      text.append(String.format("cellsociety_phase_seconds_bucket{%s,le=\"+Inf\"} %d%n", label,
+          histogram.getCount()));
+      text.append(String.format("cellsociety_phase_seconds_sum{%s} %s%n", label,
+          seconds(histogram.getTotalNanos())));
+      text.append(String.format("cellsociety_phase_seconds_count{%s} %d%n", label, histogram.getCount()));
+    }
+    text.append("# TYPE cellsociety_steps_total counter\n");
+    text.append(String.format("cellsociety_steps_total %d%n", getSteps()));
+    text.append("# TYPE cellsociety_cells_evaluated_total counter\n");
+    text.append(String.format("cellsociety_cells_evaluated_total %d%n", getCellsEvaluated()));
+    text.append("# TYPE cellsociety_cells_changed_total counter\n");
+    text.append(String.format("cellsociety_cells_changed_total %d%n", getCellsChanged()));
+    text.append("# TYPE cellsociety_last_step_cells_evaluated gauge\n");
+    text.append(String.format("cellsociety_last_step_cells_evaluated %d%n", getLastCellsEvaluated()));
+    text.append("# TYPE cellsociety_last_step_cells_changed gauge\n");
+    text.append(String.format("cellsociety_last_step_cells_changed %d%n", getLastCellsChanged()));
+    return text.toString();
+  }
+
+  private static String seconds(long nanos) {
+    return Double.toString(nanos / 1e9);
+  }
+}
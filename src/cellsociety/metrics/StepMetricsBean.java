@@ -0,0 +1,104 @@
+package cellsociety.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Hands the metrics kept by StepMetrics to JMX clients.
+ *
+ * Assumptions: Registered by StepMetrics.install
+ *
+ * Dependencies: StepMetrics, StepMetricsMXBean, LatencyHistogram
+ */
+public class StepMetricsBean implements StepMetricsMXBean {
+
+  private static final double MEDIAN = 50;
+  private static final double P99 = 99;
+
+  @Override
+  public boolean isEnabled() {
+    return StepMetrics.isEnabled();
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    StepMetrics.setEnabled(enabled);
+  }
+
+  @Override
+  public long getSteps() {
+    return StepMetrics.getSteps();
+  }
+
+  @Override
+  public long getCellsEvaluated() {
+    return StepMetrics.getCellsEvaluated();
+  }
+
+  @Override
+  public long getCellsChanged() {
+    return StepMetrics.getCellsChanged();
+  }
+
+  @Override
+  public long getLastCellsEvaluated() {
+    return StepMetrics.getLastCellsEvaluated();
+  }
+
+  @Override
+  public long getLastCellsChanged() {
+    return StepMetrics.getLastCellsChanged();
+  }
+
+  @Override
+  public Map<String, Long> getPhaseCounts() {
+    return byPhase(LatencyHistogram::getCount);
+  }
+
+  @Override
+  public Map<String, Long> getPhaseTotalNanos() {
+    return byPhase(LatencyHistogram::getTotalNanos);
+  }
+
+  @Override
+  public Map<String, Long> getPhaseMeanNanos() {
+    return byPhase(histogram -> histogram.getCount() == 0 ? 0
+        : histogram.getTotalNanos() / histogram.getCount());
+  }
+
+  @Override
+  public Map<String, Long> getPhaseMedianNanos() {
+    return byPhase(histogram -> histogram.getPercentile(MEDIAN));
+  }
+
+  @Override
+  public Map<String, Long> getPhaseP99Nanos() {
+    return byPhase(histogram -> histogram.getPercentile(P99));
+  }
+
+  @Override
+  public Map<String, Long> getPhaseMaxNanos() {
+    return byPhase(LatencyHistogram::getMaxNanos);
+  }
+
+  @Override
+  public String getText() {
+    return StepMetrics.toText();
+  }
+
+  @Override
+  public void reset() {
+    StepMetrics.reset();
+  }
+
+  private static Map<String, Long> byPhase(ToLongFunction<LatencyHistogram> value) {
+    Map<String, Long> ret = new LinkedHashMap<>();
+    for (int phase = 0; phase < StepMetrics.PHASE_NAMES.length; phase++) {
+      ret.put(StepMetrics.PHASE_NAMES[phase], value.applyAsLong(StepMetrics.getHistogram(phase)));
+    }
+    return ret;
+  }
+}
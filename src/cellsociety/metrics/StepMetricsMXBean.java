@@ -0,0 +1,105 @@
+package cellsociety.metrics;
+
+import java.util.Map;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: The view of StepMetrics shown to JMX clients such as jconsole, under the name
+ * cellsociety:type=StepMetrics. Maps are keyed by phase name, with durations in nanoseconds.
+ *
+ * Assumptions: None
+ *
+ * Dependencies: StepMetrics
+ */
+public interface StepMetricsMXBean {
+
+  /**
+   * Returns whether or not metrics are being taken
+   * @return true if phases are timed and cells counted
+   */
+  boolean isEnabled();
+
+  /**
+   * Turns metrics on or off
+   * @param enabled true to time phases and count cells
+   */
+  void setEnabled(boolean enabled);
+
+  /**
+   * Returns the number of steps recorded
+   * @return the number of steps
+   */
+  long getSteps();
+
+  /**
+   * Returns the number of cells evaluated over every step recorded
+   * @return the number of cells evaluated
+   */
+  long getCellsEvaluated();
+
+  /**
+   * Returns the number of cells changed over every step recorded
+   * @return the number of cells changed
+   */
+  long getCellsChanged();
+
+  /**
+   * Returns the number of cells evaluated in the last step, or -1 if it is not known
+   * @return the number of cells evaluated
+   */
+  long getLastCellsEvaluated();
+
+  /**
+   * Returns the number of cells changed in the last step, or -1 if it is not known
+   * @return the number of cells changed
+   */
+  long getLastCellsChanged();
+
+  /**
+   * Returns the number of times each phase was timed
+   * @return the counts by phase name
+   */
+  Map<String, Long> getPhaseCounts();
+
+  /**
+   * Returns the time spent in each phase
+   * @return the total nanoseconds by phase name
+   */
+  Map<String, Long> getPhaseTotalNanos();
+
+  /**
+   * Returns the mean duration of each phase
+   * @return the mean nanoseconds by phase name
+   */
+  Map<String, Long> getPhaseMeanNanos();
+
+  /**
+   * Returns the median duration of each phase, to within a factor of two
+   * @return the median nanoseconds by phase name
+   */
+  Map<String, Long> getPhaseMedianNanos();
+
+  /**
+   * Returns the 99th percentile duration of each phase, to within a factor of two
+   * @return the 99th percentile nanoseconds by phase name
+   */
+  Map<String, Long> getPhaseP99Nanos();
+
+  /**
+   * Returns the longest duration of each phase
+   * @return the longest nanoseconds by phase name
+   */
+  Map<String, Long> getPhaseMaxNanos();
+
+  /**
+   * Returns every metric in the Prometheus text format
+   * @return the metrics, one per line
+   */
+  String getText();
+
+  /**
+   * Forgets every duration and count recorded
+   */
+  void reset();
+}
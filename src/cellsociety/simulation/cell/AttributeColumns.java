@@ -0,0 +1,139 @@
+package cellsociety.simulation.cell;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Holds the per-cell attributes of a simulation, such as the energy of a shark, as one primitive
+ * column per attribute. Each cell of the simulation owns a row, so an attribute of a cell is read with two
+ * array lookups, and cells that swap places swap rows. Rows of cells that are dropped are cleared and handed
+ * to the next cell that is added, so padding and replacing cells does not grow the columns.
+ *
+ * Like ParamTable, every attribute name is given a column once, and the column is the same in every table,
+ * so cells look their columns up when their class is loaded.
+ *
+ * Assumptions: Attribute names are not case sensitive. Tables are only used from one thread at a time.
+ * Attributes that were never set are 0.
+ *
+ * Dependencies: None
+ */
+public class AttributeColumns {
+
+  private static final Map<String, Integer> COLUMNS = new HashMap<>();
+  private static final int INITIAL_ROWS = 16;
+
+  private double[][] columns = new double[0][];
+  private int rows;
+  private int[] freeRows = new int[0];
+  private int freeCount;
+
+  /**
+   * Returns the column of an attribute, giving it the next free column if it has never been seen
+   * @param name the name of the attribute
+   * @return the column of the attribute in every table
+   */
+  public static synchronized int getColumn(String name) {
+    return COLUMNS.computeIfAbsent(name.toLowerCase(), key -> COLUMNS.size());
+  }
+
+  /**
+   * Adds a row for a cell, with every attribute 0, reusing a freed row if there is one
+   * @return the index of the new row
+   */
+  public int addRow() {
+    if (freeCount > 0) {
+      return freeRows[--freeCount];
+    }
+    return rows++;
+  }
+
+  /**
+   * Clears a row that is no longer used, so addRow can hand it out again
+   * @param row the row to free
+   */
+  public void freeRow(int row) {
+    for (double[] values : columns) {
+      if (values != null && row < values.length) {
+        values[row] = 0;
+      }
+    }
+    if (freeCount == freeRows.length) {
+      freeRows = Arrays.copyOf(freeRows, Math.max(INITIAL_ROWS, freeCount * 2));
+    }
+    freeRows[freeCount++] = row;
+  }
+
+  /**
+   * Returns the number of rows that have been handed out, including freed rows
+   * @return the number of rows
+   */
+  public int getRowCount() {
+    return rows;
+  }
+
+  /**
+   * Returns an attribute of a row
+   * @param column the column of the attribute, from getColumn
+   * @param row the row of the cell
+   * @return the value of the attribute
+   */
+  public double get(int column, int row) {
+    if (column >= columns.length || columns[column] == null || row >= columns[column].length) {
+      return 0;
+    }
+    return columns[column][row];
+  }
+
+  /**
+   * Sets an attribute of a row
+   * @param column the column of the attribute, from getColumn
+   * @param row the row of the cell
+   * @param value the value of the attribute
+   */
+  public void set(int column, int row, double value) {
+    if (column >= columns.length) {
+      columns = Arrays.copyOf(columns, column + 1);
+    }
+    double[] values = columns[column];
+    if (values == null || row >= values.length) {
+      int capacity = Math.max(INITIAL_ROWS, rows);
+      while (capacity <= row) {
+        capacity *= 2;
+      }
+      values = values == null ? new double[capacity] : Arrays.copyOf(values, capacity);
+      columns[column] = values;
+    }
+    values[row] = value;
+  }
+
+  /**
+   * Copies every attribute of a row of another table into a row of this table
+   * @param row the row to copy into
+   * @param other the table to copy from
+   * @param otherRow the row to copy from
+   */
+  public void copyRow(int row, AttributeColumns other, int otherRow) {
+    int count = Math.max(columns.length, other.columns.length);
+    for (int column = 0; column < count; column++) {
+      set(column, row, other.get(column, otherRow));
+    }
+  }
+
+  /**
+   * Swaps every attribute of two rows, which may be in different tables
+   * @param row the row of this table
+   * @param other the table of the other row
+   * @param otherRow the other row
+   */
+  public void swapRows(int row, AttributeColumns other, int otherRow) {
+    int count = Math.max(columns.length, other.columns.length);
+    for (int column = 0; column < count; column++) {
+      double temp = get(column, row);
+      set(column, row, other.get(column, otherRow));
+      other.set(column, otherRow, temp);
+    }
+  }
+}
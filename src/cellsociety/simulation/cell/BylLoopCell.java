@@ -24,11 +24,12 @@ public class BylLoopCell extends RuleTableCell {
       + " 200515 200112 200122 200342 200332 200242 200212 201502 203202 202302 244022 245022 242042"
       + " 242022 254202 255042 252025 210042 214022 215022 212055 212022 230052 234022 235002 235022"
       + " 232042 232022 220042 220020 220533 221552";
+  private static final CompiledTable TABLE = compile(RULE_TABLE);
 
   public BylLoopCell() {
     super();
     ruleTable = RULE_TABLE;
-    ruleMap = getRuleTableMap(RULE_TABLE);
+    table = TABLE;
   }
 
 }
@@ -1,9 +1,5 @@
 package cellsociety.simulation.cell;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 
 
@@ -13,15 +9,20 @@ import java.util.Queue;
  * Purpose: Keeps track of the cell's state, its next state, its simulation parameters, and the ground parameters.
  * Calculates the next state based on simulation rules, its neighbors, and other grid info depending on simulation.
  *
+ * Simulation parameters are kept in a ParamTable and per-cell attributes in AttributeColumns. A new cell has
+ * no tables, and only makes its own if a parameter or attribute is used before it joins a simulation. Once it
+ * joins, it shares the tables of the other cells, and its row is given back when it leaves.
+ *
  * Assumptions: States are non-negative and contiguous. Default edge is non-negative, Cell.TOROIDAL,
  * or Cell.INFINITE. All parameters are representable by double values.
  *
- * Dependencies: None
+ * Dependencies: ParamTable, AttributeColumns
  */
 public abstract class Cell {
 
   public static final int TOROIDAL = -1;
   public static final int INFINTE = -2;
+  private static final Cell MASKED_NEIGHBOR = makeMaskedNeighbor(0);
 
   protected String[] params;
   protected String[] groundParams;
@@ -30,8 +31,9 @@ public abstract class Cell {
   protected int defaultEdge = TOROIDAL;
   protected boolean pointingUp = false;
   protected int[] mask = new int[0];
-  private Map<String, Double> paramMap = new HashMap<>();
-  private Map<String, Double> groundParamMap = new HashMap<>();
+  private ParamTable paramTable;
+  private AttributeColumns attributes;
+  private int attributeRow;
 
   /**
    * Default constructor for all Cells. Sets the parameters to an empty array.
@@ -57,12 +59,6 @@ public abstract class Cell {
     return params;
   }
 
-  protected List<String> getAllParams() {
-    ArrayList<String> ret = new ArrayList<>();
-    ret.addAll(paramMap.keySet());
-    return ret;
-  }
-
   /**
    * Currently unused. Intended to return the parameters for the ground underneath the cell entity (e.g. sugar quantity)
    * @return a String[] of the ground parameter names
@@ -77,25 +73,61 @@ public abstract class Cell {
    * @param value double value of the parameter
    */
   public void setGroundParam(String param, double value) {
-    groundParamMap.put(param, value);
+    setAttribute(AttributeColumns.getColumn(param), value);
   }
 
   /**
-   * Swaps a cell's parameters with another, which gets updated on the next update
-   * @param other the other cell to be swapped with
+   * Makes this cell use the simulation parameters and attribute columns of another cell, so that a parameter
+   * set on any cell of the simulation is seen by all of them. Any attributes of this cell are copied into a
+   * row of the other cell's columns
+   * @param other a cell of the simulation to join
    */
-  public void swap(Cell other) {
-    Map<String, Double> tempMap = new HashMap<>();
-    for (String s : other.getAllParams()) {
-      tempMap.put(s, other.getParam(s));
+  public void joinSimulation(Cell other) {
+    paramTable = other.getParamTable();
+    AttributeColumns otherAttributes = other.getAttributes();
+    if (attributes != otherAttributes) {
+      int row = otherAttributes.addRow();
+      if (attributes != null) {
+        otherAttributes.copyRow(row, attributes, attributeRow);
+        attributes.freeRow(attributeRow);
+      }
+      attributes = otherAttributes;
+      attributeRow = row;
     }
-    for (String s : getAllParams()) {
-      other.setParam(s, getParam(s));
+  }
+
+  /**
+   * Gives this cell's row back to the attribute columns of its simulation, for the next cell that joins it.
+   * Called when the cell is dropped from its grid, after which its attributes must not be used
+   */
+  public void leaveSimulation() {
+    if (attributes != null) {
+      attributes.freeRow(attributeRow);
+      attributes = null;
     }
-    for (Map.Entry<String, Double> s : tempMap.entrySet()) {
-      setParam(s.getKey(), s.getValue());
+  }
+
+  private ParamTable getParamTable() {
+    if (paramTable == null) {
+      paramTable = new ParamTable();
     }
+    return paramTable;
+  }
 
+  private AttributeColumns getAttributes() {
+    if (attributes == null) {
+      attributes = new AttributeColumns();
+      attributeRow = attributes.addRow();
+    }
+    return attributes;
+  }
+
+  /**
+   * Swaps a cell's attributes with another, which gets updated on the next update
+   * @param other the other cell to be swapped with
+   */
+  public void swap(Cell other) {
+    getAttributes().swapRows(attributeRow, other.getAttributes(), other.attributeRow);
     other.nextState = state;
     nextState = other.state;
   }
@@ -109,37 +141,41 @@ public abstract class Cell {
   abstract void planUpdate(Cell[] neighbors, Queue<Cell> cellQueue);
 
   /**
-   * Applies the neighbor mask to a cell before planning the update
-   * @param neighbors
-   * @param cellQueue
+   * Plans the update for the next time step. The grid applies the neighbor mask when it finds the neighbors,
+   * so masked out entries already hold getMaskedNeighbor() and nothing is changed here
+   * @param neighbors Neighbors of the cell, with masked out neighbors replaced by getMaskedNeighbor()
+   * @param cellQueue Other information about the grid that the cell might need to plan its update.
    */
   public void planUpdateFull(Cell[] neighbors, Queue<Cell> cellQueue) {
-    applyMask(neighbors);
     planUpdate(neighbors, cellQueue);
-    removeMask(neighbors);
   }
 
-  protected void removeMask(Cell[] neighbors) {
-    if (mask.length != neighbors.length) {
-      return;
-    }
-    for (int i = 0; i < neighbors.length; i++) {
-      if (neighbors[i].state == 0 && mask[i] <= 0) {
-        neighbors[i].state = -mask[i];
-        mask[i] = 0;
-      }
-    }
+  /**
+   * Returns the cell that stands in for masked out neighbors. It is shared, so it must never be changed
+   * @return a cell in state 0
+   */
+  public Cell getMaskedNeighbor() {
+    return MASKED_NEIGHBOR;
+  }
+
+  /**
+   * Makes a cell to stand in for masked out neighbors
+   * @param st the state of the stand-in cell
+   * @return a cell that is never updated
+   */
+  protected static Cell makeMaskedNeighbor(int st) {
+    return new MaskedCell(st);
   }
 
-  protected void applyMask(Cell[] neighbors) {
-    if (mask.length != neighbors.length) {
-      return;
+  private static class MaskedCell extends Cell {
+
+    private MaskedCell(int st) {
+      super();
+      state = st;
     }
-    for (int i = 0; i < mask.length; i++) {
-      if (mask[i] == 0) {
-        mask[i] = -neighbors[i].state;
-        neighbors[i].state = 0;
-      }
+
+    @Override
+    void planUpdate(Cell[] neighbors, Queue<Cell> cellQueue) {
     }
   }
 
@@ -165,7 +201,7 @@ public abstract class Cell {
    * @param value the double value of the param
    */
   public void setParam(String param, double value) {
-    paramMap.put(param.toLowerCase(), value);
+    getParamTable().set(ParamTable.getSlot(param), value);
   }
 
   /**
@@ -175,11 +211,37 @@ public abstract class Cell {
    * @return the value of the parameter
    */
   public double getParam(String param) {
-    Double ret = paramMap.get(param.toLowerCase());
-    if (ret == null) {
-      throw new RuntimeException("param (" + param + ") asked for but not set.");
-    }
-    return ret;
+    return getParamTable().get(ParamTable.getSlot(param));
+  }
+
+  /**
+   * Get a parameter for the cell by its slot. Used while planning, with the slot looked up once per class
+   *
+   * @param slot The slot of the parameter, from ParamTable.getSlot
+   * @return the value of the parameter
+   */
+  protected double getParam(int slot) {
+    return getParamTable().get(slot);
+  }
+
+  /**
+   * Get an attribute of this cell
+   *
+   * @param column The column of the attribute, from AttributeColumns.getColumn
+   * @return the value of the attribute, or 0 if it was never set
+   */
+  protected double getAttribute(int column) {
+    return attributes == null ? 0 : attributes.get(column, attributeRow);
+  }
+
+  /**
+   * Sets an attribute of this cell
+   *
+   * @param column The column of the attribute, from AttributeColumns.getColumn
+   * @param value the value of the attribute
+   */
+  protected void setAttribute(int column, double value) {
+    getAttributes().set(column, attributeRow, value);
   }
 
   /**
@@ -239,6 +301,14 @@ public abstract class Cell {
     state = (state + 1) % (max + 1);
   }
 
+  protected int[] getStates(Cell[] neighbors) {
+    int[] ret = new int[neighbors.length];
+    for (int i = 0; i < neighbors.length; i++) {
+      ret[i] = neighbors[i].state;
+    }
+    return ret;
+  }
+
   protected Cell[] rotateNeighbors(Cell[] arr) {
     Cell[] ret = new Cell[arr.length];
     for (int i = 0; i < arr.length; i++) {
@@ -270,4 +340,12 @@ public abstract class Cell {
   public void setMask(int[] msk) {
     mask = msk;
   }
+
+  /**
+   * Returns the neighbor mask of the cell
+   * @return the neighbor mask of the cell
+   */
+  public int[] getMask() {
+    return mask;
+  }
 }
@@ -0,0 +1,97 @@
+package cellsociety.simulation.cell;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Holds cells, such as the empty cells a grid hands to planUpdate, in an array, so a cell at any
+ * position can be taken out in constant time by moving the last cell into its place, as the pool of
+ * SegregationEngine does with indices. Adding a cell puts it at the end.
+ *
+ * Assumptions: Order is not kept: taking a cell out, including through poll, moves the last cell into its
+ * position. Iterators do not support remove, and the pool must not be changed while one is in use.
+ *
+ * Dependencies: Cell
+ *
+ * Example usage:
+ *     CellPool pool = new CellPool();
+ *     pool.add(cell);
+ *     Cell taken = pool.take(CounterRandom.current().nextInt(pool.size()));
+ */
+public class CellPool extends AbstractQueue<Cell> {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private Cell[] cells = new Cell[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Takes the cell at a position out of the pool, moving the last cell into its place
+   * @param position the position of the cell, from 0 up to size
+   * @return the cell that was at position
+   */
+  public Cell take(int position) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException("position " + position + " of " + size);
+    }
+    Cell ret = cells[position];
+    size--;
+    cells[position] = cells[size];
+    cells[size] = null;
+    return ret;
+  }
+
+  @Override
+  public boolean offer(Cell cell) {
+    if (size == cells.length) {
+      cells = Arrays.copyOf(cells, size * 2);
+    }
+    cells[size++] = cell;
+    return true;
+  }
+
+  @Override
+  public Cell poll() {
+    return size == 0 ? null : take(0);
+  }
+
+  @Override
+  public Cell peek() {
+    return size == 0 ? null : cells[0];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(cells, 0, size, null);
+    size = 0;
+  }
+
+  @Override
+  public Iterator<Cell> iterator() {
+    return new Iterator<>() {
+      private int position;
+
+      @Override
+      public boolean hasNext() {
+        return position < size;
+      }
+
+      @Override
+      public Cell next() {
+        if (position >= size) {
+          throw new NoSuchElementException();
+        }
+        return cells[position++];
+      }
+    };
+  }
+}
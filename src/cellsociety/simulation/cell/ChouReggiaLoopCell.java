@@ -19,10 +19,11 @@ public class ChouReggiaLoopCell extends RuleTableCell {
       + "503330 100045 100011 100414 101044 101301 103011 107131 140414 141044 111044 133011 177711 "
       + "304011 305011 305141 307141 344011 345011 354010 314001 377711 700000 700337 707100 707141 "
       + "707110 717000 730007 770070 770711";
+  private static final CompiledTable TABLE = compile(RULE_TABLE);
 
   public ChouReggiaLoopCell() {
     super();
     ruleTable = RULE_TABLE;
-    ruleMap = getRuleTableMap(RULE_TABLE);
+    table = TABLE;
   }
 }
@@ -11,7 +11,7 @@ import java.util.Queue;
  *
  * Dependencies: Cell
  */
-public class ConwayCell extends Cell {
+public class ConwayCell extends Cell implements StateRule {
 
   /**
    * Creates a cell for Conway's game of life
@@ -26,23 +26,27 @@ public class ConwayCell extends Cell {
 
   @Override
   protected void planUpdate(Cell[] neighbors, Queue<Cell> emptyQueue) {
+    nextState = planState(state, getStates(neighbors));
+  }
+
+  @Override
+  public int planState(int state, int[] neighborStates) {
     int sum = 0;
-    for (int i = 0; i < neighbors.length; i++) {
-      sum += neighbors[i].getState();
+    for (int i = 0; i < neighborStates.length; i++) {
+      sum += neighborStates[i];
     }
-    if (getState() == 0) {
+    if (state == 0) {
       if (sum == 3) {
-        nextState = 1;
+        return 1;
       } else {
-        nextState = 0;
+        return 0;
       }
     } else {
       if (sum == 2 || sum == 3) {
-        nextState = 1;
+        return 1;
       } else {
-        nextState = 0;
+        return 0;
       }
     }
-    //System.out.println("nextState = " + nextState);
   }
 }
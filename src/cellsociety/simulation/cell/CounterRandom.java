@@ -0,0 +1,96 @@
+package cellsociety.simulation.cell;
+
+import java.util.Random;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Gives random numbers that only depend on a seed, a step, the index of a location, and how many
+ * numbers that location has drawn so far. Nothing is stored between numbers: each one is a SplitMix style
+ * mix of those four values. Every thread has its own cursor, which the grid or engine moves to a location
+ * before the location plans its update, so a simulation gives the same results for the same seed no matter
+ * how many threads step it or in what order the locations are planned.
+ *
+ * Assumptions: Cursors are only gotten through current(), and moveTo is called before each location draws.
+ * The seed is given to moveTo, so setSeed does nothing.
+ *
+ * Dependencies: None
+ */
+public class CounterRandom extends Random {
+
+  public static final long SETUP_STEP = -1;
+  private static final long serialVersionUID = 1L;
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+  private static final ThreadLocal<CounterRandom> CURRENT = ThreadLocal.withInitial(CounterRandom::new);
+  private static final Random SEEDS = new Random();
+
+  private long lastSeed;
+  private long lastStep;
+  private long stepKey;
+  private long locationKey;
+  private long draws;
+
+  private CounterRandom() {
+    super();
+    lastStep = SETUP_STEP - 1;
+  }
+
+  /**
+   * Returns the cursor of the calling thread
+   * @return the cursor of the calling thread
+   */
+  public static CounterRandom current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Returns a seed for simulations that were not given one
+   * @return a seed that differs from run to run
+   */
+  public static synchronized long newSeed() {
+    return SEEDS.nextLong();
+  }
+
+  /**
+   * Moves the cursor to a location, so the next numbers drawn are that location's numbers for the step
+   * @param seed the seed of the simulation
+   * @param step the step being planned, or SETUP_STEP while the grid is being made
+   * @param index the index of the location, unique within the simulation
+   */
+  public void moveTo(long seed, long step, long index) {
+    if (seed != lastSeed || step != lastStep) {
+      lastSeed = seed;
+      lastStep = step;
+      stepKey = mix(mix(seed) + step * GOLDEN_GAMMA);
+    }
+    locationKey = mix(stepKey ^ index * GOLDEN_GAMMA);
+    draws = 0;
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  @Override
+  public long nextLong() {
+    draws++;
+    return mix(locationKey + draws * GOLDEN_GAMMA);
+  }
+
+  @Override
+  public double nextDouble() {
+    return (nextLong() >>> 11) * DOUBLE_UNIT;
+  }
+
+  @Override
+  protected int next(int bits) {
+    return (int) (nextLong() >>> (64 - bits));
+  }
+
+  @Override
+  public void setSeed(long seed) {
+  }
+}
@@ -12,12 +12,13 @@ import java.util.Random;
  *
  * Assumptions: See Cell. Additionally, assumes states are 0-2.
  *
- * Dependencies: Cell
+ * Dependencies: Cell, CounterRandom, ParamTable
  */
-public class FireCell extends Cell {
+public class FireCell extends Cell implements StateRule {
 
   public static final String PROB_CATCH = "probCatch";
   public static final String PROB_GROW = "probGrow";
+  private static final int PROB_CATCH_SLOT = ParamTable.getSlot(PROB_CATCH);
 
   public FireCell() {
     super();
@@ -37,28 +38,38 @@ public class FireCell extends Cell {
 
   @Override
   protected void planUpdate(Cell[] neighbors, Queue<Cell> emptyQueue) {
-    if (pointingUp) {
-      neighbors = rotateNeighbors(neighbors);
-    }
-    if (getState() == 0) {
-      nextState = 0;
-    }
-    if (getState() == 2) {
-      nextState = 0;
+    nextState = planState(state, getStates(neighbors));
+  }
+
+  @Override
+  public int planState(int state, int[] neighborStates) {
+    if (state != 1) {
+      return 0;
     }
-    if (getState() == 1) {
-      boolean canBurn = false;
-      for (int i = 0; i < neighbors.length; i++) {
-        if (neighbors[i].getState() == 2) {
-          canBurn = true;
-        }
-      }
-      Random rand = new Random();
-      if (canBurn && rand.nextDouble() < getParam(PROB_CATCH)) {
-        nextState = 2;
-      } else {
-        nextState = 1;
+    boolean canBurn = false;
+    for (int i = 0; i < neighborStates.length; i++) {
+      if (neighborStates[i] == 2) {
+        canBurn = true;
       }
     }
+    Random rand = CounterRandom.current();
+    if (canBurn && rand.nextDouble() < getParam(PROB_CATCH_SLOT)) {
+      return 2;
+    } else {
+      return 1;
+    }
+  }
+
+  @Override
+  public boolean isDeterministic() {
+    return false;
+  }
+
+  /**
+   * Fire always burns out after 1 timestep, so a location whose neighbors did not change has no fire next to it
+   */
+  @Override
+  public boolean isStableWhenUnchanged() {
+    return true;
   }
 }
@@ -31,12 +31,13 @@ public class LangtonLoopCell extends RuleTableCell {
       + "500232 500272 500520 502022 502122 502152 502220 502244 502722 512122 512220 512422 512722 "
       + "600011 600021 602120 612125 612131 612225 700077 701120 701220 701250 702120 702221 702251 "
       + "702321 702525 702720";
+  private static final CompiledTable TABLE = compile(RULE_TABLE);
 
 
   public LangtonLoopCell() {
     super();
     ruleTable = RULE_TABLE;
-    ruleMap = getRuleTableMap(RULE_TABLE);
+    table = TABLE;
   }
 
 
@@ -0,0 +1,77 @@
+package cellsociety.simulation.cell;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Holds the simulation-wide parameters of a simulation, such as probCatch or fishBreedTime, in a
+ * single double[] shared by every cell of the simulation. Changing a parameter is one write, no matter how
+ * many cells there are.
+ *
+ * Every parameter name is given a slot once, the first time it is seen, and the slot is the same in every
+ * table. Cells look up the slots of the parameters they read when their class is loaded, so reading a
+ * parameter while planning is an array read, with no String handling or boxing.
+ *
+ * Assumptions: Parameter names are not case sensitive. Tables are only written from one thread at a time.
+ *
+ * Dependencies: None
+ */
+public class ParamTable {
+
+  private static final Map<String, Integer> SLOTS = new HashMap<>();
+  private static final List<String> NAMES = new ArrayList<>();
+
+  private double[] values = new double[0];
+  private boolean[] set = new boolean[0];
+
+  /**
+   * Returns the slot of a parameter, giving it the next free slot if it has never been seen
+   * @param name the name of the parameter
+   * @return the slot of the parameter in every table
+   */
+  public static synchronized int getSlot(String name) {
+    String key = name.toLowerCase();
+    Integer slot = SLOTS.get(key);
+    if (slot == null) {
+      slot = NAMES.size();
+      SLOTS.put(key, slot);
+      NAMES.add(key);
+    }
+    return slot;
+  }
+
+  private static synchronized String getName(int slot) {
+    return NAMES.get(slot);
+  }
+
+  /**
+   * Returns the value of a parameter
+   * @param slot the slot of the parameter, from getSlot
+   * @return the value of the parameter
+   */
+  public double get(int slot) {
+    if (slot >= set.length || !set[slot]) {
+      throw new RuntimeException("param (" + getName(slot) + ") asked for but not set.");
+    }
+    return values[slot];
+  }
+
+  /**
+   * Sets the value of a parameter
+   * @param slot the slot of the parameter, from getSlot
+   * @param value the value of the parameter
+   */
+  public void set(int slot, double value) {
+    if (slot >= values.length) {
+      values = Arrays.copyOf(values, slot + 1);
+      set = Arrays.copyOf(set, slot + 1);
+    }
+    values[slot] = value;
+    set[slot] = true;
+  }
+}
@@ -13,7 +13,7 @@ import java.util.Queue;
  *
  * Dependencies: Cell
  */
-public class PercolationCell extends Cell {
+public class PercolationCell extends Cell implements StateRule {
 
   public static final int WATER_EDGE_STATE = 3;
 
@@ -24,24 +24,23 @@ public class PercolationCell extends Cell {
 
   @Override
   protected void planUpdate(Cell[] neighbors, Queue<Cell> emptyQueue) {
-    if (neighbors[0].getState() == WATER_EDGE_STATE) {
-      neighbors[0].setState(2); //this is okay because cells with state 3 are dummy cells
-    }
-    if (getState() == 1) {
-      for (int i = 0; i < neighbors.length; i += 1) {
-        if (neighbors[i].getState() == 2) {
-          nextState = 2;
-          return;
+    nextState = planState(state, getStates(neighbors));
+  }
+
+  /**
+   * Plans the next state. A northern neighbor in the water edge state is a dummy cell past the border,
+   * and counts as percolated.
+   */
+  @Override
+  public int planState(int state, int[] neighborStates) {
+    if (state == 1) {
+      for (int i = 0; i < neighborStates.length; i += 1) {
+        if (neighborStates[i] == 2 || (i == 0 && neighborStates[i] == WATER_EDGE_STATE)) {
+          return 2;
         }
       }
-      nextState = 1;
-    } else {
-      if (state == 0) {
-        nextState = 0;
-      }
-      if (state == 2) {
-        nextState = 2;
-      }
+      return 1;
     }
+    return state;
   }
 }
@@ -11,14 +11,17 @@ import java.util.Random;
  *
  * Assumptions: See Cell
  *
- * Dependencies: Cell
+ * Dependencies: Cell, CounterRandom, ParamTable
  */
-public class RPSCell extends Cell {
+public class RPSCell extends Cell implements StateRule {
 
   public static final String RPS_THRESHHOLD = "RPSThreshhold";
   public static final String RANDOM_THRESHHOLD = "randomThreshhold";
   public static final String NUM_STATES = "numStates";
   public static final double DEFAULT_THRESH = 3.0;
+  private static final int RPS_THRESHHOLD_SLOT = ParamTable.getSlot(RPS_THRESHHOLD);
+  private static final int RANDOM_THRESHHOLD_SLOT = ParamTable.getSlot(RANDOM_THRESHHOLD);
+  private static final int NUM_STATES_SLOT = ParamTable.getSlot(NUM_STATES);
 
   public RPSCell() {
     super();
@@ -34,17 +37,22 @@ public class RPSCell extends Cell {
 
   @Override
   protected void planUpdate(Cell[] neighbors, Queue<Cell> cellQueue) {
+    nextState = planState(state, getStates(neighbors));
+  }
+
+  @Override
+  public int planState(int state, int[] neighborStates) {
     int max = state;
-    for (Cell cell : neighbors) {
-      max = Math.max(max, cell.state);
+    for (int neighbor : neighborStates) {
+      max = Math.max(max, neighbor);
     }
     int[] counts = new int[max + 1];
-    for (Cell cell : neighbors) {
-      counts[cell.state]++;
+    for (int neighbor : neighborStates) {
+      counts[neighbor]++;
     }
     max = 0;
     int newVal = -1;
-    Random rand = new Random();
+    Random rand = CounterRandom.current();
     for (int i = 0; i < counts.length; i++) {
       if (rps(i, state)) {
         if (counts[i] == max && i != 0 && rand.nextDouble() > 0.5) {
@@ -57,17 +65,17 @@ public class RPSCell extends Cell {
       }
     }
 
-    double thresh = getParam(RPS_THRESHHOLD);
-    thresh += (rand.nextDouble() - .5) * 2 * getParam(RANDOM_THRESHHOLD);
+    double thresh = getParam(RPS_THRESHHOLD_SLOT);
+    thresh += (rand.nextDouble() - .5) * 2 * getParam(RANDOM_THRESHHOLD_SLOT);
     if (newVal != -1 && (max >= thresh || state == 0)) {
-      nextState = newVal;
+      return newVal;
     } else {
-      nextState = state;
+      return state;
     }
   }
 
   private boolean rps(int i, int st) {
-    int num = (int) getParam(NUM_STATES);
+    int num = (int) getParam(NUM_STATES_SLOT);
     return rps(i, st, num);
   }
 
@@ -98,4 +106,9 @@ public class RPSCell extends Cell {
     }
     return tempi < tempstate;
   }
+
+  @Override
+  public boolean isDeterministic() {
+    return false;
+  }
 }
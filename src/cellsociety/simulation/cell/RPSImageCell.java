@@ -11,13 +11,13 @@ import java.util.Random;
  *
  * Assumptions: See Cell
  *
- * Dependencies: Cell
+ * Dependencies: Cell, CounterRandom
  */
 public class RPSImageCell extends Cell {
 
   @Override
   protected void planUpdate(Cell[] neighbors, Queue<Cell> cellQueue) {
-    Random rand = new Random();
+    Random rand = CounterRandom.current();
     Cell cell = neighbors[rand.nextInt(neighbors.length)];
     int[] myColors = getColors(state);
     int[] otherColors = getColors(cell.state);
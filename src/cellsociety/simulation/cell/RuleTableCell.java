@@ -1,7 +1,6 @@
 package cellsociety.simulation.cell;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Queue;
 
 
@@ -14,14 +13,22 @@ import java.util.Queue;
  * Where C is the current state of the cell, NESW are the cardinal von Neumann neighbors, and C' is the
  * new state of the cell given those conditions. Additionally, the cells are rotationally symmetric.
  *
- * Assumptions: See Cell. Additionally, assumes a valid rule table
+ * Each subclass compiles its table once into a CompiledTable, which every cell of that class shares. The
+ * table holds the next state for every combination of state and surround, with the rotations already filled
+ * in, so planning a cell is a single array lookup. As a cell has always done, the surround is every other
+ * neighbor, so a square grid gives the four NESW neighbors. Other grids give surrounds of other sizes, which
+ * only match rules with surrounds of that size.
+ *
+ * Assumptions: See Cell. Additionally, assumes a valid rule table, with every state a single digit
  *
  * Dependencies: Cell
  */
-public abstract class RuleTableCell extends Cell {
+public abstract class RuleTableCell extends Cell implements StateRule {
+
+  private static final int NO_RULE = -1;
 
   protected String ruleTable;
-  protected Map<Integer, HashMap<String, Integer>> ruleMap;
+  protected CompiledTable table;
 
   public RuleTableCell() {
     super();
@@ -30,45 +37,95 @@ public abstract class RuleTableCell extends Cell {
 
   @Override
   protected void planUpdate(Cell[] neighbors, Queue<Cell> cellQueue) {
-    Map<String, Integer> stateRules = ruleMap.get(state);
-    if (stateRules == null) {
-      nextState = state;
-      return;
-    }
-    String surround = getSurrounds(neighbors);
-    nextState = stateRules.getOrDefault(surround, state);
+    nextState = planState(state, getStates(neighbors));
   }
 
-  protected String getSurrounds(Cell[] neighbors) {
-    StringBuilder surround = new StringBuilder();
-    for (int i = 0; i < neighbors.length; i += 2) {
-      surround.append(neighbors[i]);
+  @Override
+  public int planState(int state, int[] neighborStates) {
+    int[] next = table.getNext((neighborStates.length + 1) / 2);
+    if (next == null) {
+      return state;
+    }
+    int index = table.getIndex(state);
+    for (int i = 0; i < neighborStates.length && index >= 0; i += 2) {
+      index = table.getIndex(index, neighborStates[i]);
+    }
+    if (index < 0 || next[index] == NO_RULE) {
+      return state;
     }
-    return surround.toString();
+    return next[index];
   }
 
-  protected Map<Integer, HashMap<String, Integer>> getRuleTableMap(String ruleTable) {
-    String[] rules = ruleTable.split(" ");
-    HashMap<Integer, HashMap<String, Integer>> ret = new HashMap<>();
+  /**
+   * Compiles a rule table into a CompiledTable. Subclasses should compile their table once and share it
+   * @param ruleTable the rule table, with rules separated by spaces
+   * @return the compiled table
+   */
+  protected static CompiledTable compile(String ruleTable) {
+    String[] rules = ruleTable.trim().split(" +");
+    int base = 0;
     for (String rule : rules) {
-      int st = Integer.parseInt("" + rule.charAt(0));
-      int nextSt = Integer.parseInt("" + rule.charAt(rule.length() - 1));
-      ret.putIfAbsent(st, new HashMap<>());
-      HashMap<String, Integer> mapRule = ret.get(st);
-      String[] combos = getStringRotations(rule.substring(1, rule.length() - 1));
-      for (String combo : combos) {
-        mapRule.put(combo, nextSt);
+      for (int i = 0; i < rule.length(); i++) {
+        base = Math.max(base, Character.digit(rule.charAt(i), 10) + 1);
+      }
+    }
+    CompiledTable ret = new CompiledTable(base);
+    for (String rule : rules) {
+      int st = Character.digit(rule.charAt(0), 10);
+      int nextSt = Character.digit(rule.charAt(rule.length() - 1), 10);
+      String surround = rule.substring(1, rule.length() - 1);
+      int[] next = ret.makeNext(surround.length());
+      for (int rotation = 0; rotation < surround.length(); rotation++) {
+        int index = st;
+        for (int i = 0; i < surround.length(); i++) {
+          int neighbor = Character.digit(surround.charAt((i + rotation) % surround.length()), 10);
+          index = index * base + neighbor;
+        }
+        next[index] = nextSt;
       }
     }
     return ret;
   }
 
-  private String[] getStringRotations(String str) {
-    String[] ret = new String[str.length()];
-    for (int i = 0; i < ret.length; i++) {
-      ret[i] = str;
-      str = str.substring(1) + str.charAt(0);
+  /**
+   * Holds the next state for every state and surround, one array for each size of surround that has rules,
+   * indexed by reading the state and surround as the digits of a number in base one more than the highest
+   * state. Combinations without a rule hold NO_RULE
+   */
+  protected static final class CompiledTable {
+
+    private final int base;
+    private int[][] nextBySize = new int[0][];
+
+    private CompiledTable(int base) {
+      this.base = base;
+    }
+
+    private int[] makeNext(int surroundSize) {
+      if (surroundSize >= nextBySize.length) {
+        nextBySize = Arrays.copyOf(nextBySize, surroundSize + 1);
+      }
+      if (nextBySize[surroundSize] == null) {
+        int size = base;
+        for (int i = 0; i < surroundSize; i++) {
+          size *= base;
+        }
+        nextBySize[surroundSize] = new int[size];
+        Arrays.fill(nextBySize[surroundSize], NO_RULE);
+      }
+      return nextBySize[surroundSize];
+    }
+
+    private int[] getNext(int surroundSize) {
+      return surroundSize < nextBySize.length ? nextBySize[surroundSize] : null;
+    }
+
+    private int getIndex(int state) {
+      return state >= 0 && state < base ? state : -1;
+    }
+
+    private int getIndex(int index, int neighbor) {
+      return neighbor >= 0 && neighbor < base ? index * base + neighbor : -1;
     }
-    return ret;
   }
 }
@@ -1,7 +1,6 @@
 package cellsociety.simulation.cell;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.Queue;
 
 
@@ -13,11 +12,12 @@ import java.util.Queue;
  *
  * Assumptions: See Cell. Additionally, assumes states are 0-2.
  *
- * Dependencies: Cell
+ * Dependencies: Cell, CellPool, CounterRandom, ParamTable
  */
 public class SegregationCell extends Cell {
 
   public static final String HAPPINESS_THRESH = "happinessThresh";
+  private static final int HAPPINESS_THRESH_SLOT = ParamTable.getSlot(HAPPINESS_THRESH);
 
   public SegregationCell() {
     super();
@@ -36,19 +36,9 @@ public class SegregationCell extends Cell {
 
   @Override
   protected void planUpdate(Cell[] neighbors, Queue<Cell> emptyQueue) {
-    LinkedList<Cell> cellQueue = new LinkedList<>(emptyQueue);
-    Collections.shuffle(cellQueue);
-    emptyQueue.clear();
-    while (!cellQueue.isEmpty()) {
-      emptyQueue.add(cellQueue.remove());
-    }
     if (getState() != 0) {
-      if (!happy(neighbors)) {
-        if (emptyQueue.isEmpty()) {
-          nextState = state;
-          return;
-        }
-        Cell empty = emptyQueue.remove();
+      if (!happy(neighbors) && !emptyQueue.isEmpty()) {
+        Cell empty = takeRandom(emptyQueue);
         empty.nextState = state;
         nextState = 0;
         emptyQueue.add(this);
@@ -62,6 +52,24 @@ public class SegregationCell extends Cell {
     }
   }
 
+  /**
+   * Takes a uniformly random cell out of the queue. The grid hands over a CellPool, which takes it out in
+   * constant time; any other queue is walked up to the position
+   */
+  private Cell takeRandom(Queue<Cell> emptyQueue) {
+    int position = CounterRandom.current().nextInt(emptyQueue.size());
+    if (emptyQueue instanceof CellPool) {
+      return ((CellPool) emptyQueue).take(position);
+    }
+    Iterator<Cell> iterator = emptyQueue.iterator();
+    Cell ret = iterator.next();
+    for (int i = 0; i < position; i++) {
+      ret = iterator.next();
+    }
+    iterator.remove();
+    return ret;
+  }
+
   private boolean happy(Cell[] neighbors) {
     double total = 0;
     double same = 0;
@@ -73,6 +81,6 @@ public class SegregationCell extends Cell {
         same++;
       }
     }
-    return total == 0 || (same / total) > getParam(HAPPINESS_THRESH);
+    return total == 0 || (same / total) > getParam(HAPPINESS_THRESH_SLOT);
   }
 }
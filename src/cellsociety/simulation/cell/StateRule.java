@@ -0,0 +1,43 @@
+package cellsociety.simulation.cell;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Implemented by cells whose next state depends only on their own state and the states of their
+ * neighbors. Lets the grid keep the states of these simulations in primitive arrays instead of one Cell
+ * object per location, using a single cell to hold the rule and its parameters.
+ *
+ * Assumptions: The neighbor states are given in the same order as the Cell[] passed to planUpdate, with
+ * masked out neighbors already set to 0. Implementations must not keep or modify the array. planState may
+ * be called from several threads at once, so implementations must not change any fields while planning.
+ *
+ * Dependencies: None
+ */
+public interface StateRule {
+
+  /**
+   * Returns the next state of a cell given its current state and the states of its neighbors
+   * @param state the current state of the cell
+   * @param neighborStates the states of the neighbors, starting with the northmost and rotating clockwise
+   * @return the next state of the cell
+   */
+  int planState(int state, int[] neighborStates);
+
+  /**
+   * Returns whether or not planState always gives the same result for the same arguments. Engines that
+   * remember or skip work, such as HashLifeEngine, can only be used with deterministic rules
+   * @return true if the rule does not use randomness
+   */
+  default boolean isDeterministic() {
+    return true;
+  }
+
+  /**
+   * Returns whether or not a location is sure to keep its state when neither it nor any of its neighbors
+   * changed in the last step, so that engines can skip it. Always true for deterministic rules
+   * @return true if unchanged locations with unchanged neighbors stay unchanged
+   */
+  default boolean isStableWhenUnchanged() {
+    return isDeterministic();
+  }
+}
@@ -14,7 +14,7 @@ import java.util.Random;
  *
  * Assumptions: See Cell. Also, assumes states are 0-2
  *
- * Dependencies: Cell
+ * Dependencies: Cell, CounterRandom, ParamTable, AttributeColumns
  */
 public class WaTorCell extends Cell {
 
@@ -22,8 +22,13 @@ public class WaTorCell extends Cell {
   public static final String SHARK_BREED_TIME = "sharkBreedTime";
   public static final String FISH_FEED_ENERGY = "fishFeedEnergy";
   public static final String SHARK_START_ENERGY = "sharkStartEnergy";
-  private static final String reproductionTimer = "reproductionTimer";
-  private static final String energy = "energy";
+  private static final int FISH_BREED_TIME_SLOT = ParamTable.getSlot(FISH_BREED_TIME);
+  private static final int SHARK_BREED_TIME_SLOT = ParamTable.getSlot(SHARK_BREED_TIME);
+  private static final int FISH_FEED_ENERGY_SLOT = ParamTable.getSlot(FISH_FEED_ENERGY);
+  private static final int SHARK_START_ENERGY_SLOT = ParamTable.getSlot(SHARK_START_ENERGY);
+  private static final int REPRODUCTION_TIMER = AttributeColumns.getColumn("reproductionTimer");
+  private static final int ENERGY = AttributeColumns.getColumn("energy");
+  private static final Cell MASKED_NEIGHBOR = makeMaskedNeighbor(-1);
 
   public WaTorCell() {
     super();
@@ -51,13 +56,13 @@ public class WaTorCell extends Cell {
         fish.add(neighbors[i]);
       }
     }
-    setParam(reproductionTimer, getParam(reproductionTimer) - 1);
+    setAttribute(REPRODUCTION_TIMER, getAttribute(REPRODUCTION_TIMER) - 1);
     if (state == 1) {
       fishPlanUpdate(updatedQueue, open);
     }
     if (state == 2) {
-      setParam(energy, getParam(energy) - 1);
-      if (getParam(energy) <= 0) {
+      setAttribute(ENERGY, getAttribute(ENERGY) - 1);
+      if (getAttribute(ENERGY) <= 0) {
         nextState = 0;
         return;
       }
@@ -78,13 +83,13 @@ public class WaTorCell extends Cell {
   public void incrementState(int max) {
     super.incrementState(max);
     if (state == 2) {
-      setParam(energy, getParam(SHARK_START_ENERGY));
-      setParam(reproductionTimer, getParam(SHARK_BREED_TIME));
+      setAttribute(ENERGY, getParam(SHARK_START_ENERGY_SLOT));
+      setAttribute(REPRODUCTION_TIMER, getParam(SHARK_BREED_TIME_SLOT));
     }
   }
 
   private void sharkPlanUpdate(List<Cell> updatedQueue, List<Cell> open, List<Cell> fish) {
-    Random rand = new Random();
+    Random rand = CounterRandom.current();
     Cell movedTo = null;
     if (!fish.isEmpty() || !open.isEmpty()) {
       if (!fish.isEmpty()) {
@@ -100,15 +105,15 @@ public class WaTorCell extends Cell {
         return;
       }
       if (movedTo.state == 1) {
-        setParam(energy, getParam(energy) + getParam(FISH_FEED_ENERGY));
+        setAttribute(ENERGY, getAttribute(ENERGY) + getParam(FISH_FEED_ENERGY_SLOT));
       }
       swap(movedTo);
       this.nextState = 0;
-      if (movedTo.getParam(reproductionTimer) <= 0) {
+      if (movedTo.getAttribute(REPRODUCTION_TIMER) <= 0) {
         nextState = 2;
-        setParam(energy, getParam(SHARK_START_ENERGY));
-        setParam(reproductionTimer, getParam(SHARK_BREED_TIME));
-        movedTo.setParam(reproductionTimer, getParam(SHARK_START_ENERGY));
+        setAttribute(ENERGY, getParam(SHARK_START_ENERGY_SLOT));
+        setAttribute(REPRODUCTION_TIMER, getParam(SHARK_BREED_TIME_SLOT));
+        movedTo.setAttribute(REPRODUCTION_TIMER, getParam(SHARK_START_ENERGY_SLOT));
       }
       return;
     }
@@ -116,7 +121,7 @@ public class WaTorCell extends Cell {
   }
 
   private void fishPlanUpdate(List<Cell> updatedQueue, List<Cell> open) {
-    Random rand = new Random();
+    Random rand = CounterRandom.current();
     Cell movedTo = null;
     if (!open.isEmpty()) {
       int nextLoc = rand.nextInt(open.size());
@@ -127,39 +132,24 @@ public class WaTorCell extends Cell {
         return;
       }
       swap(movedTo);
-      if (movedTo.getParam(reproductionTimer) <= 0) {
+      if (movedTo.getAttribute(REPRODUCTION_TIMER) <= 0) {
         nextState = 1;
         movedTo.nextState = 1;
-        setParam(reproductionTimer, getParam(FISH_BREED_TIME));
-        movedTo.setParam(reproductionTimer, getParam(FISH_BREED_TIME));
+        setAttribute(REPRODUCTION_TIMER, getParam(FISH_BREED_TIME_SLOT));
+        movedTo.setAttribute(REPRODUCTION_TIMER, getParam(FISH_BREED_TIME_SLOT));
       }
       return;
     }
     nextState = 1;
   }
 
-  protected void removeMask(Cell[] neighbors) {
-    if (mask.length != neighbors.length) {
-      return;
-    }
-    for (int i = 0; i < neighbors.length; i++) {
-      if (neighbors[i].state == -1 && mask[i] <= 0) {
-        neighbors[i].state = -mask[i];
-        mask[i] = 0;
-      }
-    }
-  }
-
-  protected void applyMask(Cell[] neighbors) {
-    if (mask.length != neighbors.length) {
-      return;
-    }
-    for (int i = 0; i < mask.length; i++) {
-      if (mask[i] == 0) {
-        mask[i] = -neighbors[i].state;
-        neighbors[i].state = -1;
-      }
-    }
+  /**
+   * Masked out neighbors are in state -1, so that they are neither water nor fish
+   * @return a cell in state -1
+   */
+  @Override
+  public Cell getMaskedNeighbor() {
+    return MASKED_NEIGHBOR;
   }
 
   /**
@@ -179,14 +169,14 @@ public class WaTorCell extends Cell {
   @Override
   public void setState(int stat) {
     super.setState(stat);
-    setParam(reproductionTimer, 0);
-    setParam(energy, 0);
+    setAttribute(REPRODUCTION_TIMER, 0);
+    setAttribute(ENERGY, 0);
     if (stat == 1) {
-      setParam(reproductionTimer, getParam(FISH_BREED_TIME));
+      setAttribute(REPRODUCTION_TIMER, getParam(FISH_BREED_TIME_SLOT));
     }
     if (stat == 2) {
-      setParam(energy, getParam(SHARK_START_ENERGY));
-      setParam(reproductionTimer, getParam(SHARK_BREED_TIME));
+      setAttribute(ENERGY, getParam(SHARK_START_ENERGY_SLOT));
+      setAttribute(REPRODUCTION_TIMER, getParam(SHARK_BREED_TIME_SLOT));
     }
   }
 }
@@ -0,0 +1,383 @@
+package cellsociety.simulation.engine;
+
+import cellsociety.metrics.StepMetrics;
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.cell.StateRule;
+import java.util.Arrays;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Steps two state simulations 64 locations at a time. Each row is packed into longs, one bit per
+ * location, and the neighbors of a whole word are found by shifting the words of the rows above, at and
+ * below it, with the bits carried across word boundaries and borders. The neighbors are added up with
+ * bitwise adders into four bit planes holding the count, and the rule is applied to every bit of the word
+ * at once. Bands of rows are stepped on their own threads, each with its own scratch words made once, and
+ * each band counts the 1s it writes, so the population is known without another pass. Stepping the bands is
+ * timed as the plan phase of StepMetrics, and adding up their counts and swapping the words as the commit phase.
+ *
+ * The rule is never called while stepping. Instead it is read once into a table of which neighbor counts
+ * make a 0 into a 1 and keep a 1 as a 1, so it must be outer totalistic: the next state may only depend on
+ * the state and the number of neighbors in state 1, after the mask is applied. The table is then turned into
+ * a boolean expression of the count planes: counts that differ only in their lowest bit are grouped, and
+ * only groups with a count that gives a 1 are kept. Each group costs one comparison of the upper three
+ * planes, and a choice on the lowest plane and the state. For Conway's rule, that is a single group for
+ * counts 2 and 3, which works out to bit1 & ~bit2 & ~bit3 & (bit0 | state) on the count bits of each word.
+ *
+ * Assumptions: See Engine. States are 0 or 1, and the rule passes supports. The default edge is a state,
+ * or Cell.TOROIDAL.
+ *
+ * Dependencies: Engine, Neighborhood, Cell, StateRule, StepMetrics
+ */
+public class BitPackedEngine extends Engine {
+
+  private static final int WORD_BITS = 64;
+  private static final int WORD_SHIFT = 6;
+  private static final int WORD_MASK = WORD_BITS - 1;
+  private static final int AROUND = 9;
+  private static final int CENTER = 4;
+  private static final int BAND_ROWS = 16;
+
+  private int width;
+  private int height;
+  private int words;
+  private int lastBit;
+  private long lastWordMask;
+  private boolean toroidal;
+  private long edgeBit;
+  private long[] states;
+  private long[] nextStates;
+  private long[] edgeRow;
+  private int[] slots;
+  private long[][] groupPlanes;
+  private long[] evenBirths;
+  private long[] evenSurvivals;
+  private long[] oddBirths;
+  private long[] oddSurvivals;
+  private long[][] bandAround;
+  private int[] bandLive;
+  private int[] bandChanges;
+  private long[] changes;
+  private int live;
+  private long cellsChanged;
+
+  /**
+   * Creates an engine with every state set to 0
+   * @param rule the rule used to plan every location, which must pass supports
+   * @param neighborhood the neighborhood of the grid shape
+   * @param defaultEdge the state of locations past the border, or Cell.TOROIDAL
+   * @param mask the neighbor mask of the simulation
+   * @param height number of rows
+   * @param width number of columns
+   */
+  public BitPackedEngine(StateRule rule, Neighborhood neighborhood, int defaultEdge, int[] mask,
+      int height, int width) {
+    this.height = height;
+    this.width = width;
+    words = (width + WORD_MASK) >>> WORD_SHIFT;
+    lastBit = (width - 1) & WORD_MASK;
+    lastWordMask = -1L >>> (WORD_MASK - lastBit);
+    toroidal = defaultEdge == Cell.TOROIDAL;
+    edgeBit = defaultEdge == 1 ? 1 : 0;
+    states = new long[height * words];
+    nextStates = new long[height * words];
+    changes = new long[height * words];
+    edgeRow = new long[words];
+    bandLive = new int[(height + BAND_ROWS - 1) / BAND_ROWS];
+    bandChanges = new int[bandLive.length];
+    bandAround = new long[bandLive.length][AROUND];
+    for (int w = 0; w < words; w++) {
+      edgeRow[w] = -edgeBit;
+    }
+    edgeRow[words - 1] &= lastWordMask;
+    Neighborhood masked = neighborhood.masked(mask);
+    int count = masked.getSlots().length;
+    slots = new int[count];
+    for (int i = 0; i < count; i++) {
+      slots[i] = (masked.getRowOffsets(0)[i] + 1) * 3 + masked.getColumnOffsets(0)[i] + 1;
+    }
+    compile(tabulate(rule, neighborhood, mask), count);
+  }
+
+  /**
+   * Groups the neighbor counts that differ only in their lowest bit, keeping the groups where some count
+   * gives a 1. Each group keeps the words its upper three count planes must equal, and whether an even and
+   * an odd count make a 0 into a 1 and keep a 1 as a 1, as words of all 0s or all 1s
+   */
+  private void compile(int[][] table, int count) {
+    int groups = 0;
+    int[] kept = new int[count / 2 + 1];
+    for (int group = 0; group <= count / 2; group++) {
+      for (int k = 2 * group; k <= Math.min(count, 2 * group + 1); k++) {
+        if (table[0][k] != 0 || table[1][k] != 0) {
+          kept[groups++] = group;
+          break;
+        }
+      }
+    }
+    groupPlanes = new long[groups][3];
+    evenBirths = new long[groups];
+    evenSurvivals = new long[groups];
+    oddBirths = new long[groups];
+    oddSurvivals = new long[groups];
+    for (int g = 0; g < groups; g++) {
+      int even = 2 * kept[g];
+      for (int plane = 0; plane < 3; plane++) {
+        groupPlanes[g][plane] = -(long) ((even >>> (plane + 1)) & 1);
+      }
+      evenBirths[g] = -(long) table[0][even];
+      evenSurvivals[g] = -(long) table[1][even];
+      if (even + 1 <= count) {
+        oddBirths[g] = -(long) table[0][even + 1];
+        oddSurvivals[g] = -(long) table[1][even + 1];
+      }
+    }
+  }
+
+  /**
+   * Returns whether this engine can run a rule on a grid: the grid must be rectangular, the edge must be
+   * toroidal or a state of 0 or 1, and the rule must be outer totalistic on states 0 and 1
+   * @param rule the rule to check
+   * @param neighborhood the neighborhood of the grid shape
+   * @param defaultEdge the state of locations past the border, or Cell.TOROIDAL or Cell.INFINTE
+   * @param mask the neighbor mask of the simulation
+   * @return true if the rule can be stepped by this engine
+   */
+  public static boolean supports(StateRule rule, Neighborhood neighborhood, int defaultEdge, int[] mask) {
+    if (!rule.isDeterministic() || neighborhood.hasParity() || neighborhood.getRowReach() > 1
+        || neighborhood.getColumnReach() > 1) {
+      return false;
+    }
+    if (defaultEdge != Cell.TOROIDAL && defaultEdge != 0 && defaultEdge != 1) {
+      return false;
+    }
+    return tabulate(rule, neighborhood, mask) != null;
+  }
+
+  /**
+   * Asks the rule for the next state of every combination of 0s and 1s, and returns the next state for
+   * each state and number of masked in neighbors in state 1, or null if the rule is not outer totalistic
+   * on states 0 and 1
+   */
+  private static int[][] tabulate(StateRule rule, Neighborhood neighborhood, int[] mask) {
+    int[] neighborSlots = neighborhood.masked(mask).getSlots();
+    int size = neighborSlots.length;
+    int[][] table = new int[2][size + 1];
+    boolean[][] seen = new boolean[2][size + 1];
+    int[] neighborStates = new int[neighborhood.size()];
+    for (int state = 0; state <= 1; state++) {
+      for (int bits = 0; bits < (1 << size); bits++) {
+        for (int i = 0; i < size; i++) {
+          neighborStates[neighborSlots[i]] = (bits >>> i) & 1;
+        }
+        int count = Integer.bitCount(bits);
+        int next = rule.planState(state, neighborStates);
+        if (next != 0 && next != 1) {
+          return null;
+        }
+        if (seen[state][count] && table[state][count] != next) {
+          return null;
+        }
+        seen[state][count] = true;
+        table[state][count] = next;
+      }
+    }
+    return table;
+  }
+
+  @Override
+  public boolean step() {
+    long start = StepMetrics.start();
+    forEachBand(bandLive.length, this::stepBand);
+    StepMetrics.stop(StepMetrics.PLAN, start);
+    start = StepMetrics.start();
+    live = 0;
+    for (int count : bandLive) {
+      live += count;
+    }
+    cellsChanged = 0;
+    for (int count : bandChanges) {
+      cellsChanged += count;
+    }
+    long[] temp = states;
+    states = nextStates;
+    nextStates = temp;
+    StepMetrics.stop(StepMetrics.COMMIT, start);
+    return false;
+  }
+
+  private void stepBand(int band) {
+    long[] around = bandAround[band];
+    int bandCount = 0;
+    int changeCount = 0;
+    for (int r = band * BAND_ROWS; r < Math.min(height, (band + 1) * BAND_ROWS); r++) {
+      long[] above = rowArray(r - 1);
+      long[] below = rowArray(r + 1);
+      int aboveStart = rowStart(r - 1);
+      int belowStart = rowStart(r + 1);
+      int start = r * words;
+      for (int w = 0; w < words; w++) {
+        fillAround(around, 0, above, aboveStart, w);
+        fillAround(around, 3, states, start, w);
+        fillAround(around, 6, below, belowStart, w);
+        long count0 = 0;
+        long count1 = 0;
+        long count2 = 0;
+        long count3 = 0;
+        for (int slot : slots) {
+          long bits = around[slot];
+          long carry = count0 & bits;
+          count0 ^= bits;
+          long carry2 = count1 & carry;
+          count1 ^= carry;
+          count3 |= count2 & carry2;
+          count2 ^= carry2;
+        }
+        long self = around[CENTER];
+        long next = 0;
+        for (int g = 0; g < groupPlanes.length; g++) {
+          long[] planes = groupPlanes[g];
+          long group = ~((count1 ^ planes[0]) | (count2 ^ planes[1]) | (count3 ^ planes[2]));
+          long even = (self & evenSurvivals[g]) | (~self & evenBirths[g]);
+          long odd = (self & oddSurvivals[g]) | (~self & oddBirths[g]);
+          next |= group & ((count0 & odd) | (~count0 & even));
+        }
+        next = w == words - 1 ? next & lastWordMask : next;
+        nextStates[start + w] = next;
+        bandCount += Long.bitCount(next);
+        changes[start + w] = next ^ self;
+        changeCount += Long.bitCount(changes[start + w]);
+      }
+    }
+    bandLive[band] = bandCount;
+    bandChanges[band] = changeCount;
+  }
+
+  /**
+   * Fills three slots of around with the word of a row shifted to hold the locations to its west, at it,
+   * and to its east
+   */
+  private void fillAround(long[] around, int first, long[] array, int start, int w) {
+    long word = array[start + w];
+    long westCarry = w == 0 ? leftEdge(array, start) : array[start + w - 1] >>> WORD_MASK;
+    long eastCarry = w == words - 1 ? rightEdge(array, start) << lastBit : array[start + w + 1] << WORD_MASK;
+    around[first] = (word << 1) | westCarry;
+    around[first + 1] = word;
+    around[first + 2] = (word >>> 1) | eastCarry;
+  }
+
+  private long[] rowArray(int r) {
+    if (r >= 0 && r < height) {
+      return states;
+    }
+    return toroidal ? states : edgeRow;
+  }
+
+  private int rowStart(int r) {
+    if (r >= 0 && r < height) {
+      return r * words;
+    }
+    if (!toroidal) {
+      return 0;
+    }
+    return (r < 0 ? height - 1 : 0) * words;
+  }
+
+  private long leftEdge(long[] array, int start) {
+    if (toroidal) {
+      return (array[start + words - 1] >>> lastBit) & 1;
+    }
+    return edgeBit;
+  }
+
+  private long rightEdge(long[] array, int start) {
+    if (toroidal) {
+      return array[start] & 1;
+    }
+    return edgeBit;
+  }
+
+  @Override
+  public int getState(int r, int c) {
+    return (int) (states[r * words + (c >>> WORD_SHIFT)] >>> (c & WORD_MASK)) & 1;
+  }
+
+  @Override
+  public void setState(int r, int c, int state) {
+    long bit = 1L << (c & WORD_MASK);
+    int index = r * words + (c >>> WORD_SHIFT);
+    live -= Long.bitCount(states[index] & bit);
+    live += state == 0 ? 0 : 1;
+    if (state == 0) {
+      states[index] &= ~bit;
+    } else {
+      states[index] |= bit;
+    }
+  }
+
+  @Override
+  public boolean canStore(int state) {
+    return state == 0 || state == 1;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public void getStates(int[] out) {
+    for (int r = 0; r < height; r++) {
+      for (int w = 0; w < words; w++) {
+        long word = states[r * words + w];
+        int start = r * width + (w << WORD_SHIFT);
+        int end = Math.min(width, (w + 1) << WORD_SHIFT) + r * width;
+        for (int i = start; i < end; i++, word >>>= 1) {
+          out[i] = (int) word & 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Marks the tile of each run of changed locations in a word, skipping the rest of the run's tile
+   */
+  @Override
+  public void markChanged(DirtyTiles tiles) {
+    long tileBits = (1L << DirtyTiles.TILE_SIZE) - 1;
+    for (int r = 0; r < height; r++) {
+      for (int w = 0; w < words; w++) {
+        long changed = changes[r * words + w];
+        while (changed != 0) {
+          int bit = Long.numberOfTrailingZeros(changed);
+          tiles.mark(r, (w << WORD_SHIFT) + bit);
+          changed &= ~(tileBits << (bit & -DirtyTiles.TILE_SIZE));
+        }
+      }
+    }
+  }
+
+  @Override
+  public long getCellsEvaluated() {
+    return (long) width * height;
+  }
+
+  @Override
+  public long getCellsChanged() {
+    return cellsChanged;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public void getPopulations(int[] populations) {
+    Arrays.fill(populations, 0);
+    populations[0] = width * height - live;
+    if (populations.length > 1) {
+      populations[1] = live;
+    }
+  }
+}
@@ -0,0 +1,530 @@
+package cellsociety.simulation.engine;
+
+import cellsociety.simulation.cell.CounterRandom;
+import cellsociety.simulation.cell.StateRule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Holds an infinite plane of states in fixed size square chunks, kept in an open addressing table
+ * keyed by chunk coordinates packed into a long. Everything outside of a chunk is state 0. A chunk is only
+ * made when a non-zero state comes within reach of its edge, and is released again once all of its states
+ * are 0 and no non-zero state is within reach, so growing never costs more than the chunks that are active.
+ * An empty chunk next to a still life or oscillator is kept rather than made and released every step, and
+ * released chunks are reused for the next chunks that are made, so steady patterns do not allocate.
+ *
+ * The chunks are planned at the same time on the threads of the engine, in a few bands per thread that each
+ * reuse one array of neighbor states. Each chunk counts the states it plans, and the counts are added into
+ * the populations of the engine once the step is done, so the populations never need a pass over the plane.
+ *
+ * The rows and columns seen through getState are a window onto the plane that always holds every non-zero
+ * state with a margin of 1, and grows (but never shrinks) as the states spread. For hexagonal and triangular
+ * grids the corner of the window is kept on even coordinates, so a location has the same parity in the
+ * window as on the plane.
+ *
+ * Assumptions: See Engine. The rule is quiescent: a 0 surrounded by 0s stays 0.
+ *
+ * Dependencies: Engine, Neighborhood, StateRule, CounterRandom
+ */
+public class ChunkedEngine extends Engine {
+
+  private static final int CHUNK_BITS = 6;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int MARGIN = 1;
+  private static final int BANDS_PER_THREAD = 4;
+
+  private StateRule rule;
+  private Neighborhood neighborhood;
+  private int[] slots;
+  private boolean random;
+  private int[][] indexOffsets;
+  private int rowReach;
+  private int columnReach;
+  private ChunkTable chunks = new ChunkTable();
+  private List<Chunk> planned = new ArrayList<>();
+  private List<Chunk> freeChunks = new ArrayList<>();
+  private int[][] bandNeighborStates = new int[0][];
+  private Chunk lastChunk;
+  private int top;
+  private int left;
+  private int bottom;
+  private int right;
+  private boolean resized;
+  private int[] populations = new int[1];
+
+  private static class Chunk {
+
+    private int row;
+    private int column;
+    private long reachedAt = -1;
+    private int[] states = new int[CHUNK_SIZE * CHUNK_SIZE];
+    private int[] nextStates = new int[CHUNK_SIZE * CHUNK_SIZE];
+    private int live;
+    private int nextLive;
+    private int[] counts = new int[1];
+    private int[] nextCounts = new int[1];
+    private Chunk[] around = new Chunk[9];
+
+    private Chunk(int row, int column) {
+      this.row = row;
+      this.column = column;
+    }
+  }
+
+  /**
+   * Chunks kept in open addressing with linear probing, so that finding a chunk neither boxes its key nor
+   * follows a list. Removing a chunk shifts back the chunks probed past it, so there are no tombstones
+   */
+  private static class ChunkTable {
+
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int INITIAL_BITS = 4;
+
+    private long[] keys = new long[1 << INITIAL_BITS];
+    private Chunk[] chunks = new Chunk[1 << INITIAL_BITS];
+    private int shift = Long.SIZE - INITIAL_BITS;
+    private int size;
+
+    private int home(long key) {
+      return (int) ((key * HASH_MULTIPLIER) >>> shift);
+    }
+
+    private int find(long key) {
+      int mask = keys.length - 1;
+      int slot = home(key);
+      while (chunks[slot] != null && keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    private Chunk get(long key) {
+      return chunks[find(key)];
+    }
+
+    private void put(long key, Chunk chunk) {
+      if (2 * (size + 1) > keys.length) {
+        grow();
+      }
+      int slot = find(key);
+      if (chunks[slot] == null) {
+        size++;
+      }
+      keys[slot] = key;
+      chunks[slot] = chunk;
+    }
+
+    private void remove(long key) {
+      int mask = keys.length - 1;
+      int hole = find(key);
+      if (chunks[hole] == null) {
+        return;
+      }
+      chunks[hole] = null;
+      size--;
+      for (int slot = (hole + 1) & mask; chunks[slot] != null; slot = (slot + 1) & mask) {
+        if (((slot - home(keys[slot])) & mask) >= ((slot - hole) & mask)) {
+          keys[hole] = keys[slot];
+          chunks[hole] = chunks[slot];
+          chunks[slot] = null;
+          hole = slot;
+        }
+      }
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      Chunk[] oldChunks = chunks;
+      keys = new long[oldKeys.length * 2];
+      chunks = new Chunk[oldChunks.length * 2];
+      shift--;
+      size = 0;
+      for (int slot = 0; slot < oldChunks.length; slot++) {
+        if (oldChunks[slot] != null) {
+          put(oldKeys[slot], oldChunks[slot]);
+        }
+      }
+    }
+
+    private void addTo(List<Chunk> list) {
+      for (Chunk chunk : chunks) {
+        if (chunk != null) {
+          list.add(chunk);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates an engine with every state set to 0, and a window of the given size at the origin of the plane
+   * @param rule the rule used to plan every location
+   * @param neighborhood the neighborhood of the grid shape
+   * @param mask the neighbor mask of the simulation
+   * @param height number of rows in the window
+   * @param width number of columns in the window
+   */
+  public ChunkedEngine(StateRule rule, Neighborhood neighborhood, int[] mask, int height, int width) {
+    this.rule = rule;
+    this.neighborhood = neighborhood.masked(mask);
+    slots = this.neighborhood.getSlots();
+    random = !rule.isDeterministic();
+    indexOffsets = this.neighborhood.getIndexOffsets(CHUNK_SIZE);
+    rowReach = this.neighborhood.getRowReach();
+    columnReach = this.neighborhood.getColumnReach();
+    bottom = height;
+    right = width;
+  }
+
+  /**
+   * Returns whether a rule keeps a 0 surrounded by 0s at 0, which this engine depends on
+   * @param rule the rule to check
+   * @param neighborhood the neighborhood of the grid shape
+   * @return true if the rule is quiescent
+   */
+  public static boolean isQuiescent(StateRule rule, Neighborhood neighborhood) {
+    return rule.planState(0, new int[neighborhood.size()]) == 0;
+  }
+
+  @Override
+  public boolean step() {
+    resized = false;
+    planned.clear();
+    chunks.addTo(planned);
+    for (Chunk chunk : planned) {
+      makeReachedChunks(chunk);
+    }
+    planned.clear();
+    chunks.addTo(planned);
+    for (Chunk chunk : planned) {
+      linkAround(chunk);
+    }
+    int bands = Math.min(planned.size(), Math.max(1, getThreads()) * BANDS_PER_THREAD);
+    makeBandNeighborStates(bands);
+    forEachBand(bands, band -> planBand(band, bands));
+    long stepped = generation;
+    generation++;
+    for (Chunk chunk : planned) {
+      int[] temp = chunk.states;
+      chunk.states = chunk.nextStates;
+      chunk.nextStates = temp;
+      chunk.live = chunk.nextLive;
+      countChunk(chunk.counts, -1);
+      countChunk(chunk.nextCounts, 1);
+      int[] tempCounts = chunk.counts;
+      chunk.counts = chunk.nextCounts;
+      chunk.nextCounts = tempCounts;
+      if (chunk.live == 0 && chunk.reachedAt != stepped) {
+        chunks.remove(key(chunk.row, chunk.column));
+        freeChunks.add(chunk);
+      } else if (chunk.live != 0) {
+        includeChunk(chunk);
+      }
+    }
+    lastChunk = null;
+    return resized;
+  }
+
+  /**
+   * Adds the counts of a chunk to the populations, times a sign of 1 or -1, growing the populations to hold
+   * every state of the chunk
+   */
+  private void countChunk(int[] counts, int sign) {
+    if (counts.length > populations.length) {
+      populations = Arrays.copyOf(populations, counts.length);
+    }
+    for (int state = 1; state < counts.length; state++) {
+      populations[state] += sign * counts[state];
+    }
+  }
+
+  private static long key(int chunkRow, int chunkColumn) {
+    return ((long) chunkRow << 32) | (chunkColumn & 0xffffffffL);
+  }
+
+  private Chunk getChunk(int chunkRow, int chunkColumn) {
+    return chunks.get(key(chunkRow, chunkColumn));
+  }
+
+  /**
+   * Returns the chunk at chunk coordinates, adding it to the table if it is not there. Chunks released
+   * before are reused, since every state of a released chunk is already 0
+   */
+  private Chunk makeChunk(int chunkRow, int chunkColumn) {
+    Chunk chunk = getChunk(chunkRow, chunkColumn);
+    if (chunk == null) {
+      if (freeChunks.isEmpty()) {
+        chunk = new Chunk(chunkRow, chunkColumn);
+      } else {
+        chunk = freeChunks.remove(freeChunks.size() - 1);
+        chunk.row = chunkRow;
+        chunk.column = chunkColumn;
+      }
+      chunks.put(key(chunkRow, chunkColumn), chunk);
+    }
+    return chunk;
+  }
+
+  private void makeBandNeighborStates(int bands) {
+    if (bands > bandNeighborStates.length) {
+      bandNeighborStates = new int[bands][neighborhood.size()];
+    }
+  }
+
+  /**
+   * Makes the neighboring chunks that non-zero states near the edges of the chunk could spread into, and
+   * marks them as reached in this step so that they are kept while they stay empty
+   */
+  private void makeReachedChunks(Chunk chunk) {
+    if (chunk.live == 0) {
+      return;
+    }
+    boolean[] rows = {anyLive(chunk, 0, rowReach, 0, CHUNK_SIZE), true,
+        anyLive(chunk, CHUNK_SIZE - rowReach, CHUNK_SIZE, 0, CHUNK_SIZE)};
+    boolean[] columns = {anyLive(chunk, 0, CHUNK_SIZE, 0, columnReach), true,
+        anyLive(chunk, 0, CHUNK_SIZE, CHUNK_SIZE - columnReach, CHUNK_SIZE)};
+    for (int dr = -1; dr <= 1; dr++) {
+      for (int dc = -1; dc <= 1; dc++) {
+        if ((dr != 0 || dc != 0) && rows[dr + 1] && columns[dc + 1]) {
+          makeChunk(chunk.row + dr, chunk.column + dc).reachedAt = generation;
+        }
+      }
+    }
+  }
+
+  private boolean anyLive(Chunk chunk, int rowStart, int rowEnd, int columnStart, int columnEnd) {
+    for (int r = rowStart; r < rowEnd; r++) {
+      for (int c = columnStart; c < columnEnd; c++) {
+        if (chunk.states[r * CHUNK_SIZE + c] != 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void linkAround(Chunk chunk) {
+    for (int dr = -1; dr <= 1; dr++) {
+      for (int dc = -1; dc <= 1; dc++) {
+        chunk.around[(dr + 1) * 3 + dc + 1] = getChunk(chunk.row + dr, chunk.column + dc);
+      }
+    }
+  }
+
+  /**
+   * Plans one of an even split of the chunks into bands, reusing the neighbor states of the band
+   */
+  private void planBand(int band, int bands) {
+    int[] neighborStates = bandNeighborStates[band];
+    int end = (int) ((long) (band + 1) * planned.size() / bands);
+    for (int i = (int) ((long) band * planned.size() / bands); i < end; i++) {
+      plan(planned.get(i), neighborStates);
+    }
+  }
+
+  private void plan(Chunk chunk, int[] neighborStates) {
+    chunk.nextLive = 0;
+    Arrays.fill(chunk.nextCounts, 0);
+    for (int r = 0; r < CHUNK_SIZE; r++) {
+      if (r < rowReach || r >= CHUNK_SIZE - rowReach) {
+        planEdge(chunk, r, 0, CHUNK_SIZE, neighborStates);
+        continue;
+      }
+      planEdge(chunk, r, 0, columnReach, neighborStates);
+      planInterior(chunk, r, columnReach, CHUNK_SIZE - columnReach, neighborStates);
+      planEdge(chunk, r, CHUNK_SIZE - columnReach, CHUNK_SIZE, neighborStates);
+    }
+  }
+
+  private void planInterior(Chunk chunk, int r, int start, int end, int[] neighborStates) {
+    int planeRow = (chunk.row << CHUNK_BITS) + r;
+    int planeColumn = chunk.column << CHUNK_BITS;
+    for (int c = start; c < end; c++) {
+      int index = r * CHUNK_SIZE + c;
+      int[] offsets = indexOffsets[neighborhood.getParity(planeRow, planeColumn + c)];
+      for (int i = 0; i < offsets.length; i++) {
+        neighborStates[slots[i]] = chunk.states[index + offsets[i]];
+      }
+      commit(chunk, index, neighborStates);
+    }
+  }
+
+  /**
+   * Plans the locations of a chunk whose neighbors may lie in one of the surrounding chunks
+   */
+  private void planEdge(Chunk chunk, int r, int start, int end, int[] neighborStates) {
+    int planeRow = (chunk.row << CHUNK_BITS) + r;
+    int planeColumn = chunk.column << CHUNK_BITS;
+    for (int c = start; c < end; c++) {
+      int parity = neighborhood.getParity(planeRow, planeColumn + c);
+      int[] dr = neighborhood.getRowOffsets(parity);
+      int[] dc = neighborhood.getColumnOffsets(parity);
+      for (int i = 0; i < dr.length; i++) {
+        neighborStates[slots[i]] = readAround(chunk, r + dr[i], c + dc[i]);
+      }
+      commit(chunk, r * CHUNK_SIZE + c, neighborStates);
+    }
+  }
+
+  private int readAround(Chunk chunk, int r, int c) {
+    int aroundRow = r < 0 ? 0 : (r >= CHUNK_SIZE ? 2 : 1);
+    int aroundColumn = c < 0 ? 0 : (c >= CHUNK_SIZE ? 2 : 1);
+    Chunk other = chunk.around[aroundRow * 3 + aroundColumn];
+    if (other == null) {
+      return 0;
+    }
+    return other.states[(r & CHUNK_MASK) * CHUNK_SIZE + (c & CHUNK_MASK)];
+  }
+
+  private void commit(Chunk chunk, int index, int[] neighborStates) {
+    if (random) {
+      long planeRow = (chunk.row << CHUNK_BITS) + index / CHUNK_SIZE;
+      long planeColumn = (chunk.column << CHUNK_BITS) + index % CHUNK_SIZE;
+      CounterRandom.current().moveTo(seed, generation, (planeRow << 32) | (planeColumn & 0xffffffffL));
+    }
+    int next = rule.planState(chunk.states[index], neighborStates);
+    chunk.nextStates[index] = next;
+    if (next != 0) {
+      chunk.nextLive++;
+      if (next >= chunk.nextCounts.length) {
+        chunk.nextCounts = Arrays.copyOf(chunk.nextCounts, next + 1);
+      }
+      chunk.nextCounts[next]++;
+    }
+  }
+
+  /**
+   * Grows the window to hold the non-zero states of a chunk, only looking at the states of chunks that
+   * are not already well inside of the window
+   */
+  private void includeChunk(Chunk chunk) {
+    int rowStart = chunk.row << CHUNK_BITS;
+    int columnStart = chunk.column << CHUNK_BITS;
+    if (rowStart - MARGIN >= top && rowStart + CHUNK_SIZE + MARGIN <= bottom
+        && columnStart - MARGIN >= left && columnStart + CHUNK_SIZE + MARGIN <= right) {
+      return;
+    }
+    for (int r = 0; r < CHUNK_SIZE; r++) {
+      for (int c = 0; c < CHUNK_SIZE; c++) {
+        if (chunk.states[r * CHUNK_SIZE + c] != 0) {
+          include(rowStart + r, columnStart + c);
+        }
+      }
+    }
+  }
+
+  private void include(int r, int c) {
+    if (r - MARGIN < top) {
+      top = align(r - MARGIN);
+      resized = true;
+    }
+    if (r + MARGIN >= bottom) {
+      bottom = r + MARGIN + 1;
+      resized = true;
+    }
+    if (c - MARGIN < left) {
+      left = align(c - MARGIN);
+      resized = true;
+    }
+    if (c + MARGIN >= right) {
+      right = c + MARGIN + 1;
+      resized = true;
+    }
+  }
+
+  private int align(int index) {
+    if (neighborhood.hasParity()) {
+      return index & ~1;
+    }
+    return index;
+  }
+
+  private Chunk findChunk(int planeRow, int planeColumn) {
+    int chunkRow = planeRow >> CHUNK_BITS;
+    int chunkColumn = planeColumn >> CHUNK_BITS;
+    if (lastChunk != null && lastChunk.row == chunkRow && lastChunk.column == chunkColumn) {
+      return lastChunk;
+    }
+    Chunk chunk = getChunk(chunkRow, chunkColumn);
+    if (chunk != null) {
+      lastChunk = chunk;
+    }
+    return chunk;
+  }
+
+  @Override
+  public int getState(int r, int c) {
+    Chunk chunk = findChunk(r + top, c + left);
+    if (chunk == null) {
+      return 0;
+    }
+    return chunk.states[((r + top) & CHUNK_MASK) * CHUNK_SIZE + ((c + left) & CHUNK_MASK)];
+  }
+
+  @Override
+  public void setState(int r, int c, int state) {
+    int planeRow = r + top;
+    int planeColumn = c + left;
+    Chunk chunk = findChunk(planeRow, planeColumn);
+    if (chunk == null) {
+      if (state == 0) {
+        return;
+      }
+      chunk = makeChunk(planeRow >> CHUNK_BITS, planeColumn >> CHUNK_BITS);
+    }
+    int index = (planeRow & CHUNK_MASK) * CHUNK_SIZE + (planeColumn & CHUNK_MASK);
+    if (chunk.states[index] != 0) {
+      chunk.live--;
+      chunk.counts[chunk.states[index]]--;
+      populations[chunk.states[index]]--;
+    }
+    if (state != 0) {
+      chunk.live++;
+      if (state >= chunk.counts.length) {
+        chunk.counts = Arrays.copyOf(chunk.counts, state + 1);
+      }
+      chunk.counts[state]++;
+      if (state >= populations.length) {
+        populations = Arrays.copyOf(populations, state + 1);
+      }
+      populations[state]++;
+    }
+    chunk.states[index] = state;
+  }
+
+  @Override
+  public int getWidth() {
+    return right - left;
+  }
+
+  @Override
+  public int getHeight() {
+    return bottom - top;
+  }
+
+  /**
+   * Returns the number of chunks in the table, for tests
+   */
+  int getChunkCount() {
+    return chunks.size;
+  }
+
+  /**
+   * Returns the number of released chunks waiting to be reused, for tests
+   */
+  int getFreeChunkCount() {
+    return freeChunks.size();
+  }
+
+  @Override
+  public void getPopulations(int[] populations) {
+    copyPopulations(this.populations, populations);
+    populations[0] = getWidth() * getHeight();
+    for (int state = 1; state < this.populations.length; state++) {
+      populations[0] -= this.populations[state];
+    }
+  }
+}
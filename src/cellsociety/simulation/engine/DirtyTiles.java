@@ -0,0 +1,199 @@
+package cellsociety.simulation.engine;
+
+import java.util.Arrays;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Marks the square tiles of a grid holding cells whose state has changed, one bit per tile, so
+ * that a view can repaint only those tiles. Marks build up over steps and edits until clear is called.
+ * Everything is marked when the grid changes size, as nothing from before can be reused.
+ *
+ * Assumptions: Rows and columns given are inside the size last given to resize.
+ *
+ * Dependencies: None
+ *
+ * Example usage:
+ *     for (int tile = tiles.nextMarked(0); tile >= 0; tile = tiles.nextMarked(tile + 1)) {
+ *       repaint rows tiles.getTop(tile) until tiles.getBottom(tile), and the same for columns
+ *     }
+ *     tiles.clear();
+ */
+public class DirtyTiles {
+
+  public static final int TILE_SHIFT = 4;
+  public static final int TILE_SIZE = 1 << TILE_SHIFT;
+  private static final int WORD_SHIFT = 6;
+
+  private int rows;
+  private int columns;
+  private int tileColumns;
+  private int tileCount;
+  private long[] bits = new long[0];
+  private boolean all = true;
+
+  /**
+   * Sets the size of the grid, marking everything if it is different from before
+   * @param newRows the number of rows of the grid
+   * @param newColumns the number of columns of the grid
+   */
+  public void resize(int newRows, int newColumns) {
+    if (newRows == rows && newColumns == columns) {
+      return;
+    }
+    rows = newRows;
+    columns = newColumns;
+    tileColumns = (columns + TILE_SIZE - 1) >> TILE_SHIFT;
+    tileCount = tileColumns * ((rows + TILE_SIZE - 1) >> TILE_SHIFT);
+    bits = new long[(tileCount + Long.SIZE - 1) >> WORD_SHIFT];
+    all = true;
+  }
+
+  /**
+   * Marks the tile holding r,c
+   * @param r row of the cell
+   * @param c column of the cell
+   */
+  public void mark(int r, int c) {
+    int tile = getTile(r, c);
+    bits[tile >> WORD_SHIFT] |= 1L << tile;
+  }
+
+  /**
+   * Marks every tile holding a cell of an area
+   * @param top the first row of the area
+   * @param left the first column of the area
+   * @param bottom the row after the last row of the area
+   * @param right the column after the last column of the area
+   */
+  public void markArea(int top, int left, int bottom, int right) {
+    for (int tileRow = top >> TILE_SHIFT; tileRow <= (bottom - 1) >> TILE_SHIFT; tileRow++) {
+      for (int tileColumn = left >> TILE_SHIFT; tileColumn <= (right - 1) >> TILE_SHIFT; tileColumn++) {
+        int tile = tileRow * tileColumns + tileColumn;
+        bits[tile >> WORD_SHIFT] |= 1L << tile;
+      }
+    }
+  }
+
+  /**
+   * Marks every tile
+   */
+  public void markAll() {
+    all = true;
+  }
+
+  /**
+   * Marks every tile marked in another set of tiles, or every tile if the other set is for a different size
+   * @param other the tiles to add to these
+   */
+  public void markAll(DirtyTiles other) {
+    if (other.all || other.rows != rows || other.columns != columns) {
+      all = true;
+      return;
+    }
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] |= other.bits[i];
+    }
+  }
+
+  /**
+   * Returns whether or not every tile is marked, without looking at each one
+   * @return true if everything was marked at once, as after a resize
+   */
+  public boolean isAllMarked() {
+    return all;
+  }
+
+  /**
+   * Returns the number of tiles marked
+   * @return the number of tiles marked
+   */
+  public int countMarked() {
+    if (all) {
+      return tileCount;
+    }
+    int count = 0;
+    for (long word : bits) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of tiles
+   * @return the number of tiles covering the grid
+   */
+  public int getTileCount() {
+    return tileCount;
+  }
+
+  /**
+   * Returns the first marked tile at or after a tile
+   * @param from the tile to start looking at
+   * @return the tile, or -1 if no tile from there on is marked
+   */
+  public int nextMarked(int from) {
+    if (from >= tileCount) {
+      return -1;
+    }
+    if (all) {
+      return from;
+    }
+    int word = from >> WORD_SHIFT;
+    long remaining = bits[word] & (-1L << from);
+    while (remaining == 0) {
+      word++;
+      if (word == bits.length) {
+        return -1;
+      }
+      remaining = bits[word];
+    }
+    return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(remaining);
+  }
+
+  /**
+   * @return the first row of a tile
+   */
+  public int getTop(int tile) {
+    return (tile / tileColumns) << TILE_SHIFT;
+  }
+
+  /**
+   * @return the row after the last row of a tile
+   */
+  public int getBottom(int tile) {
+    return Math.min(rows, getTop(tile) + TILE_SIZE);
+  }
+
+  /**
+   * @return the first column of a tile
+   */
+  public int getLeft(int tile) {
+    return (tile % tileColumns) << TILE_SHIFT;
+  }
+
+  /**
+   * @return the column after the last column of a tile
+   */
+  public int getRight(int tile) {
+    return Math.min(columns, getLeft(tile) + TILE_SIZE);
+  }
+
+  /**
+   * Returns the tile holding r,c
+   * @param r row of the cell
+   * @param c column of the cell
+   * @return the tile, numbered across each row of tiles in turn
+   */
+  public int getTile(int r, int c) {
+    return (r >> TILE_SHIFT) * tileColumns + (c >> TILE_SHIFT);
+  }
+
+  /**
+   * Unmarks every tile
+   */
+  public void clear() {
+    Arrays.fill(bits, 0);
+    all = false;
+  }
+}
@@ -0,0 +1,252 @@
+package cellsociety.simulation.engine;
+
+import cellsociety.simulation.cell.CounterRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Stores the states of a simulation and steps them forward. A Grid hands its stepping and reading
+ * over to an Engine when the simulation does not need one Cell object per location.
+ *
+ * Engines may split a step into bands that are planned at the same time on a ForkJoinPool. Every band only
+ * writes its own next states, and the step waits for all of them before any state is changed, so the result
+ * is the same as planning the bands one after another. Random rules draw from a CounterRandom moved to
+ * each location with the seed and generation of the engine, so they give the same results on any thread.
+ *
+ * Pools are made the first time a number of threads is stepped with, and kept until shutdownPools is called,
+ * after which the next step makes them again.
+ *
+ * Assumptions: States are non-negative. All methods assume row, column values are valid. Only step uses more
+ * than one thread, and no other method is called while it runs.
+ *
+ * Dependencies: CounterRandom
+ */
+public abstract class Engine {
+
+  public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+  private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+  private int threads = DEFAULT_THREADS;
+  protected long seed = CounterRandom.newSeed();
+  protected long generation;
+
+  private static class BandTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final IntConsumer work;
+    private final int start;
+    private final int end;
+
+    private BandTask(IntConsumer work, int start, int end) {
+      this.work = work;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start == 1) {
+        work.accept(start);
+        return;
+      }
+      int middle = (start + end) >>> 1;
+      invokeAll(new BandTask(work, start, middle), new BandTask(work, middle, end));
+    }
+  }
+
+  /**
+   * Shuts down every pool made for stepping, so their threads end once they are idle. Must not be called while
+   * any engine is stepping
+   */
+  public static void shutdownPools() {
+    for (Integer threads : POOLS.keySet()) {
+      ForkJoinPool pool = POOLS.remove(threads);
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Sets the number of threads used to step. Pools are shared between engines with the same number
+   * @param newThreads the number of threads, where 1 or less steps on the calling thread only
+   */
+  public void setThreads(int newThreads) {
+    threads = newThreads;
+  }
+
+  /**
+   * Returns the number of threads used to step
+   * @return the number of threads, where 1 or less steps on the calling thread only
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Sets the seed that random rules draw from
+   * @param newSeed the seed of the simulation
+   */
+  public void setSeed(long newSeed) {
+    seed = newSeed;
+  }
+
+  /**
+   * Runs work on every band from 0 up to count, spread over the threads of the engine, and returns once all
+   * of them are done. Work on different bands must not write to the same memory
+   * @param count the number of bands
+   * @param work the work to do for each band
+   */
+  protected void forEachBand(int count, IntConsumer work) {
+    if (threads <= 1 || count <= 1) {
+      for (int band = 0; band < count; band++) {
+        work.accept(band);
+      }
+      return;
+    }
+    POOLS.computeIfAbsent(threads, ForkJoinPool::new).invoke(new BandTask(work, 0, count));
+  }
+
+  /**
+   * Steps the simulation by 1 timestep. Returns true if the size has changed, and false otherwise
+   * @return boolean value, true if the size has changed
+   */
+  public abstract boolean step();
+
+  /**
+   * Returns the state at r,c
+   * @param r row of the location
+   * @param c column of the location
+   * @return integer state at r,c
+   */
+  public abstract int getState(int r, int c);
+
+  /**
+   * Sets the state at r,c
+   * @param r row of the location
+   * @param c column of the location
+   * @param state state to be set
+   */
+  public abstract void setState(int r, int c, int state);
+
+  /**
+   * Copies every state into an array, one row after another, so that the whole simulation can be drawn
+   * without a call per location
+   * @param out the array to fill, at least getWidth() * getHeight() long
+   */
+  public void getStates(int[] out) {
+    int width = getWidth();
+    for (int r = 0; r < getHeight(); r++) {
+      for (int c = 0; c < width; c++) {
+        out[r * width + c] = getState(r, c);
+      }
+    }
+  }
+
+  /**
+   * Returns whether or not the state at r,c may have changed in the last step or since. Used to only
+   * redraw the parts of the grid that are active
+   * @param r row of the location
+   * @param c column of the location
+   * @return false only if the state at r,c is known to be the same as before the last step
+   */
+  public boolean wasChanged(int r, int c) {
+    return true;
+  }
+
+  /**
+   * Returns the number of generations each step moves the simulation forward
+   * @return the number of generations in a step, 1 unless the engine skips ahead
+   */
+  public long getGenerationsPerStep() {
+    return 1;
+  }
+
+  /**
+   * Returns the number of locations whose next state was planned in the last step, for metrics
+   * @return the number of locations, or -1 if the engine does not count them
+   */
+  public long getCellsEvaluated() {
+    return -1;
+  }
+
+  /**
+   * Returns the number of locations whose state changed in the last step, for metrics
+   * @return the number of locations, or -1 if the engine does not count them
+   */
+  public long getCellsChanged() {
+    return -1;
+  }
+
+  /**
+   * Marks the tiles holding every location whose state may have changed in the last step. Engines that do
+   * not know which locations changed mark everything
+   * @param tiles the tiles to mark, already the size of the simulation
+   */
+  public void markChanged(DirtyTiles tiles) {
+    tiles.markAll();
+  }
+
+  /**
+   * Returns whether or not this engine can hold a state. Engines that pack states into fewer bits cannot
+   * hold every state
+   * @param state the state to check
+   * @return true if setState can be called with the state
+   */
+  public boolean canStore(int state) {
+    return true;
+  }
+
+  /**
+   * Returns the width of the simulation
+   * @return the width of the simulation
+   */
+  public abstract int getWidth();
+
+  /**
+   * Returns the height of the simulation
+   * @return the height of the simulation
+   */
+  public abstract int getHeight();
+
+  /**
+   * Called after the parameters of the rule have changed. Engines that remember results of the rule must
+   * forget them here
+   */
+  public void ruleChanged() {
+  }
+
+  /**
+   * Fills an int array, where the ith value is the number of state i locations. States past the end of the
+   * array are not counted. Engines keep their counts up to date as they step, so this does not allocate and
+   * does not look at every location
+   * @param populations the array to fill, usually one longer than the highest state in the simulation
+   */
+  public void getPopulations(int[] populations) {
+    Arrays.fill(populations, 0);
+    for (int r = 0; r < getHeight(); r++) {
+      for (int c = 0; c < getWidth(); c++) {
+        int state = getState(r, c);
+        if (state < populations.length) {
+          populations[state]++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies counts kept by an engine into populations, with 0 for states that have no count
+   */
+  protected static void copyPopulations(int[] counts, int[] populations) {
+    int length = Math.min(counts.length, populations.length);
+    System.arraycopy(counts, 0, populations, 0, length);
+    Arrays.fill(populations, length, populations.length, 0);
+  }
+}
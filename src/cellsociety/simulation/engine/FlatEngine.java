@@ -0,0 +1,449 @@
+package cellsociety.simulation.engine;
+
+import cellsociety.metrics.StepMetrics;
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.cell.CounterRandom;
+import cellsociety.simulation.cell.StateRule;
+import java.util.Arrays;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Keeps the current and next states of a simulation in two flat row-major int arrays, and swaps
+ * them after every step instead of copying each next state into place. The rule is read from a single
+ * StateRule, so no Cell objects are needed per location.
+ *
+ * The arrays have a halo: a ring of extra locations around the grid, as wide as the reach of the
+ * Neighborhood, holding whatever lies past the border. For a fixed default edge the halo is filled once
+ * when the arrays are made; for toroidal and infinite edges it is copied from the opposite side before each
+ * step. Every cell can then read its neighbors through the precomputed index offsets, with no bounds checks.
+ * The offsets come from the masked Neighborhood, so masked out neighbors are never read and stay 0.
+ *
+ * The grid is also split into square tiles. If the rule is stable when unchanged, a tile is only planned when
+ * a location in it or within reach of it changed in the last step; the other tiles already hold the same
+ * states in both arrays, so they are skipped without copying. The number of locations in each state is
+ * kept up to date from the changes alone. Each row of tiles is a band that may be planned on its own thread.
+ * Planning the bands is timed as the plan phase of StepMetrics, and gathering their counts and swapping the
+ * arrays as the commit phase.
+ *
+ * Assumptions: See Engine. The default edge is non-negative, Cell.TOROIDAL, or Cell.INFINTE, with the same
+ * meaning as in Grid.
+ *
+ * Dependencies: Engine, Neighborhood, Cell, StateRule, CounterRandom, StepMetrics
+ */
+public class FlatEngine extends Engine {
+
+  private static final int TILE_SIZE = 16;
+
+  private StateRule rule;
+  private Neighborhood neighborhood;
+  private int defaultEdge;
+  private int[] slots;
+  private int width;
+  private int height;
+  private int rowHalo;
+  private int columnHalo;
+  private int stride;
+  private int[] states;
+  private int[] nextStates;
+  private int[][] indexOffsets;
+  private int neighborCount;
+  private Band[] bands;
+  private boolean skipping;
+  private boolean random;
+  private boolean borderActive;
+  private int tileRows;
+  private int tileColumns;
+  private boolean[] dirty;
+  private boolean[] changed;
+  private int[] aroundRows;
+  private int[] aroundColumns;
+  private int[] populations;
+  private long cellsEvaluated;
+  private long cellsChanged;
+
+  /**
+   * The scratch space of one row of tiles, so that rows can be planned at the same time
+   */
+  private static class Band {
+
+    private final int[] neighborStates;
+    private int[] populationChanges = new int[1];
+    private long evaluated;
+    private long changes;
+
+    private Band(int neighborCount) {
+      neighborStates = new int[neighborCount];
+    }
+  }
+
+  /**
+   * Creates an engine with every state set to 0
+   * @param rule the rule used to plan every location
+   * @param neighborhood the neighborhood of the grid shape
+   * @param defaultEdge the state of locations past the border, or Cell.TOROIDAL or Cell.INFINTE
+   * @param mask the neighbor mask of the simulation
+   * @param height number of rows
+   * @param width number of columns
+   */
+  public FlatEngine(StateRule rule, Neighborhood neighborhood, int defaultEdge, int[] mask,
+      int height, int width) {
+    this.rule = rule;
+    this.neighborhood = neighborhood.masked(mask);
+    this.defaultEdge = defaultEdge;
+    rowHalo = this.neighborhood.getRowReach();
+    columnHalo = this.neighborhood.getColumnReach();
+    neighborCount = this.neighborhood.size();
+    slots = this.neighborhood.getSlots();
+    skipping = rule.isStableWhenUnchanged();
+    random = !rule.isDeterministic();
+    borderActive = !rule.isDeterministic() && !wraps();
+    aroundRows = new int[2 * rowHalo + 1];
+    aroundColumns = new int[2 * columnHalo + 1];
+    allocate(height, width);
+  }
+
+  private void allocate(int rows, int cols) {
+    height = rows;
+    width = cols;
+    stride = width + 2 * columnHalo;
+    int size = (height + 2 * rowHalo) * stride;
+    states = new int[size];
+    nextStates = new int[size];
+    indexOffsets = neighborhood.getIndexOffsets(stride);
+    if (!wraps()) {
+      fillEdge(states);
+      fillEdge(nextStates);
+    }
+    tileRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+    tileColumns = (width + TILE_SIZE - 1) / TILE_SIZE;
+    dirty = new boolean[tileRows * tileColumns];
+    changed = new boolean[tileRows * tileColumns];
+    Arrays.fill(dirty, true);
+    Arrays.fill(changed, true);
+    populations = new int[]{height * width};
+    bands = new Band[tileRows];
+    for (int i = 0; i < bands.length; i++) {
+      bands[i] = new Band(neighborCount);
+    }
+  }
+
+  private boolean wraps() {
+    return defaultEdge == Cell.TOROIDAL || defaultEdge == Cell.INFINTE;
+  }
+
+  private int index(int r, int c) {
+    return (r + rowHalo) * stride + c + columnHalo;
+  }
+
+  @Override
+  public boolean step() {
+    boolean padded = false;
+    if (defaultEdge == Cell.INFINTE) {
+      padded = padGrid();
+    }
+    if (wraps()) {
+      fillWrappedHalo();
+    }
+    long start = StepMetrics.start();
+    forEachBand(tileRows, this::planTileRow);
+    StepMetrics.stop(StepMetrics.PLAN, start);
+    start = StepMetrics.start();
+    cellsEvaluated = 0;
+    cellsChanged = 0;
+    for (Band band : bands) {
+      cellsEvaluated += band.evaluated;
+      cellsChanged += band.changes;
+      band.evaluated = 0;
+      band.changes = 0;
+      for (int state = 0; state < band.populationChanges.length; state++) {
+        if (band.populationChanges[state] != 0) {
+          count(state, band.populationChanges[state]);
+          band.populationChanges[state] = 0;
+        }
+      }
+    }
+    if (skipping) {
+      markDirtyTiles();
+    }
+    int[] temp = states;
+    states = nextStates;
+    nextStates = temp;
+    StepMetrics.stop(StepMetrics.COMMIT, start);
+    generation++;
+    return padded;
+  }
+
+  private void planTileRow(int tileRow) {
+    Band band = bands[tileRow];
+    CounterRandom cursor = random ? CounterRandom.current() : null;
+    for (int tile = tileRow * tileColumns; tile < (tileRow + 1) * tileColumns; tile++) {
+      changed[tile] = (dirty[tile] || !skipping) && planTile(tileRow, tile % tileColumns, band, cursor);
+    }
+  }
+
+  /**
+   * Plans every location of a tile, returning true if any of them changed
+   */
+  private boolean planTile(int tileRow, int tileColumn, Band band, CounterRandom cursor) {
+    int[] neighborStates = band.neighborStates;
+    boolean tileChanged = false;
+    int rowEnd = Math.min(height, (tileRow + 1) * TILE_SIZE);
+    int columnStart = tileColumn * TILE_SIZE;
+    int columnEnd = Math.min(width, columnStart + TILE_SIZE);
+    for (int r = tileRow * TILE_SIZE; r < rowEnd; r++) {
+      int index = index(r, columnStart);
+      for (int c = columnStart; c < columnEnd; c++, index++) {
+        int[] offsets = indexOffsets[neighborhood.getParity(r, c)];
+        for (int i = 0; i < offsets.length; i++) {
+          neighborStates[slots[i]] = states[index + offsets[i]];
+        }
+        if (cursor != null) {
+          cursor.moveTo(seed, generation, (long) r * width + c);
+        }
+        int next = rule.planState(states[index], neighborStates);
+        nextStates[index] = next;
+        if (next != states[index]) {
+          change(band, states[index], next);
+          band.changes++;
+          tileChanged = true;
+        }
+      }
+    }
+    band.evaluated += (long) (rowEnd - tileRow * TILE_SIZE) * (columnEnd - columnStart);
+    return tileChanged;
+  }
+
+  /**
+   * Marks the tiles that must be planned next step: those within reach of a change, and those on the
+   * border if the edge can set off changes by itself
+   */
+  private void markDirtyTiles() {
+    Arrays.fill(dirty, false);
+    for (int tile = 0; tile < changed.length; tile++) {
+      if (changed[tile]) {
+        markAround(tile / tileColumns, tile % tileColumns);
+      }
+    }
+    if (borderActive) {
+      for (int tile = 0; tile < dirty.length; tile++) {
+        int tileRow = tile / tileColumns;
+        int tileColumn = tile % tileColumns;
+        if (tileRow == 0 || tileRow == tileRows - 1 || tileColumn == 0 || tileColumn == tileColumns - 1) {
+          dirty[tile] = true;
+        }
+      }
+    }
+  }
+
+  private void markAround(int tileRow, int tileColumn) {
+    int rowCount = findAroundTiles(tileRow, rowHalo, height, aroundRows);
+    int columnCount = findAroundTiles(tileColumn, columnHalo, width, aroundColumns);
+    for (int i = 0; i < rowCount; i++) {
+      for (int j = 0; j < columnCount; j++) {
+        dirty[aroundRows[i] * tileColumns + aroundColumns[j]] = true;
+      }
+    }
+  }
+
+  /**
+   * Finds the tiles along one axis holding a location within reach of the given tile, looking one
+   * location at a time past each end so that small tiles at the far side of a wrapped grid are not missed
+   */
+  private int findAroundTiles(int tile, int reach, int size, int[] out) {
+    int start = tile * TILE_SIZE;
+    int end = Math.min(size, start + TILE_SIZE) - 1;
+    int count = 0;
+    out[count++] = tile;
+    for (int d = 1; d <= reach; d++) {
+      count = addAroundTile(start - d, size, out, count);
+      count = addAroundTile(end + d, size, out, count);
+    }
+    return count;
+  }
+
+  private int addAroundTile(int index, int size, int[] out, int count) {
+    if (index < 0 || index >= size) {
+      if (!wraps()) {
+        return count;
+      }
+      index = wrap(index, size);
+    }
+    out[count] = index / TILE_SIZE;
+    return count + 1;
+  }
+
+  private static void change(Band band, int from, int to) {
+    int highest = Math.max(from, to);
+    if (highest >= band.populationChanges.length) {
+      band.populationChanges = Arrays.copyOf(band.populationChanges, highest + 1);
+    }
+    band.populationChanges[from]--;
+    band.populationChanges[to]++;
+  }
+
+  private void count(int state, int change) {
+    if (state >= populations.length) {
+      populations = Arrays.copyOf(populations, state + 1);
+    }
+    populations[state] += change;
+  }
+
+  private void fillEdge(int[] array) {
+    for (int r = -rowHalo; r < height + rowHalo; r++) {
+      for (int c = -columnHalo; c < width + columnHalo; c++) {
+        if (outside(r, c)) {
+          array[index(r, c)] = defaultEdge;
+        }
+      }
+    }
+  }
+
+  private void fillWrappedHalo() {
+    for (int r = -rowHalo; r < height + rowHalo; r++) {
+      if (r < 0 || r >= height) {
+        wrapColumns(r, -columnHalo, width + columnHalo);
+      } else {
+        wrapColumns(r, -columnHalo, 0);
+        wrapColumns(r, width, width + columnHalo);
+      }
+    }
+  }
+
+  private void wrapColumns(int r, int start, int end) {
+    int source = wrap(r, height);
+    for (int c = start; c < end; c++) {
+      states[index(r, c)] = states[index(source, wrap(c, width))];
+    }
+  }
+
+  private boolean outside(int r, int c) {
+    return r < 0 || r >= height || c < 0 || c >= width;
+  }
+
+  private static int wrap(int index, int size) {
+    while (index < 0) {
+      index += size;
+    }
+    while (index >= size) {
+      index -= size;
+    }
+    return index;
+  }
+
+  private boolean padGrid() {
+    int top = rowEmpty(0) ? 0 : 1;
+    int bottom = rowEmpty(height - 1) ? 0 : 1;
+    if (top + bottom > 0) {
+      resize(top, bottom, 0, 0);
+      return true;
+    }
+    int left = columnEmpty(0) ? 0 : 1;
+    int right = columnEmpty(width - 1) ? 0 : 1;
+    if (left + right > 0) {
+      resize(0, 0, left, right);
+      return true;
+    }
+    return false;
+  }
+
+  private boolean rowEmpty(int r) {
+    for (int c = 0; c < width; c++) {
+      if (getState(r, c) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean columnEmpty(int c) {
+    for (int r = 0; r < height; r++) {
+      if (getState(r, c) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void resize(int top, int bottom, int left, int right) {
+    int[] oldStates = states;
+    int oldWidth = width;
+    int oldHeight = height;
+    int oldStart = index(0, 0);
+    int oldStride = stride;
+    int[] oldPopulations = populations;
+    allocate(oldHeight + top + bottom, oldWidth + left + right);
+    for (int r = 0; r < oldHeight; r++) {
+      System.arraycopy(oldStates, oldStart + r * oldStride, states, index(r + top, left), oldWidth);
+    }
+    populations = Arrays.copyOf(oldPopulations, oldPopulations.length);
+    populations[0] += height * width - oldHeight * oldWidth;
+  }
+
+  @Override
+  public int getState(int r, int c) {
+    return states[index(r, c)];
+  }
+
+  @Override
+  public void setState(int r, int c, int state) {
+    int index = index(r, c);
+    if (states[index] != state) {
+      count(states[index], -1);
+      count(state, 1);
+      states[index] = state;
+      int tile = (r / TILE_SIZE) * tileColumns + c / TILE_SIZE;
+      dirty[tile] = true;
+      changed[tile] = true;
+      markAround(r / TILE_SIZE, c / TILE_SIZE);
+    }
+  }
+
+  @Override
+  public void getStates(int[] out) {
+    for (int r = 0; r < height; r++) {
+      System.arraycopy(states, index(r, 0), out, r * width, width);
+    }
+  }
+
+  @Override
+  public long getCellsEvaluated() {
+    return cellsEvaluated;
+  }
+
+  @Override
+  public long getCellsChanged() {
+    return cellsChanged;
+  }
+
+  @Override
+  public void markChanged(DirtyTiles tiles) {
+    for (int tile = 0; tile < changed.length; tile++) {
+      if (changed[tile]) {
+        int top = (tile / tileColumns) * TILE_SIZE;
+        int left = (tile % tileColumns) * TILE_SIZE;
+        tiles.markArea(top, left, Math.min(height, top + TILE_SIZE), Math.min(width, left + TILE_SIZE));
+      }
+    }
+  }
+
+  @Override
+  public boolean wasChanged(int r, int c) {
+    return changed[(r / TILE_SIZE) * tileColumns + c / TILE_SIZE];
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public void getPopulations(int[] populations) {
+    copyPopulations(this.populations, populations);
+  }
+}
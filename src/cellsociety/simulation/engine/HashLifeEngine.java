@@ -0,0 +1,587 @@
+package cellsociety.simulation.engine;
+
+import cellsociety.simulation.cell.StateRule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Steps an infinite plane of states with the HashLife algorithm. The plane is a quadtree whose
+ * nodes are hash-consed, so every distinct square of states is only stored once, and each node remembers
+ * its center half after being stepped forward. Patterns that repeat in space or time are then only ever
+ * computed once, letting a single step() move forward 2^stepLog generations.
+ *
+ * Remembered results are only valid for one step size and one set of rule parameters, so each result is
+ * stamped with the version of the rule it was made with, and results with an older stamp are ignored. The
+ * number of stored nodes is checked each time a node is added, even in the middle of a step. Past the limit,
+ * every node that is not part of the plane being stepped is dropped from the table, along with every
+ * remembered result. Nodes the step is still holding stay usable, so the step carries on and gives the same
+ * result. The next collection waits until the table has doubled from what was kept, so a plane bigger than
+ * the limit is not collected over and over.
+ *
+ * Nodes also remember how many of each state they hold once asked, so counting the populations after a step
+ * only visits the nodes that step made. Two state rules need no counting, since that is the population.
+ *
+ * The rows and columns seen through getState are a window onto the plane that always holds every non-zero
+ * state with a margin of 1, and grows (but never shrinks) as the states spread.
+ *
+ * Assumptions: See Engine. The rule is deterministic and quiescent, and the neighborhood is rectangular
+ * with a reach of 1 (see supports). Each call to step moves forward 2^stepLog generations instead of 1.
+ *
+ * Dependencies: Engine, Neighborhood, ChunkedEngine, StateRule
+ */
+public class HashLifeEngine extends Engine {
+
+  public static final int MAX_STEP_LOG = 48;
+  public static final int DEFAULT_MAX_NODES = 1 << 22;
+  private static final int MIN_LEVEL = 3;
+  private static final int MARGIN = 1;
+  private static final int BLOCK_SIZE = 4;
+
+  private StateRule rule;
+  private int[] rowOffsets;
+  private int[] columnOffsets;
+  private int[] slots;
+  private int[] neighborStates;
+  private int[] block = new int[BLOCK_SIZE * BLOCK_SIZE];
+  private int stepLog;
+  private int maxNodes = DEFAULT_MAX_NODES;
+  private int collectAt = DEFAULT_MAX_NODES;
+  private int ruleVersion;
+  private Map<Node, Node> nodes = new HashMap<>();
+  private List<Node> emptyNodes = new ArrayList<>();
+  private Node root;
+  private long rootRow;
+  private long rootColumn;
+  private int[] loading;
+  private long top;
+  private long left;
+  private long bottom;
+  private long right;
+  private boolean resized;
+
+  /**
+   * A square of 2^level by 2^level states. Level 0 nodes hold a single state, and all other nodes are made
+   * of four nodes one level down. Two nodes are equal if they have the same state or the same children,
+   * which is what lets the map of nodes hand out a single copy of each
+   */
+  private static final class Node {
+
+    private final int level;
+    private final int state;
+    private final Node nw;
+    private final Node ne;
+    private final Node sw;
+    private final Node se;
+    private final long population;
+    private final int hash;
+    private Node result;
+    private int resultVersion;
+    private long[] counts;
+
+    private Node(int state) {
+      level = 0;
+      this.state = state;
+      nw = ne = sw = se = null;
+      population = state == 0 ? 0 : 1;
+      hash = state;
+    }
+
+    private Node(Node nw, Node ne, Node sw, Node se) {
+      level = nw.level + 1;
+      state = 0;
+      this.nw = nw;
+      this.ne = ne;
+      this.sw = sw;
+      this.se = se;
+      population = nw.population + ne.population + sw.population + se.population;
+      int h = System.identityHashCode(nw);
+      h = h * 31 + System.identityHashCode(ne);
+      h = h * 31 + System.identityHashCode(sw);
+      hash = h * 31 + System.identityHashCode(se);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Node)) {
+        return false;
+      }
+      Node other = (Node) o;
+      return level == other.level && state == other.state && nw == other.nw && ne == other.ne
+          && sw == other.sw && se == other.se;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * Creates an engine with every state set to 0, and a window of the given size at the origin of the plane
+   * @param rule the rule used to plan every location
+   * @param neighborhood the neighborhood of the grid shape
+   * @param mask the neighbor mask of the simulation
+   * @param height number of rows in the window
+   * @param width number of columns in the window
+   * @param stepLog each step moves forward 2^stepLog generations
+   */
+  public HashLifeEngine(StateRule rule, Neighborhood neighborhood, int[] mask, int height, int width,
+      int stepLog) {
+    this.rule = rule;
+    Neighborhood masked = neighborhood.masked(mask);
+    rowOffsets = masked.getRowOffsets(0);
+    columnOffsets = masked.getColumnOffsets(0);
+    slots = masked.getSlots();
+    neighborStates = new int[masked.size()];
+    setStepLog(stepLog);
+    bottom = height;
+    right = width;
+    loading = new int[height * width];
+  }
+
+  /**
+   * Returns whether this engine can run a rule: it must be deterministic and quiescent, and every
+   * neighbor must be within 1 row and column on a grid where all locations share one offset table
+   * @param rule the rule to check
+   * @param neighborhood the neighborhood of the grid shape
+   * @return true if the rule can be stepped by this engine
+   */
+  public static boolean supports(StateRule rule, Neighborhood neighborhood) {
+    return rule.isDeterministic() && !neighborhood.hasParity() && neighborhood.getRowReach() <= 1
+        && neighborhood.getColumnReach() <= 1 && ChunkedEngine.isQuiescent(rule, neighborhood);
+  }
+
+  /**
+   * Sets how far each step moves, throwing away the remembered results if it changes
+   * @param log each step moves forward 2^log generations, up to 2^MAX_STEP_LOG
+   */
+  public void setStepLog(int log) {
+    int clamped = Math.max(0, Math.min(MAX_STEP_LOG, log));
+    if (clamped != stepLog) {
+      stepLog = clamped;
+      ruleChanged();
+    }
+  }
+
+  @Override
+  public long getGenerationsPerStep() {
+    return 1L << stepLog;
+  }
+
+  /**
+   * Sets the number of stored nodes past which the ones not in the plane are dropped
+   * @param max the number of nodes to keep at most, if the plane itself needs fewer
+   */
+  public void setMaxNodes(int max) {
+    maxNodes = max;
+    collectAt = max;
+  }
+
+  /**
+   * Returns the number of nodes stored, for checking the limit set by setMaxNodes
+   */
+  int getNodeCount() {
+    return nodes.size();
+  }
+
+  @Override
+  public void ruleChanged() {
+    ruleVersion++;
+  }
+
+  @Override
+  public boolean step() {
+    buildRoot();
+    while (root.level < stepLog + 2 || centered(root).population != root.population) {
+      expand();
+    }
+    expand();
+    long quarter = 1L << (root.level - 2);
+    root = advance(root);
+    rootRow += quarter;
+    rootColumn += quarter;
+    resized = false;
+    include(root, rootRow, rootColumn);
+    return resized;
+  }
+
+  /**
+   * Returns the center half of a node moved forward 2^min(stepLog, level - 2) generations
+   */
+  private Node advance(Node node) {
+    if (node.result != null && node.resultVersion == ruleVersion) {
+      return node.result;
+    }
+    Node result;
+    if (node.population == 0) {
+      result = empty(node.level - 1);
+    } else if (node.level == 2) {
+      result = advanceBlock(node);
+    } else {
+      result = advanceQuadrants(node);
+    }
+    node.result = result;
+    node.resultVersion = ruleVersion;
+    return result;
+  }
+
+  private Node advanceQuadrants(Node node) {
+    Node n00 = advance(node.nw);
+    Node n01 = advance(horizontal(node.nw, node.ne));
+    Node n02 = advance(node.ne);
+    Node n10 = advance(vertical(node.nw, node.sw));
+    Node n11 = advance(centered(node));
+    Node n12 = advance(vertical(node.ne, node.se));
+    Node n20 = advance(node.sw);
+    Node n21 = advance(horizontal(node.sw, node.se));
+    Node n22 = advance(node.se);
+    Node nw = join(n00, n01, n10, n11);
+    Node ne = join(n01, n02, n11, n12);
+    Node sw = join(n10, n11, n20, n21);
+    Node se = join(n11, n12, n21, n22);
+    if (stepLog >= node.level - 2) {
+      return join(advance(nw), advance(ne), advance(sw), advance(se));
+    }
+    return join(centered(nw), centered(ne), centered(sw), centered(se));
+  }
+
+  /**
+   * Steps the center 2 by 2 of a 4 by 4 node forward one generation by asking the rule directly
+   */
+  private Node advanceBlock(Node node) {
+    Node[] quadrants = {node.nw, node.ne, node.sw, node.se};
+    for (int q = 0; q < quadrants.length; q++) {
+      int r = (q / 2) * 2;
+      int c = (q % 2) * 2;
+      block[r * BLOCK_SIZE + c] = quadrants[q].nw.state;
+      block[r * BLOCK_SIZE + c + 1] = quadrants[q].ne.state;
+      block[(r + 1) * BLOCK_SIZE + c] = quadrants[q].sw.state;
+      block[(r + 1) * BLOCK_SIZE + c + 1] = quadrants[q].se.state;
+    }
+    return join(leaf(planBlock(1, 1)), leaf(planBlock(1, 2)), leaf(planBlock(2, 1)),
+        leaf(planBlock(2, 2)));
+  }
+
+  private int planBlock(int r, int c) {
+    for (int i = 0; i < slots.length; i++) {
+      neighborStates[slots[i]] = block[(r + rowOffsets[i]) * BLOCK_SIZE + c + columnOffsets[i]];
+    }
+    return rule.planState(block[r * BLOCK_SIZE + c], neighborStates);
+  }
+
+  private Node intern(Node node) {
+    Node existing = nodes.putIfAbsent(node, node);
+    if (existing != null) {
+      return existing;
+    }
+    if (nodes.size() > collectAt) {
+      collect();
+    }
+    return node;
+  }
+
+  private Node leaf(int state) {
+    return intern(new Node(state));
+  }
+
+  private Node join(Node nw, Node ne, Node sw, Node se) {
+    return intern(new Node(nw, ne, sw, se));
+  }
+
+  private Node empty(int level) {
+    while (emptyNodes.size() <= level) {
+      if (emptyNodes.isEmpty()) {
+        emptyNodes.add(leaf(0));
+      } else {
+        Node smaller = emptyNodes.get(emptyNodes.size() - 1);
+        emptyNodes.add(join(smaller, smaller, smaller, smaller));
+      }
+    }
+    return emptyNodes.get(level);
+  }
+
+  /**
+   * Returns the node one level down centered on the given node
+   */
+  private Node centered(Node node) {
+    return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+  }
+
+  /**
+   * Returns the node one level down centered on the border between two side by side nodes
+   */
+  private Node horizontal(Node west, Node east) {
+    return join(west.ne, east.nw, west.se, east.sw);
+  }
+
+  /**
+   * Returns the node one level down centered on the border between two stacked nodes
+   */
+  private Node vertical(Node north, Node south) {
+    return join(north.sw, north.se, south.nw, south.ne);
+  }
+
+  /**
+   * Doubles the size of the root, keeping it centered on the same part of the plane
+   */
+  private void expand() {
+    Node border = empty(root.level - 1);
+    long half = 1L << (root.level - 1);
+    root = join(join(border, border, border, root.nw), join(border, border, root.ne, border),
+        join(border, root.sw, border, border), join(root.se, border, border, border));
+    rootRow -= half;
+    rootColumn -= half;
+  }
+
+  /**
+   * Drops every node that is not part of the plane, and every remembered result. During a step the root is
+   * still the plane being stepped, so it is kept whole
+   */
+  private void collect() {
+    Map<Node, Node> kept = new HashMap<>();
+    for (Node node : emptyNodes) {
+      keep(node, kept);
+    }
+    if (root != null) {
+      keep(root, kept);
+    }
+    nodes = kept;
+    collectAt = Math.max(maxNodes, 2 * kept.size());
+  }
+
+  private void keep(Node node, Map<Node, Node> kept) {
+    if (kept.putIfAbsent(node, node) != null) {
+      return;
+    }
+    node.result = null;
+    if (node.level > 0) {
+      keep(node.nw, kept);
+      keep(node.ne, kept);
+      keep(node.sw, kept);
+      keep(node.se, kept);
+    }
+  }
+
+  /**
+   * Turns the states set before the first step into a quadtree
+   */
+  private void buildRoot() {
+    if (root != null) {
+      return;
+    }
+    int level = MIN_LEVEL;
+    while ((1L << level) < Math.max(getHeight(), getWidth())) {
+      level++;
+    }
+    root = build(level, 0, 0);
+    loading = null;
+  }
+
+  private Node build(int level, int r, int c) {
+    if (r >= getHeight() || c >= getWidth()) {
+      return empty(level);
+    }
+    if (level == 0) {
+      return leaf(loading[r * getWidth() + c]);
+    }
+    int half = 1 << (level - 1);
+    return join(build(level - 1, r, c), build(level - 1, r, c + half), build(level - 1, r + half, c),
+        build(level - 1, r + half, c + half));
+  }
+
+  private Node set(Node node, long r, long c, int state) {
+    if (node.level == 0) {
+      return leaf(state);
+    }
+    long half = 1L << (node.level - 1);
+    if (r < half) {
+      if (c < half) {
+        return join(set(node.nw, r, c, state), node.ne, node.sw, node.se);
+      }
+      return join(node.nw, set(node.ne, r, c - half, state), node.sw, node.se);
+    }
+    if (c < half) {
+      return join(node.nw, node.ne, set(node.sw, r - half, c, state), node.se);
+    }
+    return join(node.nw, node.ne, node.sw, set(node.se, r - half, c - half, state));
+  }
+
+  /**
+   * Grows the window to hold the non-zero states of a node, only looking inside nodes that are not
+   * already well inside of the window
+   */
+  private void include(Node node, long row, long column) {
+    if (node.population == 0) {
+      return;
+    }
+    long size = 1L << node.level;
+    if (row - MARGIN >= top && row + size + MARGIN <= bottom
+        && column - MARGIN >= left && column + size + MARGIN <= right) {
+      return;
+    }
+    if (node.level == 0) {
+      growWindow(row, column);
+      return;
+    }
+    long half = size / 2;
+    include(node.nw, row, column);
+    include(node.ne, row, column + half);
+    include(node.sw, row + half, column);
+    include(node.se, row + half, column + half);
+  }
+
+  private void growWindow(long r, long c) {
+    if (r - MARGIN < top) {
+      top = r - MARGIN;
+      resized = true;
+    }
+    if (r + MARGIN >= bottom) {
+      bottom = r + MARGIN + 1;
+      resized = true;
+    }
+    if (c - MARGIN < left) {
+      left = c - MARGIN;
+      resized = true;
+    }
+    if (c + MARGIN >= right) {
+      right = c + MARGIN + 1;
+      resized = true;
+    }
+  }
+
+  private boolean inRoot(long r, long c) {
+    long size = 1L << root.level;
+    return r >= rootRow && r < rootRow + size && c >= rootColumn && c < rootColumn + size;
+  }
+
+  @Override
+  public int getState(int r, int c) {
+    if (root == null) {
+      return loading[r * getWidth() + c];
+    }
+    long planeRow = top + r;
+    long planeColumn = left + c;
+    if (!inRoot(planeRow, planeColumn)) {
+      return 0;
+    }
+    long row = planeRow - rootRow;
+    long column = planeColumn - rootColumn;
+    Node node = root;
+    while (node.level > 0 && node.population != 0) {
+      long half = 1L << (node.level - 1);
+      if (row < half) {
+        node = column < half ? node.nw : node.ne;
+      } else {
+        node = column < half ? node.sw : node.se;
+        row -= half;
+      }
+      if (column >= half) {
+        column -= half;
+      }
+    }
+    return node.state;
+  }
+
+  /**
+   * Copies the window out of the quadtree in one walk, skipping every node that is empty or outside of the
+   * window, instead of walking down from the root for each location
+   */
+  @Override
+  public void getStates(int[] out) {
+    int width = getWidth();
+    int height = getHeight();
+    if (root == null) {
+      System.arraycopy(loading, 0, out, 0, width * height);
+      return;
+    }
+    Arrays.fill(out, 0, width * height, 0);
+    copyStates(root, rootRow, rootColumn, out);
+  }
+
+  private void copyStates(Node node, long row, long column, int[] out) {
+    long size = 1L << node.level;
+    if (node.population == 0 || row >= bottom || row + size <= top || column >= right
+        || column + size <= left) {
+      return;
+    }
+    if (node.level == 0) {
+      out[(int) ((row - top) * getWidth() + column - left)] = node.state;
+      return;
+    }
+    long half = size / 2;
+    copyStates(node.nw, row, column, out);
+    copyStates(node.ne, row, column + half, out);
+    copyStates(node.sw, row + half, column, out);
+    copyStates(node.se, row + half, column + half, out);
+  }
+
+  @Override
+  public void setState(int r, int c, int state) {
+    if (root == null) {
+      loading[r * getWidth() + c] = state;
+      return;
+    }
+    long planeRow = top + r;
+    long planeColumn = left + c;
+    while (!inRoot(planeRow, planeColumn)) {
+      expand();
+    }
+    root = set(root, planeRow - rootRow, planeColumn - rootColumn, state);
+  }
+
+  @Override
+  public int getWidth() {
+    return (int) Math.min(Integer.MAX_VALUE, right - left);
+  }
+
+  @Override
+  public int getHeight() {
+    return (int) Math.min(Integer.MAX_VALUE, bottom - top);
+  }
+
+  @Override
+  public void getPopulations(int[] populations) {
+    buildRoot();
+    Arrays.fill(populations, 0);
+    long live = root.population;
+    if (populations.length == 2) {
+      populations[1] = (int) live;
+    } else if (populations.length > 2) {
+      long[] counts = count(root, populations.length);
+      for (int i = 1; i < populations.length; i++) {
+        populations[i] = (int) counts[i];
+      }
+    }
+    populations[0] = (int) ((long) getWidth() * getHeight() - live);
+  }
+
+  /**
+   * Counts the non-zero states in a node, remembering the counts on each node so that no node is ever
+   * counted twice
+   */
+  private long[] count(Node node, int states) {
+    if (node.counts != null && node.counts.length >= states) {
+      return node.counts;
+    }
+    long[] ret = new long[states];
+    if (node.level == 0) {
+      if (node.state < states) {
+        ret[node.state] = 1;
+      }
+    } else if (node.population != 0) {
+      for (Node child : new Node[]{node.nw, node.ne, node.sw, node.se}) {
+        long[] childCounts = count(child, states);
+        for (int i = 0; i < states; i++) {
+          ret[i] += childCounts[i];
+        }
+      }
+    }
+    node.counts = ret;
+    return ret;
+  }
+}
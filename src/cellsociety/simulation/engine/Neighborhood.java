@@ -0,0 +1,194 @@
+package cellsociety.simulation.engine;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Holds where the neighbors of a location are for a grid shape, as one table of row and column
+ * offsets per parity. Hexagonal grids use a different table for odd columns, and triangular grids use a
+ * different table for triangles pointing down. Built once per shape, so finding neighbors never allocates.
+ *
+ * A neighbor mask is compiled into a masked neighborhood, whose tables only list the masked in neighbors.
+ * Each listed neighbor has a slot, its position in the full clockwise order, which is where its state goes
+ * in the array given to the rule. Masked out slots are never written, so they keep whatever the array was
+ * filled with.
+ *
+ * Assumptions: Every parity has the same number of neighbors, listed starting with the northmost and
+ * rotating clockwise. The tables are never modified after construction.
+ *
+ * Dependencies: None
+ */
+public class Neighborhood {
+
+  public static final int NO_PARITY = 0;
+  public static final int COLUMN_PARITY = 1;
+  public static final int CHECKER_PARITY = 2;
+
+  private final int[][] rowOffsets;
+  private final int[][] columnOffsets;
+  private final int parityType;
+  private final int rowReach;
+  private final int columnReach;
+  private final int size;
+  private final int[] slots;
+
+  /**
+   * Creates a neighborhood
+   * @param rowOffsets the row offsets of the neighbors, one array per parity
+   * @param columnOffsets the column offsets of the neighbors, one array per parity
+   * @param parityType how the parity of a location is found: NO_PARITY, COLUMN_PARITY, or CHECKER_PARITY
+   */
+  public Neighborhood(int[][] rowOffsets, int[][] columnOffsets, int parityType) {
+    this(rowOffsets, columnOffsets, parityType, rowOffsets[0].length, null);
+  }
+
+  private Neighborhood(int[][] rowOffsets, int[][] columnOffsets, int parityType, int size, int[] slots) {
+    this.rowOffsets = rowOffsets;
+    this.columnOffsets = columnOffsets;
+    this.parityType = parityType;
+    this.size = size;
+    if (slots == null) {
+      slots = new int[size];
+      for (int i = 0; i < size; i++) {
+        slots[i] = i;
+      }
+    }
+    this.slots = slots;
+    rowReach = findReach(rowOffsets);
+    columnReach = findReach(columnOffsets);
+  }
+
+  /**
+   * Returns this neighborhood with the neighbors that the mask leaves out removed from the tables. Masks
+   * that are null or do not have one entry per neighbor leave every neighbor in
+   * @param mask the neighbor mask, where 0 leaves a neighbor out
+   * @return the masked neighborhood, or this neighborhood if nothing is left out
+   */
+  public Neighborhood masked(int[] mask) {
+    if (mask == null || mask.length != size) {
+      return this;
+    }
+    int count = 0;
+    for (int in : mask) {
+      count += in == 0 ? 0 : 1;
+    }
+    if (count == size) {
+      return this;
+    }
+    int[] maskedSlots = new int[count];
+    int[][] maskedRows = new int[rowOffsets.length][count];
+    int[][] maskedColumns = new int[columnOffsets.length][count];
+    for (int i = 0, j = 0; i < size; i++) {
+      if (mask[i] == 0) {
+        continue;
+      }
+      maskedSlots[j] = slots[i];
+      for (int p = 0; p < rowOffsets.length; p++) {
+        maskedRows[p][j] = rowOffsets[p][i];
+        maskedColumns[p][j] = columnOffsets[p][i];
+      }
+      j++;
+    }
+    return new Neighborhood(maskedRows, maskedColumns, parityType, size, maskedSlots);
+  }
+
+  private static int findReach(int[][] offsets) {
+    int reach = 0;
+    for (int[] table : offsets) {
+      for (int offset : table) {
+        reach = Math.max(reach, Math.abs(offset));
+      }
+    }
+    return reach;
+  }
+
+  /**
+   * Returns which offset table the location r,c uses
+   * @param r row of the location
+   * @param c column of the location
+   * @return the parity of the location
+   */
+  public int getParity(int r, int c) {
+    if (parityType == COLUMN_PARITY) {
+      return c & 1;
+    }
+    if (parityType == CHECKER_PARITY) {
+      return (r + c) & 1;
+    }
+    return 0;
+  }
+
+  /**
+   * Returns whether or not different locations use different offset tables
+   * @return true if the parity of a location matters
+   */
+  public boolean hasParity() {
+    return parityType != NO_PARITY;
+  }
+
+  /**
+   * Returns the number of neighbors of every location, counting masked out neighbors. This is the length of
+   * the array given to the rule
+   * @return the number of neighbors of every location
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the slot of each listed neighbor in the array given to the rule. The returned array must not be
+   * modified
+   * @return the slots of the listed neighbors, in the order of the offset tables
+   */
+  public int[] getSlots() {
+    return slots;
+  }
+
+  /**
+   * Returns the row offsets for a parity, for the listed neighbors only. The returned array must not be modified
+   * @param parity the parity, from getParity
+   * @return the row offsets of the neighbors
+   */
+  public int[] getRowOffsets(int parity) {
+    return rowOffsets[parity];
+  }
+
+  /**
+   * Returns the column offsets for a parity, for the listed neighbors only. The returned array must not be modified
+   * @param parity the parity, from getParity
+   * @return the column offsets of the neighbors
+   */
+  public int[] getColumnOffsets(int parity) {
+    return columnOffsets[parity];
+  }
+
+  /**
+   * Returns the offsets of the neighbors into a row-major array with the given row length, one array per parity
+   * @param stride the length of a row of the array
+   * @return an int[parity][neighbor] of offsets into the array
+   */
+  public int[][] getIndexOffsets(int stride) {
+    int[][] ret = new int[rowOffsets.length][slots.length];
+    for (int p = 0; p < ret.length; p++) {
+      for (int i = 0; i < ret[p].length; i++) {
+        ret[p][i] = rowOffsets[p][i] * stride + columnOffsets[p][i];
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the largest distance in rows between a location and one of its neighbors
+   * @return the largest row offset
+   */
+  public int getRowReach() {
+    return rowReach;
+  }
+
+  /**
+   * Returns the largest distance in columns between a location and one of its neighbors
+   * @return the largest column offset
+   */
+  public int getColumnReach() {
+    return columnReach;
+  }
+}
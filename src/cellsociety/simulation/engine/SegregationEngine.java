@@ -0,0 +1,296 @@
+package cellsociety.simulation.engine;
+
+import cellsociety.metrics.StepMetrics;
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.cell.CounterRandom;
+import cellsociety.simulation.cell.SegregationCell;
+import java.util.Arrays;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Steps Schelling segregation simulations without a Cell object or a queue of empty cells per
+ * location. The empty locations are kept in a pool: an int[] of their indices, and an int[] giving where each
+ * location sits in the pool, so a uniformly random empty location can be taken out, and a location put in,
+ * in constant time. The pool is kept up to date as agents move, so it is never rebuilt between steps.
+ *
+ * Locations are planned in row-major order, as in SegregationCell: an unhappy agent moves into a random
+ * location of the pool, and the location it leaves joins the pool for the agents after it. The pass is timed
+ * as the plan phase of StepMetrics, and the locations each move changes are counted as it is made.
+ *
+ * Assumptions: See Engine. The cell passes supports. Locations are planned in order, since every move depends
+ * on the moves before it, so the engine always steps on the calling thread.
+ *
+ * Dependencies: Engine, Neighborhood, Cell, SegregationCell, CounterRandom, StepMetrics
+ */
+public class SegregationEngine extends Engine {
+
+  private static final int EMPTY = 0;
+  private static final int UNPLANNED = -1;
+  private static final int NOT_EMPTY = -1;
+
+  private Cell cell;
+  private Neighborhood neighborhood;
+  private int[][] indexOffsets;
+  private int rowReach;
+  private int columnReach;
+  private int defaultEdge;
+  private int width;
+  private int height;
+  private int[] states;
+  private int[] nextStates;
+  private int[] pool;
+  private int[] poolPositions;
+  private int poolSize;
+  private int[] populations = new int[1];
+  private int[] moved = new int[0];
+  private int movedCount;
+  private double happinessThresh;
+  private long cellsChanged;
+
+  /**
+   * Creates an engine with every location empty
+   * @param cell the cell holding the parameters of the simulation, which must pass supports
+   * @param neighborhood the neighborhood of the grid shape
+   * @param height number of rows
+   * @param width number of columns
+   */
+  public SegregationEngine(Cell cell, Neighborhood neighborhood, int height, int width) {
+    this.cell = cell;
+    this.neighborhood = neighborhood.masked(cell.getMask());
+    defaultEdge = cell.getDefaultEdge();
+    this.height = height;
+    this.width = width;
+    indexOffsets = this.neighborhood.getIndexOffsets(width);
+    rowReach = this.neighborhood.getRowReach();
+    columnReach = this.neighborhood.getColumnReach();
+    states = new int[height * width];
+    nextStates = new int[height * width];
+    pool = new int[height * width];
+    poolPositions = new int[height * width];
+    for (int i = 0; i < pool.length; i++) {
+      pool[i] = i;
+      poolPositions[i] = i;
+    }
+    poolSize = pool.length;
+    populations[EMPTY] = height * width;
+    ruleChanged();
+  }
+
+  /**
+   * Returns whether this engine can step a simulation: the cells must be SegregationCells, and the edge must
+   * be toroidal or a state, since infinite grids grow
+   * @param cell a cell of the simulation
+   * @return true if the simulation can be stepped by this engine
+   */
+  public static boolean supports(Cell cell) {
+    return cell instanceof SegregationCell && cell.getDefaultEdge() != Cell.INFINTE;
+  }
+
+  @Override
+  public void ruleChanged() {
+    happinessThresh = cell.getParam(SegregationCell.HAPPINESS_THRESH);
+  }
+
+  @Override
+  public boolean step() {
+    long start = StepMetrics.start();
+    Arrays.fill(nextStates, UNPLANNED);
+    movedCount = 0;
+    cellsChanged = 0;
+    CounterRandom cursor = CounterRandom.current();
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        int index = r * width + c;
+        int state = states[index];
+        if (state != EMPTY) {
+          if (happy(r, c, index) || poolSize == 0) {
+            nextStates[index] = state;
+          } else {
+            cursor.moveTo(seed, generation, index);
+            int empty = takeFromPool(cursor.nextInt(poolSize));
+            nextStates[empty] = state;
+            nextStates[index] = EMPTY;
+            addToPool(index);
+            addMoved(index, empty);
+            countChanges(empty, state);
+          }
+        } else if (nextStates[index] == UNPLANNED) {
+          nextStates[index] = EMPTY;
+        }
+      }
+    }
+    generation++;
+    StepMetrics.stop(StepMetrics.PLAN, start);
+    start = StepMetrics.start();
+    int[] temp = states;
+    states = nextStates;
+    nextStates = temp;
+    StepMetrics.stop(StepMetrics.COMMIT, start);
+    return false;
+  }
+
+  /**
+   * Counts the locations changed by an agent moving into an empty location. The location it left always
+   * changes. The location it moves into changes unless another agent of the same type left it in this step
+   */
+  private void countChanges(int empty, int state) {
+    cellsChanged++;
+    if (states[empty] == EMPTY) {
+      cellsChanged++;
+    } else if (states[empty] == state) {
+      cellsChanged--;
+    }
+  }
+
+  /**
+   * Returns whether the agent at r,c has more than happinessThresh of its non-empty neighbors of its own type,
+   * as SegregationCell does
+   */
+  private boolean happy(int r, int c, int index) {
+    double total = 0;
+    double same = 0;
+    int parity = neighborhood.getParity(r, c);
+    boolean inside = r >= rowReach && r < height - rowReach && c >= columnReach && c < width - columnReach;
+    int[] offsets = indexOffsets[parity];
+    int[] dr = neighborhood.getRowOffsets(parity);
+    int[] dc = neighborhood.getColumnOffsets(parity);
+    for (int i = 0; i < offsets.length; i++) {
+      int neighborState = inside ? states[index + offsets[i]] : getNeighborState(r + dr[i], c + dc[i]);
+      if (neighborState > EMPTY) {
+        total++;
+      }
+      if (neighborState == states[index]) {
+        same++;
+      }
+    }
+    return total == 0 || (same / total) > happinessThresh;
+  }
+
+  private int getNeighborState(int r, int c) {
+    if (defaultEdge != Cell.TOROIDAL && (r < 0 || r >= height || c < 0 || c >= width)) {
+      return defaultEdge;
+    }
+    while (r < 0) {
+      r += height;
+    }
+    while (r >= height) {
+      r -= height;
+    }
+    while (c < 0) {
+      c += width;
+    }
+    while (c >= width) {
+      c -= width;
+    }
+    return states[r * width + c];
+  }
+
+  /**
+   * Takes the location at a position of the pool out of the pool, moving the last location of the pool
+   * into its place
+   */
+  private int takeFromPool(int position) {
+    int index = pool[position];
+    poolSize--;
+    pool[position] = pool[poolSize];
+    poolPositions[pool[position]] = position;
+    poolPositions[index] = NOT_EMPTY;
+    return index;
+  }
+
+  private void addToPool(int index) {
+    pool[poolSize] = index;
+    poolPositions[index] = poolSize;
+    poolSize++;
+  }
+
+  /**
+   * Returns the number of empty locations in the pool, for tests
+   */
+  int getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * Returns the location at a position of the pool, for tests
+   */
+  int getPooled(int position) {
+    return pool[position];
+  }
+
+  /**
+   * Returns the position of a location in the pool, or -1 if it is not there, for tests
+   */
+  int getPoolPosition(int index) {
+    return poolPositions[index];
+  }
+
+  private void count(int state, int change) {
+    if (state >= populations.length) {
+      populations = Arrays.copyOf(populations, state + 1);
+    }
+    populations[state] += change;
+  }
+
+  @Override
+  public int getState(int r, int c) {
+    return states[r * width + c];
+  }
+
+  @Override
+  public void setState(int r, int c, int state) {
+    int index = r * width + c;
+    if (states[index] == EMPTY && state != EMPTY) {
+      takeFromPool(poolPositions[index]);
+    } else if (states[index] != EMPTY && state == EMPTY) {
+      addToPool(index);
+    }
+    count(states[index], -1);
+    count(state, 1);
+    states[index] = state;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  private void addMoved(int from, int to) {
+    if (movedCount + 2 > moved.length) {
+      moved = Arrays.copyOf(moved, Math.max(2 * moved.length, 2 * Long.SIZE));
+    }
+    moved[movedCount++] = from;
+    moved[movedCount++] = to;
+  }
+
+  /**
+   * Marks the tiles of the locations agents moved from and to in the last step
+   */
+  @Override
+  public void markChanged(DirtyTiles tiles) {
+    for (int i = 0; i < movedCount; i++) {
+      tiles.mark(moved[i] / width, moved[i] % width);
+    }
+  }
+
+  @Override
+  public long getCellsEvaluated() {
+    return (long) width * height;
+  }
+
+  @Override
+  public long getCellsChanged() {
+    return cellsChanged;
+  }
+
+  @Override
+  public void getPopulations(int[] populations) {
+    copyPopulations(this.populations, populations);
+  }
+}
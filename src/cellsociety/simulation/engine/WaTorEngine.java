@@ -0,0 +1,344 @@
+package cellsociety.simulation.engine;
+
+import cellsociety.metrics.StepMetrics;
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.cell.CounterRandom;
+import cellsociety.simulation.cell.WaTorCell;
+import java.util.Arrays;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Steps WaTor simulations without a Cell object or a queue of cells per location. The state, energy
+ * and breeding timer of every location are kept in primitive arrays, and which locations have already been
+ * moved into or out of is kept in a bitset, so a step is a single pass over the ocean in row-major order.
+ *
+ * The pass does exactly what WaTorCell does when a Grid steps it: a location that has already been moved into
+ * is skipped, fish move into a random open neighbor, sharks eat a random fish neighbor or else move into a
+ * random open one, energies and timers move with the creatures, and new fish and sharks are left behind when
+ * the timers run out. Locations draw from the same CounterRandom cursor, so both give the same oceans for the
+ * same seed.
+ *
+ * Populations count the planned state of every location, which is its next state once planned and its current
+ * state until then. Every plan that changes a location moves one count over, so populations are right once
+ * the pass is done, without counting the ocean again. The locations whose plan differs from their current
+ * state are counted the same way, for metrics. The pass is timed as the plan phase of StepMetrics, and
+ * copying the planned states as the commit phase.
+ *
+ * Assumptions: See Engine. The cell passes supports. Locations are planned in order, since every move depends
+ * on the moves before it, so the engine always steps on the calling thread.
+ *
+ * Dependencies: Engine, Neighborhood, Cell, WaTorCell, CounterRandom, StepMetrics
+ */
+public class WaTorEngine extends Engine {
+
+  private static final int WATER = 0;
+  private static final int FISH = 1;
+  private static final int SHARK = 2;
+  private static final int UNPLANNED = -1;
+  private static final int WORD_SHIFT = 6;
+
+  private Cell cell;
+  private Neighborhood neighborhood;
+  private int[] slots;
+  private int[][] indexOffsets;
+  private int rowReach;
+  private int columnReach;
+  private int defaultEdge;
+  private int width;
+  private int height;
+  private int[] states;
+  private int[] nextStates;
+  private double[] energy;
+  private double[] timer;
+  private long[] moved;
+  private int[] open;
+  private int[] fish;
+  private int[] populations = new int[SHARK + 1];
+  private long cellsEvaluated;
+  private long cellsChanged;
+  private double fishBreedTime;
+  private double sharkBreedTime;
+  private double fishFeedEnergy;
+  private double sharkStartEnergy;
+
+  /**
+   * Creates an engine with every location water
+   * @param cell the cell holding the parameters of the simulation, which must pass supports
+   * @param neighborhood the neighborhood of the grid shape
+   * @param height number of rows
+   * @param width number of columns
+   */
+  public WaTorEngine(Cell cell, Neighborhood neighborhood, int height, int width) {
+    this.cell = cell;
+    this.neighborhood = neighborhood.masked(cell.getMask());
+    slots = this.neighborhood.getSlots();
+    defaultEdge = cell.getDefaultEdge();
+    this.height = height;
+    this.width = width;
+    indexOffsets = this.neighborhood.getIndexOffsets(width);
+    rowReach = this.neighborhood.getRowReach();
+    columnReach = this.neighborhood.getColumnReach();
+    states = new int[height * width];
+    nextStates = new int[height * width];
+    energy = new double[height * width];
+    timer = new double[height * width];
+    moved = new long[(height * width + Long.SIZE - 1) >>> WORD_SHIFT];
+    open = new int[slots.length];
+    fish = new int[slots.length];
+    populations[WATER] = height * width;
+    ruleChanged();
+  }
+
+  /**
+   * Returns whether this engine can step a simulation: the cells must be WaTorCells, and the edge must be
+   * toroidal or a state that is neither water nor fish, so that nothing ever moves past the border
+   * @param cell a cell of the simulation
+   * @return true if the simulation can be stepped by this engine
+   */
+  public static boolean supports(Cell cell) {
+    return cell instanceof WaTorCell
+        && (cell.getDefaultEdge() == Cell.TOROIDAL || cell.getDefaultEdge() > FISH);
+  }
+
+  @Override
+  public void ruleChanged() {
+    fishBreedTime = cell.getParam(WaTorCell.FISH_BREED_TIME);
+    sharkBreedTime = cell.getParam(WaTorCell.SHARK_BREED_TIME);
+    fishFeedEnergy = cell.getParam(WaTorCell.FISH_FEED_ENERGY);
+    sharkStartEnergy = cell.getParam(WaTorCell.SHARK_START_ENERGY);
+  }
+
+  @Override
+  public boolean step() {
+    long start = StepMetrics.start();
+    Arrays.fill(nextStates, UNPLANNED);
+    Arrays.fill(moved, 0);
+    cellsEvaluated = 0;
+    cellsChanged = 0;
+    CounterRandom cursor = CounterRandom.current();
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        int index = r * width + c;
+        if (!isMoved(index)) {
+          plan(r, c, index, cursor);
+          cellsEvaluated++;
+        }
+      }
+    }
+    generation++;
+    StepMetrics.stop(StepMetrics.PLAN, start);
+    start = StepMetrics.start();
+    for (int i = 0; i < states.length; i++) {
+      if (nextStates[i] != UNPLANNED) {
+        states[i] = nextStates[i];
+      }
+    }
+    StepMetrics.stop(StepMetrics.COMMIT, start);
+    return false;
+  }
+
+  private void plan(int r, int c, int index, CounterRandom cursor) {
+    int openCount = 0;
+    int fishCount = 0;
+    timer[index]--;
+    if (states[index] == WATER) {
+      if (nextStates[index] == UNPLANNED) {
+        nextStates[index] = WATER;
+      }
+      return;
+    }
+    int parity = neighborhood.getParity(r, c);
+    boolean inside = r >= rowReach && r < height - rowReach && c >= columnReach && c < width - columnReach;
+    int[] offsets = indexOffsets[parity];
+    int[] dr = neighborhood.getRowOffsets(parity);
+    int[] dc = neighborhood.getColumnOffsets(parity);
+    for (int i = 0; i < offsets.length; i++) {
+      int neighbor = inside ? index + offsets[i] : findNeighbor(r + dr[i], c + dc[i]);
+      if (neighbor < 0) {
+        continue;
+      }
+      if (states[neighbor] == WATER) {
+        open[openCount++] = neighbor;
+      } else if (states[neighbor] == FISH) {
+        fish[fishCount++] = neighbor;
+      }
+    }
+    cursor.moveTo(seed, generation, index);
+    if (states[index] == FISH) {
+      planFish(index, openCount, cursor);
+    } else if (states[index] == SHARK) {
+      energy[index]--;
+      if (energy[index] <= 0) {
+        planState(index, WATER);
+        return;
+      }
+      planShark(index, openCount, fishCount, cursor);
+    }
+  }
+
+  private void planFish(int index, int openCount, CounterRandom cursor) {
+    if (openCount == 0) {
+      planState(index, FISH);
+      return;
+    }
+    int target = open[cursor.nextInt(openCount)];
+    setMoved(target);
+    if (nextStates[target] > WATER) {
+      planState(index, FISH);
+      return;
+    }
+    swap(index, target);
+    if (timer[target] <= 0) {
+      planState(index, FISH);
+      planState(target, FISH);
+      timer[index] = fishBreedTime;
+      timer[target] = fishBreedTime;
+    }
+  }
+
+  private void planShark(int index, int openCount, int fishCount, CounterRandom cursor) {
+    if (fishCount == 0 && openCount == 0) {
+      planState(index, SHARK);
+      return;
+    }
+    int target = fishCount > 0 ? fish[cursor.nextInt(fishCount)] : open[cursor.nextInt(openCount)];
+    setMoved(target);
+    if (nextStates[target] > FISH) {
+      planState(index, SHARK);
+      return;
+    }
+    if (states[target] == FISH) {
+      energy[index] += fishFeedEnergy;
+    }
+    swap(index, target);
+    planState(index, WATER);
+    if (timer[target] <= 0) {
+      planState(index, SHARK);
+      energy[index] = sharkStartEnergy;
+      timer[index] = sharkBreedTime;
+      timer[target] = sharkStartEnergy;
+    }
+  }
+
+  /**
+   * Moves the creature at index to target, as Cell.swap does: the energies and timers trade places, and the
+   * two locations plan to take each other's states
+   */
+  private void swap(int index, int target) {
+    double temp = energy[index];
+    energy[index] = energy[target];
+    energy[target] = temp;
+    temp = timer[index];
+    timer[index] = timer[target];
+    timer[target] = temp;
+    planState(target, states[index]);
+    planState(index, states[target]);
+  }
+
+  /**
+   * Plans the next state of a location, moving its count in populations from the state it was planned to have,
+   * and counting the location as changed while its plan differs from its current state
+   */
+  private void planState(int index, int state) {
+    int planned = nextStates[index] == UNPLANNED ? states[index] : nextStates[index];
+    if (planned != state) {
+      count(planned, -1);
+      count(state, 1);
+      if (planned == states[index]) {
+        cellsChanged++;
+      } else if (state == states[index]) {
+        cellsChanged--;
+      }
+    }
+    nextStates[index] = state;
+  }
+
+  /**
+   * Returns the index of the location at r,c wrapped around the ocean, or -1 if it is past a fixed border
+   */
+  private int findNeighbor(int r, int c) {
+    if (defaultEdge != Cell.TOROIDAL && (r < 0 || r >= height || c < 0 || c >= width)) {
+      return -1;
+    }
+    while (r < 0) {
+      r += height;
+    }
+    while (r >= height) {
+      r -= height;
+    }
+    while (c < 0) {
+      c += width;
+    }
+    while (c >= width) {
+      c -= width;
+    }
+    return r * width + c;
+  }
+
+  private boolean isMoved(int index) {
+    return (moved[index >>> WORD_SHIFT] & (1L << index)) != 0;
+  }
+
+  private void setMoved(int index) {
+    moved[index >>> WORD_SHIFT] |= 1L << index;
+  }
+
+  private void count(int state, int change) {
+    if (state >= populations.length) {
+      populations = Arrays.copyOf(populations, state + 1);
+    }
+    populations[state] += change;
+  }
+
+  @Override
+  public int getState(int r, int c) {
+    return states[r * width + c];
+  }
+
+  /**
+   * Sets the state at r,c, along with the starting energy and timer of a new fish or shark, as
+   * WaTorCell.setState does
+   */
+  @Override
+  public void setState(int r, int c, int state) {
+    int index = r * width + c;
+    count(states[index], -1);
+    count(state, 1);
+    states[index] = state;
+    energy[index] = 0;
+    timer[index] = 0;
+    if (state == FISH) {
+      timer[index] = fishBreedTime;
+    }
+    if (state == SHARK) {
+      energy[index] = sharkStartEnergy;
+      timer[index] = sharkBreedTime;
+    }
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public long getCellsEvaluated() {
+    return cellsEvaluated;
+  }
+
+  @Override
+  public long getCellsChanged() {
+    return cellsChanged;
+  }
+
+  @Override
+  public void getPopulations(int[] populations) {
+    copyPopulations(this.populations, populations);
+  }
+}
@@ -1,16 +1,26 @@
 package cellsociety.simulation.grid;
 
 import cellsociety.exceptions.InvalidCellException;
+import cellsociety.metrics.StepMetrics;
 import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.cell.CellPool;
+import cellsociety.simulation.cell.CounterRandom;
 import cellsociety.simulation.cell.FireCell;
+import cellsociety.simulation.cell.StateRule;
+import cellsociety.simulation.engine.BitPackedEngine;
+import cellsociety.simulation.engine.ChunkedEngine;
+import cellsociety.simulation.engine.DirtyTiles;
+import cellsociety.simulation.engine.Engine;
+import cellsociety.simulation.engine.FlatEngine;
+import cellsociety.simulation.engine.HashLifeEngine;
+import cellsociety.simulation.engine.Neighborhood;
+import cellsociety.simulation.engine.SegregationEngine;
+import cellsociety.simulation.engine.WaTorEngine;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.Set;
 
 /**
  * @author Maverick Chung, mc608
@@ -18,22 +28,62 @@ import java.util.Set;
  * Purpose: Holds the cells in a two dimensional array. The relative positions in the arrays are used to
  * determine the neighbors of each cell for updating the states of the cells.
  *
+ * If flat storage is on and the cells implement StateRule, the states are instead kept in a FlatEngine,
+ * and a single cell is kept to hold the rule and the simulation parameters. Infinite grids of quiescent
+ * rules are kept in a ChunkedEngine instead, which only stores the parts of the plane that are active.
+ * These can be moved into a HashLifeEngine to step many generations at once, if the rule allows it. Two state
+ * rules on bordered rectangular grids are kept in a BitPackedEngine, 64 locations to a word. WaTor
+ * simulations that nothing can leave are kept in a WaTorEngine, and bordered segregation simulations in a
+ * SegregationEngine.
+ *
+ * The number of cells in each state is kept up to date as the grid steps: engines count as they step, and
+ * grids of Cell objects count while the cells take their next states. Listeners added with
+ * addPopulationListener are handed the populations after every update.
+ *
+ * Once getChangedTiles has been called, the grid marks the tiles of every cell changed by a step or an edit,
+ * so that views can repaint only those.
+ *
+ * Each phase of an update is timed by StepMetrics while metrics are on, along with the number of cells
+ * evaluated and changed.
+ *
  * Assumptions: All cells are non-null and are of the same type. All methods assume row, column values are valid.
  *
- * Dependencies: Cell, FireCell (used as default if things go wrong), InvalidCellException
+ * Dependencies: Cell, FireCell (used as default if things go wrong), InvalidCellException, Engine, FlatEngine,
+ * ChunkedEngine, HashLifeEngine, BitPackedEngine, WaTorEngine, SegregationEngine, CounterRandom, DirtyTiles,
+ * PopulationListener, StepMetrics
  */
 public abstract class Grid {
 
   public static final String CELL_PREFIX = "cellsociety.simulation.cell.";
   protected ArrayList<ArrayList<Cell>> grid;
-  private Set<Integer> states = new HashSet<>();
+  protected Engine engine;
+  protected final Neighborhood neighborhood;
+  private Cell[] neighborBuffer = new Cell[0];
+  private Neighborhood cellNeighborhood;
+  private int[] cellMask;
+  private Cell edgeCell;
+  private final CellPool emptyPool = new CellPool();
+  private Cell ruleCell;
+  private boolean flatStorage = false;
+  private int threads = Engine.DEFAULT_THREADS;
+  private long seed = CounterRandom.newSeed();
+  private long generation;
+  private int highestState;
+  private int[] populations = new int[1];
+  private boolean populationsCounted;
+  private List<PopulationListener> populationListeners = new ArrayList<>();
+  private DirtyTiles changedTiles;
 
-  public Grid() {
+  /**
+   * Creates an empty grid
+   * @param shape the neighborhood of the grid shape
+   */
+  public Grid(Neighborhood shape) {
     grid = new ArrayList<>();
+    neighborhood = shape;
   }
 
-  private static Cell getRandomCell(String className, Map<String, Double> paramMap,
-      double[] stateChances) throws ClassNotFoundException {
+  private static Cell makeCell(String className, Map<String, Double> paramMap) {
     Class cellClass = null;
     Cell cell = null;
     try {
@@ -46,21 +96,143 @@ public abstract class Grid {
     for (Map.Entry<String, Double> param : paramMap.entrySet()) {
       cell.setParam(param.getKey(), param.getValue());
     }
+    return cell;
+  }
+
+  private int getRandomState(double[] stateChances, int r, int c, int cols) {
     double chanceSum = 0;
     for (int i = 0; i < stateChances.length; i++) {
       chanceSum += stateChances[i];
     }
-    Random rand = new Random();
+    CounterRandom rand = CounterRandom.current();
+    rand.moveTo(seed, CounterRandom.SETUP_STEP, (long) r * cols + c);
     double roll = rand.nextDouble() * chanceSum;
-    int state = 0;
     for (int i = 0; i < stateChances.length; i++) {
       roll -= stateChances[i];
       if (roll <= 0) {
-        cell.setState(i);
-        break;
+        return i;
       }
     }
-    return cell;
+    return 0;
+  }
+
+  /**
+   * Turns flat storage on or off. With flat storage on, grids of cells implementing StateRule keep their
+   * states in a FlatEngine. Cells that have already been placed are moved into the engine.
+   * @param flat whether or not to use flat storage
+   */
+  public void setFlatStorage(boolean flat) {
+    flatStorage = flat;
+    if (flat && engine == null && !grid.isEmpty() && canUseEngine(getCell(0, 0))) {
+      Cell cell = getCell(0, 0);
+      int highestState = 0;
+      for (int r = 0; r < getHeight(); r++) {
+        for (int c = 0; c < getWidth(); c++) {
+          highestState = Math.max(highestState, getCell(r, c).getState());
+        }
+      }
+      useEngine(makeFlatEngine(cell, getHeight(), getWidth(), highestState));
+      for (int r = 0; r < getHeight(); r++) {
+        for (int c = 0; c < getWidth(); c++) {
+          engine.setState(r, c, getCell(r, c).getState());
+        }
+      }
+      ruleCell = cell;
+      grid.clear();
+    }
+  }
+
+  /**
+   * Sets the number of threads used to step grids kept in an engine. Grids of Cell objects always step on
+   * the calling thread, since their cells may change each other while planning
+   * @param count the number of threads, where 1 or less steps on the calling thread only
+   */
+  public void setThreads(int count) {
+    threads = count;
+    if (engine != null) {
+      engine.setThreads(threads);
+    }
+  }
+
+  /**
+   * Sets the seed that every random number drawn by the simulation is made from. Grids with the same seed,
+   * state chances and cells give the same results, no matter how many threads are used
+   * @param newSeed the seed of the simulation
+   */
+  public void setSeed(long newSeed) {
+    seed = newSeed;
+    if (engine != null) {
+      engine.setSeed(seed);
+    }
+  }
+
+  private void useEngine(Engine newEngine) {
+    engine = newEngine;
+    engine.setThreads(threads);
+    engine.setSeed(seed);
+  }
+
+  private static boolean canUseEngine(Cell cell) {
+    return cell instanceof StateRule || WaTorEngine.supports(cell) || SegregationEngine.supports(cell);
+  }
+
+  private Engine makeFlatEngine(Cell cell, int rows, int cols, int highestState) {
+    if (WaTorEngine.supports(cell)) {
+      return new WaTorEngine(cell, neighborhood, rows, cols);
+    }
+    if (SegregationEngine.supports(cell)) {
+      return new SegregationEngine(cell, neighborhood, rows, cols);
+    }
+    StateRule rule = (StateRule) cell;
+    if (highestState <= 1 && BitPackedEngine.supports(rule, neighborhood, cell.getDefaultEdge(), cell.getMask())) {
+      return new BitPackedEngine(rule, neighborhood, cell.getDefaultEdge(), cell.getMask(), rows, cols);
+    }
+    if (cell.getDefaultEdge() == Cell.INFINTE && ChunkedEngine.isQuiescent(rule, neighborhood)) {
+      return new ChunkedEngine(rule, neighborhood, cell.getMask(), rows, cols);
+    }
+    return new FlatEngine(rule, neighborhood, cell.getDefaultEdge(), cell.getMask(), rows, cols);
+  }
+
+  /**
+   * Moves the states into a HashLifeEngine, after which every update moves forward 2^stepLog generations.
+   * Only infinite grids of rules that HashLifeEngine supports can be moved; other grids are left as they are
+   * @param stepLog each update moves forward 2^stepLog generations
+   * @param maxNodes the number of quadtree nodes to store at most, or 0 or less for the engine's default
+   * @return true if the states were moved
+   */
+  public boolean setHashLife(int stepLog, int maxNodes) {
+    if (engine == null || ruleCell.getDefaultEdge() != Cell.INFINTE
+        || !HashLifeEngine.supports((StateRule) ruleCell, neighborhood)) {
+      return false;
+    }
+    if (engine instanceof HashLifeEngine) {
+      ((HashLifeEngine) engine).setStepLog(stepLog);
+      if (maxNodes > 0) {
+        ((HashLifeEngine) engine).setMaxNodes(maxNodes);
+      }
+      return true;
+    }
+    HashLifeEngine hashLife = new HashLifeEngine((StateRule) ruleCell, neighborhood, ruleCell.getMask(),
+        getHeight(), getWidth(), stepLog);
+    if (maxNodes > 0) {
+      hashLife.setMaxNodes(maxNodes);
+    }
+    for (int r = 0; r < getHeight(); r++) {
+      for (int c = 0; c < getWidth(); c++) {
+        hashLife.setState(r, c, engine.getState(r, c));
+      }
+    }
+    useEngine(hashLife);
+    return true;
+  }
+
+  /**
+   * Returns the number of generations each update moves forward, which is 2^stepLog once the states have been
+   * moved into a HashLifeEngine, and 1 otherwise
+   * @return the number of generations in an update
+   */
+  public long getGenerationsPerUpdate() {
+    return engine != null ? engine.getGenerationsPerStep() : 1;
   }
 
   /**
@@ -68,22 +240,82 @@ public abstract class Grid {
    * @return boolean value, true if the grid size has changed
    */
   public boolean update() {
-    LinkedList<Cell> emptyQueue = getEmptyQueue();
+    long start = StepMetrics.start();
+    long generations = getGenerationsPerUpdate();
+    boolean resized = engine != null ? stepEngine() : updateCells();
+    generation += generations;
+    if (!populationListeners.isEmpty()) {
+      getPopulations();
+      for (PopulationListener listener : populationListeners) {
+        listener.populationsUpdated(generation, populations);
+      }
+    }
+    StepMetrics.stop(StepMetrics.UPDATE, start);
+    return resized;
+  }
+
+  private boolean stepEngine() {
+    long start = StepMetrics.start();
+    boolean resized = engine.step();
+    StepMetrics.stop(StepMetrics.ENGINE_STEP, start);
+    if (start != 0) {
+      StepMetrics.recordStep(engine.getCellsEvaluated(), engine.getCellsChanged());
+    }
+    if (changedTiles != null) {
+      changedTiles.resize(getHeight(), getWidth());
+      engine.markChanged(changedTiles);
+    }
+    return resized;
+  }
+
+  private boolean updateCells() {
+    long start = StepMetrics.start();
+    CellPool emptyQueue = getEmptyQueue();
+    StepMetrics.stop(StepMetrics.EMPTY_QUEUE, start);
     boolean padded = false;
     if (getCell(0, 0).getDefaultEdge() == Cell.INFINTE) {
+      start = StepMetrics.start();
       padded = padGrid();
+      StepMetrics.stop(StepMetrics.PAD_GRID, start);
     }
+    start = StepMetrics.start();
+    CounterRandom rand = CounterRandom.current();
     for (int i = 0; i < getHeight(); i++) {
       for (int j = 0; j < getWidth(); j++) {
         Cell[] neighbors = getNeighbors(i, j);
+        rand.moveTo(seed, generation, (long) i * getWidth() + j);
         getCell(i, j).planUpdateFull(neighbors, emptyQueue);
       }
     }
+    StepMetrics.stop(StepMetrics.PLAN, start);
+    start = StepMetrics.start();
+    boolean counting = start != 0;
+    boolean marking = changedTiles != null;
+    if (marking) {
+      changedTiles.resize(getHeight(), getWidth());
+    }
+    long changed = 0;
+    resizePopulations();
+    Arrays.fill(populations, 0);
     for (int i = 0; i < getHeight(); i++) {
       for (int j = 0; j < getWidth(); j++) {
-        grid.get(i).get(j).update();
+        Cell cell = grid.get(i).get(j);
+        int before = cell.getState();
+        cell.update();
+        countCell(cell.getState());
+        if (cell.getState() != before) {
+          changed++;
+          if (marking) {
+            changedTiles.mark(i, j);
+          }
+        }
       }
     }
+    populationsCounted = true;
+    StepMetrics.stop(StepMetrics.COMMIT, start);
+    if (counting) {
+      StepMetrics.recordStep((long) getHeight() * getWidth(), changed);
+    }
     return padded;
   }
 
@@ -94,11 +326,17 @@ public abstract class Grid {
    * @param c Column of the cell to be changed
    */
   public void incrementCellState(int r, int c) {
+    markChanged(r, c);
+    if (engine != null) {
+      engine.setState(r, c, (engine.getState(r, c) + 1) % (getHighestState() + 1));
+      return;
+    }
     grid.get(r).get(c).incrementState(getHighestState());
+    populationsCounted = false;
   }
 
   private int getHighestState() {
-    return Collections.max(states);
+    return highestState;
   }
 
   /**
@@ -106,21 +344,70 @@ public abstract class Grid {
    * @param st State to be added
    */
   public void addState(int st) {
-    states.add(st);
+    highestState = Math.max(highestState, st);
+    if (engine != null && !engine.canStore(st)) {
+      Engine wider = new FlatEngine((StateRule) ruleCell, neighborhood, ruleCell.getDefaultEdge(),
+          ruleCell.getMask(), getHeight(), getWidth());
+      for (int r = 0; r < getHeight(); r++) {
+        for (int c = 0; c < getWidth(); c++) {
+          wider.setState(r, c, engine.getState(r, c));
+        }
+      }
+      useEngine(wider);
+    }
   }
 
   /**
-   * Returns an int array, where the ith value of the returned array is the number of state i cells
+   * Returns an int array, where the ith value of the returned array is the number of state i cells. The
+   * counts are kept up to date as the grid steps, so this is cheap to call every step. The same array is
+   * reused and filled again on every call, so copy it to keep it past the next update
    * @return an int array, where the ith value of the returned array is the number of state i cells
    */
   public int[] getPopulations() {
-    int[] ret = new int[getHighestState() + 1];
-    for (int r = 0; r < getHeight(); r++) {
-      for (int c = 0; c < getWidth(); c++) {
-        ret[getState(r, c)]++;
+    long start = StepMetrics.start();
+    resizePopulations();
+    if (engine != null) {
+      engine.getPopulations(populations);
+    } else if (!populationsCounted) {
+      Arrays.fill(populations, 0);
+      for (int r = 0; r < getHeight(); r++) {
+        for (int c = 0; c < getWidth(); c++) {
+          countCell(getState(r, c));
+        }
       }
+      populationsCounted = true;
     }
-    return ret;
+    StepMetrics.stop(StepMetrics.POPULATIONS, start);
+    return populations;
+  }
+
+  private void resizePopulations() {
+    if (populations.length != getHighestState() + 1) {
+      populations = new int[getHighestState() + 1];
+      populationsCounted = false;
+    }
+  }
+
+  private void countCell(int state) {
+    if (state < populations.length) {
+      populations[state]++;
+    }
+  }
+
+  /**
+   * Adds a listener that is handed the populations after every update, as a time series of the simulation
+   * @param listener the listener to add
+   */
+  public void addPopulationListener(PopulationListener listener) {
+    populationListeners.add(listener);
+  }
+
+  /**
+   * Removes a listener added with addPopulationListener
+   * @param listener the listener to remove
+   */
+  public void removePopulationListener(PopulationListener listener) {
+    populationListeners.remove(listener);
   }
 
   /**
@@ -129,7 +416,7 @@ public abstract class Grid {
    * @return the double value of the parameter
    */
   public double getParam(String param) {
-    return getCell(0, 0).getParam(param);
+    return getRuleCell().getParam(param);
   }
 
   /**
@@ -137,53 +424,160 @@ public abstract class Grid {
    * @return an array of the parameters being used in simulation
    */
   public String[] getParams() {
-    return getCell(0, 0).getParams();
+    return getRuleCell().getParams();
   }
 
   /**
-   * Sets the value of a simulation parameter
+   * Sets the value of a simulation parameter. Every cell of the grid shares one ParamTable, so only one cell
+   * needs to be set
    * @param param the parameter to be set
    * @param value the double value of the parameter
    */
   public void setParam(String param, double value) {
-    for (int r = 0; r < getHeight(); r++) {
-      for (int c = 0; c < getWidth(); c++) {
-        getCell(r, c).setParam(param, value);
+    if (engine != null) {
+      ruleCell.setParam(param, value);
+      engine.ruleChanged();
+      return;
+    }
+    getCell(0, 0).setParam(param, value);
+  }
+
+  private Cell getRuleCell() {
+    if (engine != null) {
+      return ruleCell;
+    }
+    return getCell(0, 0);
+  }
+
+  /**
+   * Returns the tiles holding cells changed by steps or edits since the tiles were last cleared. The grid
+   * only starts marking tiles the first time this is called, and every tile starts marked. Whoever repaints
+   * the grid clears the tiles once it has
+   * @return the changed tiles, sized to the grid
+   */
+  public DirtyTiles getChangedTiles() {
+    if (changedTiles == null) {
+      changedTiles = new DirtyTiles();
+    }
+    changedTiles.resize(getHeight(), getWidth());
+    return changedTiles;
+  }
+
+  private void markChanged(int r, int c) {
+    if (changedTiles != null) {
+      changedTiles.resize(getHeight(), getWidth());
+      if (r < getHeight() && c < getWidth()) {
+        changedTiles.mark(r, c);
       }
     }
   }
 
+  private void markAllChanged() {
+    if (changedTiles != null) {
+      changedTiles.markAll();
+    }
+  }
+
+  /**
+   * Returns whether or not the state at r,c may have changed in the last step. Used to only redraw the
+   * active parts of the grid
+   * @param r Row of the cell
+   * @param c Column of the cell
+   * @return false only if the state at r,c is known to be the same as before the last step
+   */
+  public boolean wasChanged(int r, int c) {
+    if (engine != null) {
+      return engine.wasChanged(r, c);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the neighborhood of the grid shape
+   * @return the neighborhood of the grid shape
+   */
+  public Neighborhood getNeighborhood() {
+    return neighborhood;
+  }
+
   /**
    * Returns the Cell[] of neighbors of the cell at r,c. Should start with the northmost Cell and
-   * rotate clockwise
+   * rotate clockwise. The array is reused by the next call, so it must not be kept
    * @param r Row of the cell
    * @param c Column of the cell
    * @return the Cell[] of neighbors of the cell at r,c
    */
-  abstract Cell[] getNeighbors(int r, int c);
+  protected Cell[] getNeighbors(int r, int c) {
+    Neighborhood masked = getCellNeighborhood(getCell(r, c));
+    int parity = masked.getParity(r, c);
+    return getSpecificNeighbors(r, c, masked.getRowOffsets(parity), masked.getColumnOffsets(parity),
+        masked.getSlots());
+  }
 
-  protected Cell[] getSpecificNeighbors(int r, int c, int[] dr, int[] dc) {
-    Cell[] ret = new Cell[dr.length];
+  /**
+   * Returns the neighborhood with the mask of the cells compiled in. It is only compiled again when the
+   * cells are given a different mask, at which point the masked out entries of the neighbor array are filled
+   * with the stand-in cell, since they are never written afterwards
+   */
+  private Neighborhood getCellNeighborhood(Cell cell) {
+    if (cellNeighborhood == null
+        || (cell.getMask() != cellMask && !Arrays.equals(cell.getMask(), cellMask))) {
+      cellMask = cell.getMask();
+      cellNeighborhood = neighborhood.masked(cellMask);
+      neighborBuffer = new Cell[neighborhood.size()];
+      Arrays.fill(neighborBuffer, cell.getMaskedNeighbor());
+    }
+    return cellNeighborhood;
+  }
+
+  protected Cell[] getSpecificNeighbors(int r, int c, int[] dr, int[] dc, int[] slots) {
+    Cell[] ret = neighborBuffer;
     if (getCell(r, c).getDefaultEdge() == Cell.TOROIDAL
         || getCell(r, c).getDefaultEdge() == Cell.INFINTE) {
-      for (int i = 0; i < ret.length; i++) {
-        ret[i] = grid.get((r + dr[i] + getHeight()) % getHeight())
-            .get((c + dc[i] + getWidth()) % getWidth());
+      for (int i = 0; i < dr.length; i++) {
+        ret[slots[i]] = grid.get(wrap(r + dr[i], getHeight())).get(wrap(c + dc[i], getWidth()));
       }
     } else {
-      for (int i = 0; i < ret.length; i++) {
-        try {
-          ret[i] = grid.get(r + dr[i]).get(c + dc[i]);
-        } catch (IndexOutOfBoundsException e) {
-          Cell cell = dupeCell(getCell(r, c));
-          cell.setState(getCell(r, c).getDefaultEdge());
-          ret[i] = cell;
+      boolean edgeUsed = false;
+      for (int i = 0; i < dr.length; i++) {
+        int row = r + dr[i];
+        int col = c + dc[i];
+        if (row < 0 || row >= getHeight() || col < 0 || col >= getWidth()) {
+          ret[slots[i]] = getEdgeCell();
+          edgeUsed = true;
+        } else {
+          ret[slots[i]] = grid.get(row).get(col);
         }
       }
+      if (edgeUsed) {
+        edgeCell.setState(getCell(r, c).getDefaultEdge());
+        edgeCell.setNextState(0);
+      }
     }
     return ret;
   }
 
+  /**
+   * Returns the dummy cell that stands in for every location past a fixed border. It is made once and
+   * reset before each use, instead of duplicating a cell for every border neighbor
+   */
+  private Cell getEdgeCell() {
+    if (edgeCell == null) {
+      edgeCell = dupeCell(getCell(0, 0));
+    }
+    return edgeCell;
+  }
+
+  private static int wrap(int index, int size) {
+    while (index < 0) {
+      index += size;
+    }
+    while (index >= size) {
+      index -= size;
+    }
+    return index;
+  }
+
   private Cell dupeCell(Cell cell) {
     Cell ret = null;
     try {
@@ -191,12 +585,27 @@ public abstract class Grid {
     } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException ex) {
       ret = new FireCell(); //FIXME Should never happen due to error handling elsewhere
     }
-    for (String s : cell.getParams()) {
-      ret.setParam(s, cell.getParam(s));
-    }
+    ret.joinSimulation(cell);
+    ret.setMask(cell.getMask());
     return ret;
   }
 
+  /**
+   * Gives back the attribute row of the cell at index r of a column that is about to be replaced. Cells that
+   * filled a gap appear in a run of neighboring places, and are kept while any of the run is left
+   */
+  private static void dropCell(List<Cell> column, int r, Cell replacement) {
+    if (r >= column.size() || column.get(r) == replacement) {
+      return;
+    }
+    Cell old = column.get(r);
+    boolean placedElsewhere = (r > 0 && column.get(r - 1) == old)
+        || (r + 1 < column.size() && column.get(r + 1) == old);
+    if (!placedElsewhere) {
+      old.leaveSimulation();
+    }
+  }
+
   private ArrayList<Cell> generateEmptyRow() {
     ArrayList<Cell> newRow = new ArrayList<>();
     for (int i = 0; i < getWidth(); i++) {
@@ -308,11 +717,31 @@ public abstract class Grid {
    */
   public void setRandomGrid(String className, Map<String, Double> paramMap, double[] stateChances,
       int borderState, int[] mask, int rows, int cols) throws ClassNotFoundException {
+    markAllChanged();
+    Cell prototype = makeCell(className, paramMap);
+    prototype.setDefaultEdge(borderState);
+    prototype.setMask(mask);
+    if (flatStorage && canUseEngine(prototype)) {
+      useEngine(makeFlatEngine(prototype, rows, cols, stateChances.length - 1));
+      for (int r = 0; r < rows; r++) {
+        for (int c = 0; c < cols; c++) {
+          engine.setState(r, c, getRandomState(stateChances, r, c, cols));
+        }
+      }
+      ruleCell = prototype;
+      grid = new ArrayList<>();
+      return;
+    }
+    engine = null;
+    edgeCell = null;
+    populationsCounted = false;
     ArrayList<ArrayList<Cell>> ret = new ArrayList<>();
     for (int i = 0; i < rows; i++) {
       ArrayList<Cell> row = new ArrayList<>();
       for (int j = 0; j < cols; j++) {
-        Cell cell = getRandomCell(className, paramMap, stateChances);
+        Cell cell = makeCell(className, paramMap);
+        cell.joinSimulation(prototype);
+        cell.setState(getRandomState(stateChances, i, j, cols));
         cell.setDefaultEdge(borderState);
         cell.setMask(mask);
         row.add(cell);
@@ -327,6 +756,9 @@ public abstract class Grid {
    * @return the width of the grid.
    */
   public int getWidth() {
+    if (engine != null) {
+      return engine.getWidth();
+    }
     return grid.get(0).size();
   }
 
@@ -335,19 +767,25 @@ public abstract class Grid {
    * @return the height of the grid.
    */
   public int getHeight() {
+    if (engine != null) {
+      return engine.getHeight();
+    }
     return grid.size();
   }
 
-  protected LinkedList<Cell> getEmptyQueue() {
-    LinkedList<Cell> ret = new LinkedList<>();
+  /**
+   * Fills the pool of empty cells for a step. The same pool is reused every step
+   */
+  protected CellPool getEmptyQueue() {
+    emptyPool.clear();
     for (ArrayList<Cell> row : grid) {
       for (Cell cell : row) {
         if (cell.isEmpty()) {
-          ret.add(cell);
+          emptyPool.add(cell);
         }
       }
     }
-    return ret;
+    return emptyPool;
   }
 
   protected Cell getCell(int r, int c) {
@@ -361,22 +799,55 @@ public abstract class Grid {
    * @return integer state of the cell
    */
   public int getState(int r, int c) {
+    if (engine != null) {
+      return engine.getState(r, c);
+    }
     return grid.get(r).get(c).getState();
   }
 
   /**
-   * Places a cell at r,c in the grid
+   * Copies every state into an array, one row after another, so that the whole grid can be drawn without
+   * a call per cell
+   * @param out the array to fill, at least getWidth() * getHeight() long
+   */
+  public void getStates(int[] out) {
+    if (engine != null) {
+      engine.getStates(out);
+      return;
+    }
+    int width = getWidth();
+    for (int r = 0; r < getHeight(); r++) {
+      for (int c = 0; c < width; c++) {
+        out[r * width + c] = grid.get(r).get(c).getState();
+      }
+    }
+  }
+
+  /**
+   * Places a cell at r,c in the grid. With flat storage, only the state of the cell is kept, and r,c must
+   * already be inside the grid
    * @param r row of the cell to be placed
    * @param c column of the cell to be placed
    * @param cell cell to be placed
    */
   public void placeCell(int r, int c, Cell cell) {
+    if (engine != null) {
+      engine.setState(c, r, cell.getState());
+      markChanged(c, r);
+      return;
+    }
+    if (!grid.isEmpty() && !grid.get(0).isEmpty()) {
+      cell.joinSimulation(grid.get(0).get(0));
+    }
+    populationsCounted = false;
     while (c >= grid.size()) {
       grid.add(new ArrayList<>());
     }
+    dropCell(grid.get(c), r, cell);
     while (r >= grid.get(c).size()) {
       grid.get(c).add(cell);
     }
     grid.get(c).set(r, cell);
+    markChanged(c, r);
   }
 }
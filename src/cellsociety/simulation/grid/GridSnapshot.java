@@ -0,0 +1,122 @@
+package cellsociety.simulation.grid;
+
+import cellsociety.simulation.engine.DirtyTiles;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: A copy of everything a view needs from a grid after one step: its size, the state of every cell,
+ * the populations, the number of steps taken, and the tiles holding cells changed since the snapshot
+ * before it was handed out. SimulationLoop fills snapshots on its own thread and hands them to the view,
+ * so the view never reads a grid while it is being stepped.
+ *
+ * Assumptions: A snapshot is only read by whoever it was handed to, and is not changed until it is handed
+ * back by taking a newer one. Readers must not modify the arrays returned.
+ *
+ * Dependencies: Grid, DirtyTiles
+ *
+ * Example usage:
+ *     GridSnapshot snapshot = loop.takeLatest();
+ *     if (snapshot != null) {
+ *       paint the marked tiles of snapshot.getChangedTiles() from snapshot.getStates()
+ *     }
+ */
+public class GridSnapshot {
+
+  private int width;
+  private int height;
+  private int[] states = new int[0];
+  private int[] populations = new int[0];
+  private long step;
+  private final DirtyTiles changedTiles = new DirtyTiles();
+
+  /**
+   * Copies the states and populations of a grid, and takes the tiles it has marked since it was last
+   * copied, clearing them in the grid
+   * @param grid the grid to copy
+   * @param steps the number of steps the grid has taken
+   */
+  void fill(Grid grid, long steps) {
+    width = grid.getWidth();
+    height = grid.getHeight();
+    if (states.length != width * height) {
+      states = new int[width * height];
+    }
+    grid.getStates(states);
+    int[] counts = grid.getPopulations();
+    if (populations.length != counts.length) {
+      populations = new int[counts.length];
+    }
+    System.arraycopy(counts, 0, populations, 0, counts.length);
+    step = steps;
+    DirtyTiles gridTiles = grid.getChangedTiles();
+    changedTiles.resize(height, width);
+    changedTiles.clear();
+    changedTiles.markAll(gridTiles);
+    gridTiles.clear();
+  }
+
+  /**
+   * Adds the changed tiles of an older snapshot that was never handed out, so that nothing it changed is
+   * missed by the view
+   * @param older the snapshot this one replaces
+   */
+  void addChanges(GridSnapshot older) {
+    changedTiles.markAll(older.changedTiles);
+  }
+
+  /**
+   * @return the width of the grid
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * @return the height of the grid
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the state of the cell at r,c
+   * @param r row of the cell
+   * @param c column of the cell
+   * @return integer state of the cell
+   */
+  public int getState(int r, int c) {
+    return states[r * width + c];
+  }
+
+  /**
+   * Returns every state, one row after another, as in Grid.getStates. The array belongs to the snapshot
+   * @return the states, getWidth() * getHeight() long
+   */
+  public int[] getStates() {
+    return states;
+  }
+
+  /**
+   * Returns the number of cells in each state. The array belongs to the snapshot
+   * @return an int array, where the ith value is the number of state i cells
+   */
+  public int[] getPopulations() {
+    return populations;
+  }
+
+  /**
+   * @return the number of steps the grid had taken when it was copied
+   */
+  public long getStep() {
+    return step;
+  }
+
+  /**
+   * Returns the tiles holding cells changed since the snapshot handed out before this one
+   * @return the changed tiles, sized to the grid
+   */
+  public DirtyTiles getChangedTiles() {
+    return changedTiles;
+  }
+}
@@ -1,6 +1,6 @@
 package cellsociety.simulation.grid;
 
-import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.engine.Neighborhood;
 
 /**
  * @author Maverick Chung, mc608
@@ -10,22 +10,17 @@ import cellsociety.simulation.cell.Cell;
  *
  * Assumptions: See Grid
  *
- * Dependencies: Grid, Cell
+ * Dependencies: Grid, Neighborhood
  */
 public class HexGrid extends Grid {
 
-  @Override
-  protected Cell[] getNeighbors(int r, int c) {
-    int[] dr;
-    int[] dc;
-    if (c % 2 == 0) {
-      dr = new int[]{-1, 0, 1, 1, 1, 0};
-    } else {
-      dr = new int[]{-1, -1, 0, 1, 0, -1};
-    }
-    dc = new int[]{0, 1, 1, 0, -1, -1};
+  private static final Neighborhood NEIGHBORHOOD = new Neighborhood(
+      new int[][]{{-1, 0, 1, 1, 1, 0}, {-1, -1, 0, 1, 0, -1}},
+      new int[][]{{0, 1, 1, 0, -1, -1}, {0, 1, 1, 0, -1, -1}},
+      Neighborhood.COLUMN_PARITY);
 
-    return getSpecificNeighbors(r, c, dr, dc);
+  public HexGrid() {
+    super(NEIGHBORHOOD);
   }
 
 }
@@ -0,0 +1,24 @@
+package cellsociety.simulation.grid;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Implemented by anything that follows the populations of a simulation over time, such as a graph
+ * or a file of results. A Grid hands its listeners the number of cells in each state after every update.
+ *
+ * Assumptions: Listeners are called on the thread that updates the grid. The populations array belongs to
+ * the grid and is filled again on the next update, so listeners must copy anything they want to keep and
+ * must not modify it.
+ *
+ * Dependencies: None
+ */
+public interface PopulationListener {
+
+  /**
+   * Called after every update of a grid
+   * @param step the number of generations the grid has moved forward, which is the number of updates unless
+   *             each update moves forward many generations at once (see Grid.getGenerationsPerUpdate)
+   * @param populations an int array, where the ith value is the number of state i cells
+   */
+  void populationsUpdated(long step, int[] populations);
+}
@@ -1,6 +1,6 @@
 package cellsociety.simulation.grid;
 
-import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.engine.Neighborhood;
 
 /**
  * @author Maverick Chung, mc608
@@ -9,15 +9,17 @@ import cellsociety.simulation.cell.Cell;
  *
  * Assumptions: See Grid
  *
- * Dependencies: Grid, Cell
+ * Dependencies: Grid, Neighborhood
  */
 public class RectGrid extends Grid {
 
-  @Override
-  protected Cell[] getNeighbors(int r, int c) {
-    int[] dr = {-1, -1, 0, 1, 1, 1, 0, -1};
-    int[] dc = {0, 1, 1, 1, 0, -1, -1, -1};
-    return getSpecificNeighbors(r, c, dr, dc);
+  private static final Neighborhood NEIGHBORHOOD = new Neighborhood(
+      new int[][]{{-1, -1, 0, 1, 1, 1, 0, -1}},
+      new int[][]{{0, 1, 1, 1, 0, -1, -1, -1}},
+      Neighborhood.NO_PARITY);
+
+  public RectGrid() {
+    super(NEIGHBORHOOD);
   }
 
 }
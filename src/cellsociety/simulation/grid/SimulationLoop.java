@@ -0,0 +1,219 @@
+package cellsociety.simulation.grid;
+
+import cellsociety.metrics.StepMetrics;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Steps a grid on a thread of its own, so that a slow step never holds up the window showing it.
+ * After every step or edit, the grid is copied into a GridSnapshot and handed over through three snapshots
+ * that are reused: the one the view is showing, the newest one waiting for the view, and the one being
+ * filled. The view takes only the newest snapshot each frame, so the simulation steps as fast as its speed
+ * allows however fast the view draws, and steps the view never saw are folded into the changed tiles of the
+ * next snapshot it does see. Everything else that touches the grid, such as clicks, parameters, and saving,
+ * is sent as a command and run between steps.
+ *
+ * Assumptions: Once start is called, the grid is only touched through submit. Only one thread takes
+ * snapshots. The loop may still finish a step after stop is called, but takes no more after that.
+ *
+ * Dependencies: Grid, GridSnapshot, StepMetrics
+ *
+ * Example usage:
+ *     SimulationLoop loop = new SimulationLoop(grid);
+ *     loop.setStepPeriod(0.5);
+ *     loop.setRunning(true);
+ *     loop.start();
+ *     every frame: GridSnapshot snapshot = loop.takeLatest(), and draw it if it is not null
+ *     loop.submit(g -> g.incrementCellState(r, c));
+ */
+public class SimulationLoop implements Runnable {
+
+  public static final String THREAD_NAME = "simulation";
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final BlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+  private final Thread thread;
+  private volatile boolean stopped;
+
+  private Grid grid;
+  private long steps;
+  private boolean running;
+  private long stepPeriod;
+  private long nextStep;
+  private boolean changed;
+
+  private GridSnapshot shown = new GridSnapshot();
+  private GridSnapshot waiting;
+  private GridSnapshot filling = new GridSnapshot();
+  private GridSnapshot spare = new GridSnapshot();
+
+  /**
+   * Makes a paused loop for a grid, with a first snapshot of the grid ready to be taken
+   * @param grid the grid to step, which no other thread may touch once start is called
+   */
+  public SimulationLoop(Grid grid) {
+    this.grid = grid;
+    grid.getChangedTiles().markAll();
+    publish();
+    thread = new Thread(this, THREAD_NAME);
+    thread.setDaemon(true);
+  }
+
+  /**
+   * Starts stepping on the loop's own thread
+   */
+  public void start() {
+    thread.start();
+  }
+
+  /**
+   * Stops the loop after the step or command it is running, dropping any commands not yet run
+   */
+  public void stop() {
+    stopped = true;
+    thread.interrupt();
+  }
+
+  /**
+   * Starts or stops stepping the grid on its own. Commands and single steps run either way
+   * @param on true to step the grid every step period
+   */
+  public void setRunning(boolean on) {
+    commands.add(() -> {
+      if (on && !running) {
+        nextStep = System.nanoTime() + stepPeriod;
+      }
+      running = on;
+    });
+  }
+
+  /**
+   * Sets the time between steps while running. A period of 0 steps the grid as fast as it can be stepped
+   * @param seconds the time from the start of one step to the start of the next
+   */
+  public void setStepPeriod(double seconds) {
+    long period = (long) (Math.max(0, seconds) * NANOS_PER_SECOND);
+    commands.add(() -> {
+      nextStep += period - stepPeriod;
+      stepPeriod = period;
+    });
+  }
+
+  /**
+   * Steps the grid once, between any other steps and commands
+   */
+  public void step() {
+    commands.add(() -> {
+      stepGrid();
+      changed = true;
+    });
+  }
+
+  /**
+   * Runs a command on the grid between steps, after which a new snapshot is handed out
+   * @param command the command, which is handed the grid being stepped
+   */
+  public void submit(Consumer<Grid> command) {
+    commands.add(() -> {
+      command.accept(grid);
+      changed = true;
+    });
+  }
+
+  /**
+   * Replaces the grid being stepped, keeping the count of steps
+   * @param newGrid the grid to step from now on, which no other thread may touch from now on
+   */
+  public void setGrid(Grid newGrid) {
+    commands.add(() -> {
+      grid = newGrid;
+      grid.getChangedTiles().markAll();
+      changed = true;
+    });
+  }
+
+  /**
+   * Returns the newest snapshot of the grid, if there is one the caller has not taken yet. The snapshot
+   * taken before it is handed back to the loop, and must not be read again
+   * @return the newest snapshot, or null if nothing has changed since the last one was taken
+   */
+  public synchronized GridSnapshot takeLatest() {
+    if (waiting == null) {
+      return null;
+    }
+    spare = shown;
+    shown = waiting;
+    waiting = null;
+    return shown;
+  }
+
+  /**
+   * Runs commands as they come in and steps the grid whenever the step period has passed while running,
+   * handing out a snapshot after each round that changed the grid
+   */
+  @Override
+  public void run() {
+    while (!stopped) {
+      try {
+        runCommands(waitForCommand());
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (running && System.nanoTime() - nextStep >= 0) {
+        stepGrid();
+        changed = true;
+        nextStep = Math.max(nextStep + stepPeriod, System.nanoTime());
+      }
+      if (changed && !stopped) {
+        publish();
+      }
+    }
+  }
+
+  private Runnable waitForCommand() throws InterruptedException {
+    if (!running) {
+      return commands.take();
+    }
+    long wait = nextStep - System.nanoTime();
+    if (wait <= 0) {
+      return commands.poll();
+    }
+    return commands.poll(wait, TimeUnit.NANOSECONDS);
+  }
+
+  private void runCommands(Runnable first) {
+    for (Runnable command = first; command != null && !stopped; command = commands.poll()) {
+      command.run();
+    }
+  }
+
+  private void stepGrid() {
+    long start = StepMetrics.start();
+    grid.update();
+    steps++;
+    StepMetrics.stop(StepMetrics.STEP_GRID, start);
+  }
+
+  private void publish() {
+    long start = StepMetrics.start();
+    filling.fill(grid, steps);
+    synchronized (this) {
+      if (waiting != null) {
+        filling.addChanges(waiting);
+        GridSnapshot skipped = waiting;
+        waiting = filling;
+        filling = skipped;
+      } else {
+        waiting = filling;
+        filling = spare;
+        spare = null;
+      }
+    }
+    changed = false;
+    StepMetrics.stop(StepMetrics.PUBLISH, start);
+  }
+}
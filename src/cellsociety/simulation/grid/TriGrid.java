@@ -1,6 +1,7 @@
 package cellsociety.simulation.grid;
 
 import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.engine.Neighborhood;
 
 /**
  * @author Maverick Chung, mc608
@@ -10,22 +11,17 @@ import cellsociety.simulation.cell.Cell;
  *
  * Assumptions: See Grid
  *
- * Dependencies: Grid, Cell
+ * Dependencies: Grid, Cell, Neighborhood
  */
 public class TriGrid extends Grid {
 
-  @Override
-  protected Cell[] getNeighbors(int r, int c) {
-    int[] dr;
-    int[] dc;
-    if ((r + c) % 2 == 0) {
-      dr = new int[]{-1, -1, 0, 0, 1, 1, 1, 1, 1, 0, 0, -1};
-      dc = new int[]{0, 1, 1, 2, 2, 1, 0, -1, -2, -2, -1, -1};
-    } else {
-      dr = new int[]{-1, -1, -1, 0, 0, 1, 1, 1, 0, 0, -1, -1};
-      dc = new int[]{0, 1, 2, 2, 1, 1, 0, -1, -1, -2, -2, -1};
-    }
-    return getSpecificNeighbors(r, c, dr, dc);
+  private static final Neighborhood NEIGHBORHOOD = new Neighborhood(
+      new int[][]{{-1, -1, 0, 0, 1, 1, 1, 1, 1, 0, 0, -1}, {-1, -1, -1, 0, 0, 1, 1, 1, 0, 0, -1, -1}},
+      new int[][]{{0, 1, 1, 2, 2, 1, 0, -1, -2, -2, -1, -1}, {0, 1, 2, 2, 1, 1, 0, -1, -1, -2, -2, -1}},
+      Neighborhood.CHECKER_PARITY);
+
+  public TriGrid() {
+    super(NEIGHBORHOOD);
   }
 
   @Override
@@ -0,0 +1,211 @@
+package cellsociety.visualizer;
+
+import cellsociety.simulation.engine.DirtyTiles;
+import cellsociety.simulation.grid.GridSnapshot;
+import java.util.Arrays;
+
+/**
+ * @author: axo
+ * Keeps the mean color of blocks of cells at several sizes, so that a grid with many cells to each pixel can
+ * be drawn by reading one block per pixel instead of every cell under it. Level k holds the sums of the ARGB
+ * channels of each 2^k by 2^k block of cells, made from the four blocks of level k - 1 under it, and level 0
+ * is the cells themselves. Sums are only divided by the number of cells in a block when its color is read, so
+ * every color is the mean of the cells under it, rounded once, however many levels it was made through. After
+ * a step, only the blocks over changed tiles are worked out again.
+ *
+ * The sums of a block up to level PACKED_LEVELS fit in 16 bits a channel, and are packed into one long. Higher
+ * levels keep two channels in each of two longs.
+ *
+ * Assumptions: blocks on the right and bottom edges of a grid that does not divide evenly are the mean of the
+ * cells they do cover. Levels go no higher than MAX_LEVEL, where the sums still fit in 32 bits a channel. The
+ * palette is not changed in place.
+ *
+ * Dependencies: GridSnapshot for the states, and DirtyTiles for the cells that changed.
+ *
+ * Example usage: pyramid.update(snapshot, snapshot.getChangedTiles());
+ *         pyramid.build(snapshot, getPalette(), 3);
+ *         int color = pyramid.getColor(3, r, c);
+ */
+public class ColorPyramid {
+
+  public static final int PACKED_LEVELS = 4;
+  public static final int MAX_LEVEL = 12;
+  private static final int CHANNELS = 4;
+  private static final int CHANNEL_BITS = 8;
+  private static final int CHANNEL_MASK = 0xff;
+  private static final int PACKED_BITS = 16;
+  private static final long PACKED_MASK = 0xffffL;
+  private static final int WIDE_BITS = 32;
+  private static final long WIDE_MASK = 0xffffffffL;
+  private static final int REBUILD_FRACTION = 2;
+
+  private int columns;
+  private int rows;
+  private int[] palette;
+  private long[][] levels = new long[1][];
+  private int[] widths = new int[1];
+  private final long[] sums = new long[CHANNELS];
+  private boolean stale = true;
+
+  /**
+   * Works out every level up to a level from scratch, unless the levels kept are already up to date with the
+   * grid and palette and go that high
+   * @param grid a snapshot of the grid
+   * @param newPalette the ARGB color of each state, where states past the end are transparent
+   * @param topLevel the highest level needed, up to MAX_LEVEL
+   */
+  public void build(GridSnapshot grid, int[] newPalette, int topLevel) {
+    topLevel = Math.min(topLevel, MAX_LEVEL);
+    if (!stale && newPalette == palette && grid.getWidth() == columns && grid.getHeight() == rows
+        && topLevel < levels.length) {
+      return;
+    }
+    if (grid.getWidth() != columns || grid.getHeight() != rows || topLevel >= levels.length) {
+      columns = grid.getWidth();
+      rows = grid.getHeight();
+      levels = new long[topLevel + 1][];
+      widths = new int[topLevel + 1];
+      widths[0] = columns;
+      for (int level = 1; level <= topLevel; level++) {
+        widths[level] = getBlocks(columns, level);
+        levels[level] = new long[getWords(level) * widths[level] * getBlocks(rows, level)];
+      }
+    }
+    palette = newPalette;
+    for (int level = 1; level < levels.length; level++) {
+      fillBlocks(grid.getStates(), level, 0, 0, getBlocks(rows, level), widths[level]);
+    }
+    stale = false;
+  }
+
+  /**
+   * Works out again the blocks over the marked tiles of a grid, if the levels are up to date with the grid before
+   * those cells changed. If more than 1 / REBUILD_FRACTION of the tiles are marked, the levels are left to be
+   * built from scratch when next needed, which is cheaper than going over the blocks above many tiles again
+   * @param grid a snapshot of the grid, the same size as when the levels were built
+   * @param tiles the tiles holding cells changed since the levels were last brought up to date
+   */
+  public void update(GridSnapshot grid, DirtyTiles tiles) {
+    if (stale) {
+      return;
+    }
+    if (tiles.isAllMarked() || tiles.countMarked() * REBUILD_FRACTION > tiles.getTileCount()
+        || grid.getWidth() != columns || grid.getHeight() != rows) {
+      stale = true;
+      return;
+    }
+    int[] states = grid.getStates();
+    for (int tile = tiles.nextMarked(0); tile >= 0; tile = tiles.nextMarked(tile + 1)) {
+      for (int level = 1; level < levels.length; level++) {
+        fillBlocks(states, level, tiles.getTop(tile) >> level, tiles.getLeft(tile) >> level,
+            ((tiles.getBottom(tile) - 1) >> level) + 1, ((tiles.getRight(tile) - 1) >> level) + 1);
+      }
+    }
+  }
+
+  /**
+   * Returns whether or not the levels need to be built again before they are read
+   * @return true if the levels were never built or have fallen behind the grid
+   */
+  public boolean isStale() {
+    return stale;
+  }
+
+  /**
+   * Returns the mean color of the cells in the block of a level holding a cell, with each channel rounded to
+   * the nearest value
+   * @param level the level, where the blocks are 2^level cells across
+   * @param r row of the cell
+   * @param c column of the cell
+   * @return the color of the block, as 0xAARRGGBB
+   */
+  public int getColor(int level, int r, int c) {
+    int blockR = r >> level;
+    int blockC = c >> level;
+    long count = (long) getCovered(rows, level, blockR) * getCovered(columns, level, blockC);
+    int block = blockR * widths[level] + blockC;
+    int color = 0;
+    for (int channel = 0; channel < CHANNELS; channel++) {
+      color = color << CHANNEL_BITS | (int) ((getSum(level, block, channel) + count / 2) / count);
+    }
+    return color;
+  }
+
+  /**
+   * Fills an area of the blocks of a level with the sums of the blocks, or at level 1 the cells, under each
+   * of them
+   */
+  private void fillBlocks(int[] states, int level, int top, int left, int bottom, int right) {
+    int childRows = getBlocks(rows, level - 1);
+    int childColumns = widths[level - 1];
+    for (int r = top; r < bottom; r++) {
+      for (int c = left; c < right; c++) {
+        Arrays.fill(sums, 0);
+        for (int childR = 2 * r; childR < Math.min(2 * r + 2, childRows); childR++) {
+          for (int childC = 2 * c; childC < Math.min(2 * c + 2, childColumns); childC++) {
+            int child = childR * childColumns + childC;
+            if (level == 1) {
+              addColor(getCellColor(states[child]));
+            } else {
+              for (int channel = 0; channel < CHANNELS; channel++) {
+                sums[channel] += getSum(level - 1, child, channel);
+              }
+            }
+          }
+        }
+        setSums(level, r * widths[level] + c);
+      }
+    }
+  }
+
+  private void addColor(int color) {
+    for (int channel = 0; channel < CHANNELS; channel++) {
+      sums[channel] += (color >>> ((CHANNELS - 1 - channel) * CHANNEL_BITS)) & CHANNEL_MASK;
+    }
+  }
+
+  private long getSum(int level, int block, int channel) {
+    long[] words = levels[level];
+    if (level <= PACKED_LEVELS) {
+      return (words[block] >>> ((CHANNELS - 1 - channel) * PACKED_BITS)) & PACKED_MASK;
+    }
+    long word = words[2 * block + channel / 2];
+    return (channel % 2 == 0 ? word >>> WIDE_BITS : word) & WIDE_MASK;
+  }
+
+  private void setSums(int level, int block) {
+    long[] words = levels[level];
+    if (level <= PACKED_LEVELS) {
+      long word = 0;
+      for (long sum : sums) {
+        word = word << PACKED_BITS | sum;
+      }
+      words[block] = word;
+      return;
+    }
+    words[2 * block] = sums[0] << WIDE_BITS | sums[1];
+    words[2 * block + 1] = sums[2] << WIDE_BITS | sums[3];
+  }
+
+  private static int getWords(int level) {
+    return level <= PACKED_LEVELS ? 1 : 2;
+  }
+
+  /**
+   * Returns the number of blocks of a level across a number of cells, counting a partial block at the end
+   */
+  private static int getBlocks(int cells, int level) {
+    return (cells + (1 << level) - 1) >> level;
+  }
+
+  /**
+   * Returns the number of cells a block of a level covers across, which is fewer for a partial block at the end
+   */
+  private static int getCovered(int cells, int level, int block) {
+    return Math.min(cells, (block + 1) << level) - (block << level);
+  }
+
+  private int getCellColor(int state) {
+    return state >= 0 && state < palette.length ? palette[state] : 0;
+  }
+}
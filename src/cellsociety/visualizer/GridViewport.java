@@ -0,0 +1,252 @@
+package cellsociety.visualizer;
+
+import cellsociety.simulation.engine.DirtyTiles;
+import cellsociety.simulation.grid.GridSnapshot;
+import java.nio.IntBuffer;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * @author: axo
+ * Shows a window onto a rectangular grid at some zoom, as an image the size of the view rather than of the grid,
+ * so drawing costs the same however many cells the grid has. The window can be zoomed about a point and panned.
+ * Each pixel shows the cell under its center, or, when cells are smaller than pixels, the mean color of the
+ * block of cells under it from a ColorPyramid, so that zooming out shows how dense each state is instead of
+ * flickering between the few cells that land on pixel centers. Grid lines are painted along cell edges when cells
+ * are big enough to see them.
+ *
+ * Assumptions: the palette comes from Visualizer.getPalette. Zoom is in pixels per cell, the same across and down,
+ * and cannot go out past the whole grid fitting in the view.
+ *
+ * Dependencies: JavaFX images, GridSnapshot for the states, ColorPyramid, and DirtyTiles.
+ *
+ * Example usage: GridViewport viewport = new GridViewport(400, 400);
+ *         pane.getChildren().add(viewport.makeView());
+ *         viewport.paint(snapshot, getPalette());
+ *         viewport.zoomAt(e.getX(), e.getY(), 1.25);
+ */
+public class GridViewport {
+
+  public static final double MAX_CELL_SIZE = 64;
+  private static final int LINE_COLOR = 0xff808080;
+  private static final int OUTSIDE = -1;
+
+  private final int width;
+  private final int height;
+  private final WritableImage image;
+  private final int[] pixels;
+  private final int[] pixelColumns;
+  private final int[] pixelRows;
+  private final PixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
+  private final ColorPyramid pyramid = new ColorPyramid();
+  private int columns;
+  private int rows;
+  private double zoom;
+  private double left;
+  private double top;
+  private boolean fitted = true;
+  private boolean lines;
+
+  /**
+   * Creates an empty viewport
+   * @param width the width of the view in pixels
+   * @param height the height of the view in pixels
+   */
+  public GridViewport(int width, int height) {
+    this.width = width;
+    this.height = height;
+    image = new WritableImage(width, height);
+    pixels = new int[width * height];
+    pixelColumns = new int[width + 1];
+    pixelRows = new int[height + 1];
+  }
+
+  /**
+   * Makes a view showing the viewport at its own size
+   * @return an ImageView of the viewport
+   */
+  public ImageView makeView() {
+    return new ImageView(image);
+  }
+
+  /**
+   * Sets whether or not to paint grid lines along the edges of cells big enough to see them
+   * @param on true to paint grid lines
+   */
+  public void setGridLines(boolean on) {
+    lines = on;
+  }
+
+  /**
+   * Sets the size of the grid being shown. If it has changed, the whole grid is fitted into the view again,
+   * unless the view has been zoomed or panned, in which case it stays where it is
+   * @param newColumns the number of columns of the grid
+   * @param newRows the number of rows of the grid
+   */
+  public void setGridSize(int newColumns, int newRows) {
+    if (newColumns == columns && newRows == rows) {
+      return;
+    }
+    columns = newColumns;
+    rows = newRows;
+    if (fitted) {
+      fit();
+    } else {
+      zoomAt(0, 0, 1);
+    }
+  }
+
+  /**
+   * Zooms out to show the whole grid, centered in the view
+   */
+  public void fit() {
+    zoom = getFitZoom();
+    left = (columns - width / zoom) / 2;
+    top = (rows - height / zoom) / 2;
+    fitted = true;
+  }
+
+  private double getFitZoom() {
+    return Math.min((double) width / columns, (double) height / rows);
+  }
+
+  /**
+   * Zooms in or out, keeping the cell under a point of the view where it is
+   * @param x the x coordinate of the point in the view
+   * @param y the y coordinate of the point in the view
+   * @param factor how many times bigger cells get, above 1 to zoom in and below 1 to zoom out
+   */
+  public void zoomAt(double x, double y, double factor) {
+    double fitZoom = getFitZoom();
+    double newZoom = Math.max(fitZoom, Math.min(Math.max(fitZoom, MAX_CELL_SIZE), zoom * factor));
+    left += x / zoom - x / newZoom;
+    top += y / zoom - y / newZoom;
+    zoom = newZoom;
+    fitted = false;
+    clampCenter();
+  }
+
+  /**
+   * Moves the window over the grid by a distance in pixels, as if dragging the grid along
+   * @param dx how far to move the grid right
+   * @param dy how far to move the grid down
+   */
+  public void pan(double dx, double dy) {
+    left -= dx / zoom;
+    top -= dy / zoom;
+    fitted = false;
+    clampCenter();
+  }
+
+  /**
+   * Keeps the center of the view over the grid, so the grid cannot be lost off the edge of the view
+   */
+  private void clampCenter() {
+    left = Math.max(-width / zoom / 2, Math.min(columns - width / zoom / 2, left));
+    top = Math.max(-height / zoom / 2, Math.min(rows - height / zoom / 2, top));
+  }
+
+  /**
+   * Returns the cell at a point of the view
+   * @param x the x coordinate of the point
+   * @param y the y coordinate of the point
+   * @return the cell, numbered row * columns + column, or -1 if the point is off the grid
+   */
+  public int getCellAt(double x, double y) {
+    int c = (int) Math.floor(left + x / zoom);
+    int r = (int) Math.floor(top + y / zoom);
+    if (r < 0 || r >= rows || c < 0 || c >= columns) {
+      return OUTSIDE;
+    }
+    return r * columns + c;
+  }
+
+  /**
+   * Paints every pixel of the view
+   * @param grid a snapshot of the grid to paint, the size last given to setGridSize
+   * @param palette the ARGB color of each state, where states past the end are transparent
+   */
+  public void paint(GridSnapshot grid, int[] palette) {
+    int level = getLevel();
+    if (level > 0) {
+      pyramid.build(grid, palette, getLevel(getFitZoom()));
+    }
+    findCells(pixelColumns, left, columns);
+    findCells(pixelRows, top, rows);
+    boolean edges = lines && zoom >= Visualizer.MIN_LINE_SPACING;
+    int[] states = grid.getStates();
+    for (int py = 0; py < height; py++) {
+      int r = pixelRows[py + 1];
+      boolean edgeRow = edges && pixelRows[py] != r;
+      for (int px = 0; px < width; px++) {
+        int c = pixelColumns[px + 1];
+        boolean edgeColumn = edges && pixelColumns[px] != c;
+        int color;
+        if ((edgeRow || edgeColumn) && (r != OUTSIDE || edgeRow) && (c != OUTSIDE || edgeColumn)) {
+          color = LINE_COLOR;
+        } else if (r == OUTSIDE || c == OUTSIDE) {
+          color = 0;
+        } else if (level > 0) {
+          color = pyramid.getColor(level, r, c);
+        } else {
+          int state = states[r * columns + c];
+          color = state >= 0 && state < palette.length ? palette[state] : 0;
+        }
+        pixels[py * width + px] = color;
+      }
+    }
+    image.getPixelWriter().setPixels(0, 0, width, height, format, pixels, 0, width);
+  }
+
+  /**
+   * Brings the mean colors up to date with the marked tiles, and paints the view again if any of them can be seen
+   * @param grid a snapshot of the grid to paint, the size last given to setGridSize
+   * @param palette the ARGB color of each state, where states past the end are transparent
+   * @param tiles the tiles holding cells that changed since the view was last painted
+   */
+  public void paintTiles(GridSnapshot grid, int[] palette, DirtyTiles tiles) {
+    pyramid.update(grid, tiles);
+    if (tiles.isAllMarked() || isAnyVisible(tiles)) {
+      paint(grid, palette);
+    }
+  }
+
+  private boolean isAnyVisible(DirtyTiles tiles) {
+    double right = left + width / zoom;
+    double bottom = top + height / zoom;
+    for (int tile = tiles.nextMarked(0); tile >= 0; tile = tiles.nextMarked(tile + 1)) {
+      if (tiles.getRight(tile) > left && tiles.getLeft(tile) < right
+          && tiles.getBottom(tile) > top && tiles.getTop(tile) < bottom) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the cell under the center of each pixel along one side of the view, starting from the pixel just
+   * before the view so that a cell edge on the first pixel can be told from one the view cuts through
+   */
+  private void findCells(int[] cells, double start, int count) {
+    for (int i = 0; i < cells.length; i++) {
+      double cell = Math.floor(start + (i - .5) / zoom);
+      cells[i] = cell >= 0 && cell < count ? (int) cell : OUTSIDE;
+    }
+  }
+
+  private int getLevel() {
+    return getLevel(zoom);
+  }
+
+  /**
+   * Returns the level of mean colors to read at a zoom, the biggest whose blocks are no wider than a pixel
+   */
+  private int getLevel(double atZoom) {
+    int level = 0;
+    while ((1 << (level + 1)) * atZoom <= 1) {
+      level++;
+    }
+    return level;
+  }
+}
@@ -1,18 +1,12 @@
 package cellsociety.visualizer;
 
 import cellsociety.simulation.grid.Grid;
-import java.util.ArrayList;
-import javafx.scene.Node;
-import javafx.scene.layout.AnchorPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Polygon;
-import javafx.scene.shape.Shape;
-import javafx.scene.shape.StrokeType;
 
 /**
  * @author: axo
+ * Renders hexagonal grids, where odd columns sit half a cell higher than even columns.
  */
-public class HexVisualizer extends Visualizer {
+public class HexVisualizer extends PolygonVisualizer {
 
   /**
    * Constructor for Hexagon Visualizer. Calls parent Visualizer constructor with the same grid object
@@ -23,61 +17,37 @@ public class HexVisualizer extends Visualizer {
     super(grid);
   }
 
+  private double getHorizEdge() {
+    return SIZE / (getWidth() * 1.5);
+  }
+
   /**
-   * Extended form of InstantiateCellGrid. Creates Hexagons with on-click actions and rendered colors and places them inside an AnchorPane
-   * @return an AnchorPane containing the desired size and configuration of Hexagons to be rendered in the scene.
+   * Gives the corners of the hexagons of even columns and of odd columns
+   * @return the two hexagons
    */
   @Override
-  public Node instantiateCellGrid() {
-    AnchorPane anchorPane = new AnchorPane();
-    cellGrid = new ArrayList<ArrayList<Shape>>();
-    Color[][] colorgrid = getColorGrid();
-    double horizEdge = SIZE / (colorgrid[0].length * 1.5);
-    double height = SIZE / (colorgrid.length + .5);
-    double yCoord = 0.0;
-    double xCoord = 0.0;
-    for (int i = 0; i < colorgrid.length; i++) {
-      cellGrid.add(new ArrayList<Shape>());
-      for (int j = 0; j < colorgrid[i].length; j++) {
-        Polygon hex = new Polygon();
-        if (j % 2 == 0) {
-          hex.getPoints().addAll(new Double[]{
-              xCoord + horizEdge / 2, yCoord + height / 2,
-              xCoord + horizEdge * 1.5, yCoord + height / 2,
-              xCoord + horizEdge * 2, yCoord + height,
-              xCoord + horizEdge * 1.5, yCoord + height * 1.5,
-              xCoord + horizEdge / 2, yCoord + height * 1.5,
-              xCoord, yCoord + height
-          });
-        } else {
-          hex.getPoints().addAll(new Double[]{
-              xCoord + horizEdge / 2, yCoord,
-              xCoord + horizEdge * 1.5, yCoord,
-              xCoord + horizEdge * 2, yCoord + height / 2,
-              xCoord + horizEdge * 1.5, yCoord + height,
-              xCoord + horizEdge / 2, yCoord + height,
-              xCoord, yCoord + height / 2
-          });
-        }
-        hex.setFill(colorgrid[i][j]);
-        if(gridLines) {
-          hex.setStrokeType(StrokeType.INSIDE);
-          hex.setStroke(Color.GRAY);
-          hex.setStrokeWidth(.5);
-        }
-        final int r = i; //FIXME extract method into abstract class
-        final int c = j;
-        hex.setOnMouseClicked(e -> {
-          myGrid.incrementCellState(r, c);
-          drawGrid();
-        });
-        cellGrid.get(i).add(hex);
-        anchorPane.getChildren().add(hex);
-        xCoord += horizEdge * 1.5;
-      }
-      yCoord += height;
-      xCoord = 0;
-    }
-    return anchorPane;
+  protected double[][][] makeShapes() {
+    double horizEdge = getHorizEdge();
+    double height = getRowStep();
+    double[] xs = {horizEdge / 2, horizEdge * 1.5, horizEdge * 2, horizEdge * 1.5, horizEdge / 2, 0};
+    return new double[][][]{
+        {xs, {height / 2, height / 2, height, height * 1.5, height * 1.5, height}},
+        {xs, {0, 0, height / 2, height, height, height / 2}}
+    };
+  }
+
+  @Override
+  protected int getShape(int r, int c) {
+    return c % 2;
+  }
+
+  @Override
+  protected double getColumnStep() {
+    return getHorizEdge() * 1.5;
+  }
+
+  @Override
+  protected double getRowStep() {
+    return SIZE / (getHeight() + .5);
   }
 }
@@ -0,0 +1,213 @@
+package cellsociety.visualizer;
+
+import cellsociety.simulation.engine.DirtyTiles;
+import cellsociety.simulation.grid.GridSnapshot;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+/**
+ * @author: axo
+ * Holds an image of a grid of polygon cells at the size it is shown. Each cell's polygon is filled once, a
+ * scanline at a time, into a map from pixels to cells, so painting a step is one lookup per pixel no matter
+ * how many cells there are, and the cell under a point is found by looking up its pixel. Pixels on the
+ * outline of a cell can be marked as grid lines. The box of pixels covered by each tile of cells is kept
+ * too, so that after a step only the boxes of tiles holding changed cells need to be painted again.
+ *
+ * Assumptions: cell polygons are convex, and cells are numbered row * width + column as in GridSnapshot.getStates.
+ * The grid does not change size while the raster is in use.
+ *
+ * Dependencies: JavaFX images, the GridSnapshot class for reading all states at once, and DirtyTiles.
+ *
+ * Example usage: PolygonRaster raster = new PolygonRaster(grid.getWidth(), grid.getHeight(), 400, 400, true);
+ *         raster.fillCell(xs, ys, left, top, r * grid.getWidth() + c);
+ *         raster.paint(grid, getPalette());
+ */
+public class PolygonRaster {
+
+  private static final int FULL_PAINT_FRACTION = 4;
+  private static final int BACKGROUND = -1;
+  private static final int LINE_COLOR = 0xff808080;
+
+  private final int columns;
+  private final int rows;
+  private final int width;
+  private final int height;
+  private final boolean lines;
+  private final WritableImage image;
+  private final int[] cells;
+  private final int[] pixels;
+  private final PixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
+  private final DirtyTiles tiling = new DirtyTiles();
+  private final int[] tileBounds;
+
+  /**
+   * Creates an empty raster for a grid
+   * @param columns the number of columns of the grid
+   * @param rows the number of rows of the grid
+   * @param width the width of the image in pixels
+   * @param height the height of the image in pixels
+   * @param lines true to paint the outline of each cell as a grid line
+   */
+  public PolygonRaster(int columns, int rows, int width, int height, boolean lines) {
+    this.columns = columns;
+    this.rows = rows;
+    this.width = width;
+    this.height = height;
+    this.lines = lines;
+    image = new WritableImage(width, height);
+    cells = new int[width * height];
+    Arrays.fill(cells, BACKGROUND);
+    pixels = new int[width * height];
+    tiling.resize(rows, columns);
+    tileBounds = new int[tiling.getTileCount() * 4];
+    for (int tile = 0; tile < tiling.getTileCount(); tile++) {
+      tileBounds[tile * 4] = width;
+      tileBounds[tile * 4 + 1] = height;
+    }
+  }
+
+  /**
+   * Fills the pixels whose centers are inside a convex polygon with a cell
+   * @param xs the x coordinates of the corners, relative to left
+   * @param ys the y coordinates of the corners, relative to top
+   * @param left the x coordinate to move the polygon to
+   * @param top the y coordinate to move the polygon to
+   * @param cell the cell, numbered row * columns + column
+   */
+  public void fillCell(double[] xs, double[] ys, double left, double top, int cell) {
+    double minY = Double.MAX_VALUE;
+    double maxY = -Double.MAX_VALUE;
+    for (double y : ys) {
+      minY = Math.min(minY, top + y);
+      maxY = Math.max(maxY, top + y);
+    }
+    int firstRow = (int) Math.ceil(minY - .5);
+    int lastRow = (int) Math.ceil(maxY - .5) - 1;
+    for (int py = Math.max(0, firstRow); py <= Math.min(height - 1, lastRow); py++) {
+      double y = py + .5;
+      double minX = Double.MAX_VALUE;
+      double maxX = -Double.MAX_VALUE;
+      for (int v = 0; v < xs.length; v++) {
+        int next = (v + 1) % xs.length;
+        double y0 = top + ys[v];
+        double y1 = top + ys[next];
+        if ((y >= y0 && y < y1) || (y >= y1 && y < y0)) {
+          double x = left + xs[v] + (y - y0) / (y1 - y0) * (xs[next] - xs[v]);
+          minX = Math.min(minX, x);
+          maxX = Math.max(maxX, x);
+        }
+      }
+      int start = Math.max(0, (int) Math.ceil(minX - .5));
+      int end = Math.min(width, (int) Math.ceil(maxX - .5));
+      if (start < end) {
+        growTile(tiling.getTile(cell / columns, cell % columns), start, py, end, py + 1);
+      }
+      boolean edgeRow = py == firstRow || py == lastRow;
+      for (int px = start; px < end; px++) {
+        boolean edge = lines && (edgeRow || px == start || px == end - 1);
+        cells[py * width + px] = edge ? -cell - 2 : cell;
+      }
+    }
+  }
+
+  /**
+   * Grows the box of pixels of a tile, kept as left, top, right, bottom, to take in another box
+   */
+  private void growTile(int tile, int left, int top, int right, int bottom) {
+    int i = tile * 4;
+    tileBounds[i] = Math.min(tileBounds[i], left);
+    tileBounds[i + 1] = Math.min(tileBounds[i + 1], top);
+    tileBounds[i + 2] = Math.max(tileBounds[i + 2], right);
+    tileBounds[i + 3] = Math.max(tileBounds[i + 3], bottom);
+  }
+
+  /**
+   * Makes a view showing the raster at its own size
+   * @return an ImageView of the raster
+   */
+  public ImageView makeView() {
+    return new ImageView(image);
+  }
+
+  /**
+   * Returns the cell drawn at a point of the image
+   * @param x the x coordinate of the point
+   * @param y the y coordinate of the point
+   * @return the cell, numbered row * columns + column, or -1 if no cell is drawn there
+   */
+  public int getCellAt(double x, double y) {
+    if (x < 0 || y < 0 || x >= width || y >= height) {
+      return BACKGROUND;
+    }
+    int cell = cells[(int) y * width + (int) x];
+    return cell >= BACKGROUND ? cell : -cell - 2;
+  }
+
+  /**
+   * Returns whether or not this raster is the size of a grid
+   * @param grid a snapshot of the grid to check
+   * @return true if the grid has as many rows and columns as the raster
+   */
+  public boolean fits(GridSnapshot grid) {
+    return grid.getWidth() == columns && grid.getHeight() == rows;
+  }
+
+  /**
+   * Paints every pixel of the image with the color of its cell
+   * @param grid a snapshot of the grid to paint, the same size as the raster
+   * @param palette the ARGB color of each state, where states past the end are transparent
+   */
+  public void paint(GridSnapshot grid, int[] palette) {
+    int[] states = grid.getStates();
+    for (int i = 0; i < pixels.length; i++) {
+      int cell = cells[i];
+      if (cell >= 0) {
+        int state = states[cell];
+        pixels[i] = state >= 0 && state < palette.length ? palette[state] : 0;
+      } else {
+        pixels[i] = cell == BACKGROUND ? 0 : LINE_COLOR;
+      }
+    }
+    image.getPixelWriter().setPixels(0, 0, width, height, format, pixels, 0, width);
+  }
+
+  /**
+   * Paints the pixels covered by the marked tiles of a grid, or every pixel if more than
+   * 1 / FULL_PAINT_FRACTION of the tiles are marked
+   * @param grid a snapshot of the grid to paint, the same size as the raster
+   * @param palette the ARGB color of each state, where states past the end are transparent
+   * @param tiles the tiles holding cells that changed since the image was last painted
+   */
+  public void paintTiles(GridSnapshot grid, int[] palette, DirtyTiles tiles) {
+    if (tiles.isAllMarked()
+        || tiles.countMarked() * FULL_PAINT_FRACTION > tiles.getTileCount()) {
+      paint(grid, palette);
+      return;
+    }
+    int[] states = grid.getStates();
+    PixelWriter writer = image.getPixelWriter();
+    for (int tile = tiles.nextMarked(0); tile >= 0; tile = tiles.nextMarked(tile + 1)) {
+      int i = tile * 4;
+      int left = tileBounds[i];
+      int top = tileBounds[i + 1];
+      int right = tileBounds[i + 2];
+      int bottom = tileBounds[i + 3];
+      for (int py = top; py < bottom; py++) {
+        for (int px = left; px < right; px++) {
+          int cell = cells[py * width + px];
+          if (cell >= 0) {
+            int state = states[cell];
+            pixels[py * width + px] = state >= 0 && state < palette.length ? palette[state] : 0;
+          }
+        }
+      }
+      if (left < right) {
+        writer.setPixels(left, top, right - left, bottom - top, format, pixels, top * width + left, width);
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package cellsociety.visualizer;
+
+import cellsociety.simulation.engine.DirtyTiles;
+import cellsociety.simulation.grid.Grid;
+import javafx.scene.Node;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+
+/**
+ * @author: axo
+ * Renders grids of polygon cells, such as hexagons and triangles, as one image instead of one Polygon node
+ * per cell. Subclasses give the corners of one cell of each orientation and how far apart cells are, and
+ * every cell is filled from those into a PolygonRaster, which is then painted each step and used to find
+ * the cell under a click.
+ *
+ * Assumptions: same as the parent Visualizer class. Cells of a column are rowStep apart and cells of a row
+ * are columnStep apart, each shaped as one of the shapes given.
+ *
+ * Dependencies: PolygonRaster, and JavaFX for the Pane holding the image.
+ */
+public abstract class PolygonVisualizer extends Visualizer {
+
+  private PolygonRaster raster;
+
+  /**
+   * Constructor for Polygon Visualizers. Calls parent Visualizer constructor with the same grid object
+   * @param grid
+   */
+  public PolygonVisualizer(Grid grid) {
+    super(grid);
+  }
+
+  /**
+   * Returns the corners of each orientation of cell, for a cell whose bounding box starts at 0,0
+   * @return an array of shapes, where shape i holds the x coordinates at [i][0] and y coordinates at [i][1]
+   */
+  protected abstract double[][][] makeShapes();
+
+  /**
+   * @return the orientation of the cell at r,c, as an index into makeShapes
+   */
+  protected abstract int getShape(int r, int c);
+
+  /**
+   * @return the distance between the left sides of neighboring columns
+   */
+  protected abstract double getColumnStep();
+
+  /**
+   * @return the distance between the tops of neighboring rows
+   */
+  protected abstract double getRowStep();
+
+  /**
+   * Extended form of InstantiateCellGrid. Fills every cell into an image, with on-click actions and grid lines,
+   * and places it inside a Pane
+   * @return a Pane containing the image of the grid, sized to be rendered in the scene.
+   */
+  @Override
+  public Node instantiateCellGrid() {
+    int rows = getHeight();
+    int columns = getWidth();
+    double[][][] shapes = makeShapes();
+    double columnStep = getColumnStep();
+    double rowStep = getRowStep();
+    double right = 0;
+    double bottom = 0;
+    for (double[][] shape : shapes) {
+      for (double x : shape[0]) {
+        right = Math.max(right, (columns - 1) * columnStep + x);
+      }
+      for (double y : shape[1]) {
+        bottom = Math.max(bottom, (rows - 1) * rowStep + y);
+      }
+    }
+    boolean lines = gridLines && Math.min(columnStep, rowStep) >= MIN_LINE_SPACING;
+    raster = new PolygonRaster(columns, rows, (int) Math.ceil(right), (int) Math.ceil(bottom), lines);
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < columns; c++) {
+        double[][] shape = shapes[getShape(r, c)];
+        raster.fillCell(shape[0], shape[1], c * columnStep, r * rowStep, r * columns + c);
+      }
+    }
+    Pane pane = new Pane(raster.makeView());
+    pane.setOnMouseClicked(this::clickCell);
+    raster.paint(mySnapshot, getPalette());
+    return pane;
+  }
+
+  private void clickCell(MouseEvent e) {
+    int cell = raster.getCellAt(e.getX(), e.getY());
+    if (cell >= 0) {
+      incrementCellState(cell / getWidth(), cell % getWidth());
+    }
+  }
+
+  /**
+   * Repaints the image of the grid, remaking it first if the grid has changed size
+   */
+  @Override
+  protected void paintAllCells() {
+    if (raster == null || !raster.fits(mySnapshot)) {
+      reDrawGrid();
+      return;
+    }
+    raster.paint(mySnapshot, getPalette());
+  }
+
+  /**
+   * Repaints the pixels of the marked tiles, remaking the image first if the grid has changed size
+   */
+  @Override
+  protected void paintChangedCells(DirtyTiles tiles) {
+    if (raster == null || !raster.fits(mySnapshot)) {
+      reDrawGrid();
+      return;
+    }
+    raster.paintTiles(mySnapshot, getPalette(), tiles);
+  }
+}
@@ -1,18 +1,28 @@
 package cellsociety.visualizer;
 
+import cellsociety.simulation.engine.DirtyTiles;
 import cellsociety.simulation.grid.Grid;
-import java.util.ArrayList;
 import javafx.scene.Node;
-import javafx.scene.layout.GridPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.StrokeType;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
 
 /**
  * @author: axo
+ * Renders rectangular grids through a GridViewport, a single image the size of the view showing a window onto
+ * the grid, instead of one Rectangle node per cell, so that grids far bigger than the screen can be drawn every
+ * step. Scrolling zooms in and out about the mouse, dragging pans, and right clicking fits the whole grid back
+ * in the view. Clicks are turned into a cell by the viewport.
  */
 public class RectVisualizer extends Visualizer {
 
+  private static final double ZOOM_STEP = 1.25;
+
+  private GridViewport viewport;
+  private double dragX;
+  private double dragY;
+
   /**
    * Constructor for Rectangle Visualizer. Calls parent Visualizer constructor with the same grid object
    * Same assumptions as parent Visualizer class.
@@ -23,40 +33,70 @@ public class RectVisualizer extends Visualizer {
   }
 
   /**
-   * Extended form of InstantiateCellGrid. Creates Rectangles with on-click actions and rendered colors and places them inside a GridPane
-   * @return a GridPane containing the desired size and configuration of Rectangles to be rendered in the scene.
+   * Extended form of InstantiateCellGrid. Places the image of the viewport, with on-click, zoom and pan actions,
+   * inside a Pane. The viewport is kept from before, so remaking the grid does not lose the zoom
+   * @return a Pane containing the image of the grid, sized to be rendered in the scene.
    */
   public Node instantiateCellGrid() {
-    GridPane gridpane = new GridPane();
-    if (cellGrid == null) {
-      cellGrid = new ArrayList<>();
+    if (viewport == null) {
+      viewport = new GridViewport(SIZE, SIZE);
+    }
+    viewport.setGridLines(gridLines);
+    Pane pane = new Pane(viewport.makeView());
+    pane.setOnMouseClicked(this::clickCell);
+    pane.setOnMousePressed(e -> {
+      dragX = e.getX();
+      dragY = e.getY();
+    });
+    pane.setOnMouseDragged(e -> {
+      viewport.pan(e.getX() - dragX, e.getY() - dragY);
+      dragX = e.getX();
+      dragY = e.getY();
+      drawGrid();
+    });
+    pane.setOnScroll(this::zoom);
+    paintAllCells();
+    return pane;
+  }
+
+  private void clickCell(MouseEvent e) {
+    if (!e.isStillSincePress()) {
+      return;
     }
-    cellGrid.clear();
-    Color[][] colorgrid = getColorGrid();
-    for (int i = 0; i < colorgrid.length; i++) {
-      cellGrid.add(new ArrayList<>());
-      for (int j = 0; j < colorgrid[i].length; j++) {
-        Rectangle cell = new Rectangle();
-        cell.setFill(colorgrid[i][j]);
-        if(gridLines) {
-          cell.setStrokeType(StrokeType.INSIDE);
-          cell.setStroke(Color.GRAY);
-          cell.setStrokeWidth(.5);
-        }
-        cell.setWidth(SIZE / colorgrid[i].length);
-        cell.setHeight(SIZE / colorgrid.length);
-        cell.setX(i * cell.getWidth());
-        cell.setY(j * cell.getHeight());
-        final int r = i;
-        final int c = j;
-        cell.setOnMouseClicked(e -> {
-          myGrid.incrementCellState(r, c);
-          drawGrid();
-        });
-        cellGrid.get(i).add(cell);
-        gridpane.add(cell, j, i); //order of these was changed by Maverick to make other things work
-      }
+    if (e.getButton() == MouseButton.SECONDARY) {
+      viewport.fit();
+      drawGrid();
+      return;
+    }
+    int cell = viewport.getCellAt(e.getX(), e.getY());
+    if (cell >= 0) {
+      incrementCellState(cell / getWidth(), cell % getWidth());
+    }
+  }
+
+  private void zoom(ScrollEvent e) {
+    if (e.getDeltaY() != 0) {
+      viewport.zoomAt(e.getX(), e.getY(), e.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP);
+      drawGrid();
     }
-    return gridpane;
+  }
+
+  /**
+   * Repaints the window of the grid being viewed
+   */
+  @Override
+  protected void paintAllCells() {
+    viewport.setGridSize(getWidth(), getHeight());
+    viewport.paint(mySnapshot, getPalette());
+  }
+
+  /**
+   * Repaints the window of the grid being viewed if any marked tile is in it, keeping the mean colors of
+   * zoomed out blocks up to date either way
+   */
+  @Override
+  protected void paintChangedCells(DirtyTiles tiles) {
+    viewport.setGridSize(getWidth(), getHeight());
+    viewport.paintTiles(mySnapshot, getPalette(), tiles);
   }
 }
@@ -1,18 +1,12 @@
 package cellsociety.visualizer;
 
 import cellsociety.simulation.grid.Grid;
-import java.util.ArrayList;
-import javafx.scene.Node;
-import javafx.scene.layout.AnchorPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Polygon;
-import javafx.scene.shape.Shape;
-import javafx.scene.shape.StrokeType;
 
 /**
  * @author: axo
+ * Renders triangular grids, where triangles point up and down in turn along each row and each column.
  */
-public class TriVisualizer extends Visualizer {
+public class TriVisualizer extends PolygonVisualizer {
 
   /**
    * Constructor for Triangle Visualizer. Calls parent Visualizer constructor with the same grid object
@@ -23,61 +17,39 @@ public class TriVisualizer extends Visualizer {
     super(grid);
   }
 
+  private double getHorizEdge() {
+    if (getWidth() % 2 == 0) {
+      return SIZE / (getWidth() / 2 + .5);
+    }
+    return SIZE / (getWidth() / 2 + 1);
+  }
+
   /**
-   * Extended form of InstantiateCellGrid. Creates Triangles with on-click actions and rendered colors and places them inside an AnchorPane
-   * @return an AnchorPane containing the desired size and configuration of Triangles to be rendered in the scene.
+   * Gives the corners of the triangles pointing up and of those pointing down
+   * @return the two triangles
    */
   @Override
-  public Node instantiateCellGrid() {
-    AnchorPane anchorPane = new AnchorPane();
-    cellGrid = new ArrayList<ArrayList<Shape>>();
-    Color[][] colorgrid = getColorGrid();
-    double horizEdge;
-    if (colorgrid[0].length % 2 == 0) {
-      horizEdge = SIZE / (colorgrid[0].length / 2 + .5);
-    } else {
-      horizEdge = SIZE / (colorgrid[0].length / 2 + 1);
-    }
-    double height = SIZE / (colorgrid.length);
-    double yCoord = 0.0;
-    double xCoord = 0.0;
-    for (int i = 0; i < colorgrid.length; i++) {
-      cellGrid.add(new ArrayList<Shape>());
-      for (int j = 0; j < colorgrid[i].length; j++) {
-        Polygon tri = new Polygon();
-        int start = j % 2 + i % 2;
-        if (start % 2 == 0) {
-          tri.getPoints().addAll(new Double[]{
-              xCoord + horizEdge / 2, yCoord,
-              xCoord + horizEdge, yCoord + height,
-              xCoord, yCoord + height,
-          });
-        } else {
-          tri.getPoints().addAll(new Double[]{
-              xCoord, yCoord,
-              xCoord + horizEdge, yCoord,
-              xCoord + horizEdge / 2, yCoord + height,
-          });
-        }
-        tri.setFill(colorgrid[i][j]);
-        if(gridLines) {
-          tri.setStrokeType(StrokeType.INSIDE);
-          tri.setStroke(Color.GRAY);
-          tri.setStrokeWidth(.5);
-        }
-        final int r = i; //FIXME extract method into abstract class
-        final int c = j;
-        tri.setOnMouseClicked(e -> {
-          myGrid.incrementCellState(r, c);
-          drawGrid();
-        });
-        cellGrid.get(i).add(tri);
-        anchorPane.getChildren().add(tri);
-        xCoord += horizEdge / 2;
-      }
-      yCoord += height;
-      xCoord = 0;
-    }
-    return anchorPane;
+  protected double[][][] makeShapes() {
+    double horizEdge = getHorizEdge();
+    double height = getRowStep();
+    return new double[][][]{
+        {{horizEdge / 2, horizEdge, 0}, {0, height, height}},
+        {{0, horizEdge, horizEdge / 2}, {0, 0, height}}
+    };
+  }
+
+  @Override
+  protected int getShape(int r, int c) {
+    return (c % 2 + r % 2) % 2;
+  }
+
+  @Override
+  protected double getColumnStep() {
+    return getHorizEdge() / 2;
+  }
+
+  @Override
+  protected double getRowStep() {
+    return SIZE / (double) getHeight();
   }
 }
@@ -1,7 +1,12 @@
 package cellsociety.visualizer;
 
+import cellsociety.metrics.StepMetrics;
+import cellsociety.simulation.engine.DirtyTiles;
 import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.GridSnapshot;
+import cellsociety.simulation.grid.SimulationLoop;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,19 +24,22 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Shape;
 
 /**
  * @author: axo
  * Handles rendering of cell grid, graph, and parameter-tuning text fields
- * based on Grid object data and passes it up to the SimulationApp application
+ * based on Grid object data and passes it up to the SimulationApp application.
+ * The grid is stepped by a SimulationLoop on its own thread, and this class only ever draws the snapshots
+ * the loop hands it, taking the newest one each frame. Clicks and parameters are sent to the loop as commands.
  *
  * Assumptions: this class will fail if the Grid class does not have ways to give color information
  * on individual cells (asked for with row-column indexing) and if it does not have ways to give a list
  * of possible parameters to tune. This class also assumes that the Grid class is made externally and is
  * passed into the constructor, and finally that the Config can give it a mapping between cell state and color.
+ * Once the loop is started, the grid is only touched through the loop.
  *
- * Dependencies: this class is dependent on JavaFX as well as the Grid class in the simulation package of cellsociety.
+ * Dependencies: this class is dependent on JavaFX as well as the Grid, GridSnapshot and SimulationLoop classes
+ * in the simulation package of cellsociety. Drawing and charting are timed by StepMetrics while metrics are on.
  *
  * Example usage: Create a visualizer with a certain grid passed into it based on data from config:
  *         visualizerClass = Class.forName(PACKAGE_PREFIX_NAME + myConfig.getVisualizer());
@@ -42,39 +50,42 @@ import javafx.scene.shape.Shape;
  */
 public abstract class Visualizer {
   protected static final int SIZE = 400;
+  protected static final double MIN_LINE_SPACING = 3;
 
-  protected Grid myGrid;
+  private SimulationLoop mySimulation;
+  protected GridSnapshot mySnapshot;
+  private String[] myParams;
   private BorderPane bundle;
-  protected ArrayList<ArrayList<Shape>> cellGrid;
   protected Map<Integer, Color> myColorMap;
+  private int[] myPalette;
   private LineChart<Number, Number> myGraph;
   private List<Series> mySeries;
   private long stepsElapsed;
   protected boolean gridLines;
 
   /**
-   * Constructor, gives Visualizer access to the grid created by the Config after reading the XML, and sets
+   * Constructor, makes a paused SimulationLoop for the grid created by the Config after reading the XML, and sets
    * the step tracker for the graph, whether to render gridlines or not,
    * and creates the pane to be passed back to the SimulationApp for rendering
    */
   public Visualizer(Grid grid) {
     bundle = new BorderPane();
-    myGrid = grid;
+    myParams = grid.getParams();
+    mySimulation = new SimulationLoop(grid);
+    mySnapshot = mySimulation.takeLatest();
     stepsElapsed = 0;
     gridLines = true;
   }
 
   /**
-   * Instantiates a grid of shapes in a pane to be rendered by the scene. Takes color data
-   * from the Grid class and uses it to create scaled shapes at the correct size and dimension
-   * and collects these shapes into a pane.
+   * Instantiates an image of the grid in a pane to be rendered by the scene. Takes state data
+   * from the latest GridSnapshot and uses it to paint cells at the correct size and dimension.
    *
-   * Assumptions: The getColorGrid method correctly works and creates a correctly-sized grid of the correct colors,
-   * requiring the Grid.getState, Grid.getWidth, and Grid.getHeight methods to work as well.
+   * Assumptions: The getPalette method has a color for every state.
    *
-   * Dependencies: JavaFX for shape rendering and placement in a Pane.
+   * Dependencies: JavaFX for images and placement in a Pane.
    *
-   * @return A node containing all the shapes to be rendered for the simulation
+   * @return A node containing the image of the grid to be rendered for the simulation
    */
   protected abstract Node instantiateCellGrid();
 
@@ -97,7 +108,7 @@ public abstract class Visualizer {
     myGraph.setTitle("Cell Population");
 
     mySeries = new ArrayList<XYChart.Series>();
-    int[] populations = myGrid.getPopulations();
+    int[] populations = mySnapshot.getPopulations();
     for (int i = 0; i < populations.length; i++) {
       XYChart.Series tempSeries = new XYChart.Series<>();
       mySeries.add(tempSeries);
@@ -108,19 +119,23 @@ public abstract class Visualizer {
   }
 
   /**
-   * Updates graph by placing points at the next integer step representing the populations of each cell in the simulation
+   * Updates graph by placing points at the step of the latest snapshot representing the populations of each cell
+   * in the simulation. Steps the loop took between snapshots are left out of the graph
    */
-  public void updateChart() {
-    stepsElapsed += 1;
+  private void updateChart() {
+    long start = StepMetrics.start();
+    stepsElapsed = mySnapshot.getStep();
     addPoint();
+    StepMetrics.stop(StepMetrics.UPDATE_CHART, start);
   }
 
   /**
    * Places a point for each cell's population on the graph when called
    */
   private void addPoint() {
-    for (int i = 0; i < mySeries.size(); i++) {
-      XYChart.Data point = new XYChart.Data(stepsElapsed, myGrid.getPopulations()[i]);
+    int[] populations = mySnapshot.getPopulations();
+    for (int i = 0; i < mySeries.size() && i < populations.length; i++) {
+      XYChart.Data point = new XYChart.Data(stepsElapsed, populations[i]);
       mySeries.get(i).getData().add(point);
       Set<Node> nodes = myGraph.lookupAll(".series"+i);
       for(Node series : nodes){
@@ -145,34 +160,56 @@ public abstract class Visualizer {
   }
 
   /**
-   * Steps the state of the grid by one. Checks for rescaling, and if so, recreates the entire grid
-   * at the new size. If not, just repaints the existing grid.
+   * Draws the newest snapshot handed out by the simulation loop, if there is one that has not been drawn.
+   * Only the cells that changed since the last snapshot drawn are repainted, and the whole grid is remade if it
+   * has changed size. The graph gets a point if the snapshot is from a later step. Called once per frame
    */
-  public void stepGrid() {
-    if(myGrid.update()){
-      bundle.setCenter(instantiateCellGrid());
+  public void drawLatest() {
+    GridSnapshot latest = mySimulation.takeLatest();
+    if (latest == null) {
+      return;
+    }
+    mySnapshot = latest;
+    drawChangedCells();
+    if (mySnapshot.getStep() > stepsElapsed) {
+      updateChart();
     }
-    drawGrid();
   }
 
   /**
-   * Repaints the grid by iterating through every cell and checking its new color data, and then
-   * sets the cell to this new color data.
-   * Assumes that the Grid object myGrid has a valid getState method which has equal or greater
-   * dimensions than the size of the cellGrid
+   * Repaints the grid with the state of every cell in the latest snapshot.
    */
   public void drawGrid() {
-    for (int i = 0; i < cellGrid.size(); i++) {
-      for (int j = 0; j < cellGrid.get(i).size(); j++) {
-        cellGrid.get(i).get(j).setFill(myColorMap.get(myGrid.getState(i, j)));
-      }
-    }
+    long start = StepMetrics.start();
+    paintAllCells();
+    StepMetrics.stop(StepMetrics.DRAW_GRID, start);
+  }
+
+  /**
+   * Repaints every cell, in the way of the specific visualizer
+   */
+  protected abstract void paintAllCells();
+
+  /**
+   * Repaints only the tiles of the grid holding cells changed since the last snapshot drawn, by steps or by clicks.
+   */
+  protected void drawChangedCells() {
+    long start = StepMetrics.start();
+    paintChangedCells(mySnapshot.getChangedTiles());
+    StepMetrics.stop(StepMetrics.DRAW_GRID, start);
   }
 
   /**
-   * Redraws the entire cell grid (remakes shapes and sets them) instead of just repainting over the existing shapes.
+   * Repaints at least the cells in the marked tiles.
+   * Assumes that the image was up to date with the last snapshot drawn before this one.
+   * @param tiles the tiles holding cells changed since the last snapshot drawn
+   */
+  protected abstract void paintChangedCells(DirtyTiles tiles);
+
+  /**
+   * Redraws the entire cell grid (remakes the image and sets it) instead of just repainting over the existing one.
    * This allows methods to change HOW the cells are rendered, such as the GridLines on/off toggle.
-   * Again assumes that there is a valid set of colors created by the getColorGrid.
+   * Again assumes that there is a valid set of colors given by getPalette.
    */
   public void reDrawGrid() {
     bundle.setCenter(instantiateCellGrid());
@@ -182,33 +219,63 @@ public abstract class Visualizer {
    * Sets the color mapping of integer to color for use in rendering the correct colors.
    * Allows the grid to not have to pass Color data (or even access color data) from JavaFX
    * @param newMap - the map with which the Visualizer will map the Grid's passed integer cell state
-   *               data to color data
+   *               data to web color strings, as read by Color.web
    */
-  public void setColorMap(Map<Integer, Color> newMap) {
-    myColorMap = newMap;
+  public void setColorMap(Map<Integer, String> newMap) {
+    myColorMap = new HashMap<>();
+    for (Map.Entry<Integer, String> entry : newMap.entrySet()) {
+      myColorMap.put(entry.getKey(), Color.web(entry.getValue()));
+    }
+    myPalette = null;
   }
 
   /**
-   * Generates an array of Color objects used to generate the colored shapes in the visualizer
-   * Assumes the Grid class has a getWidth, getHeight, and getState method which accurately returns state and size information
-   * @return an array of Color objects corresponding to the colors of different cells
+   * Returns the color of each state as a packed ARGB int, for writing straight into pixels. States without
+   * a color are transparent
+   * @return an array where the ith value is the color of state i, as 0xAARRGGBB
    */
-  protected Color[][] getColorGrid() {
-    Color[][] colorgrid = new Color[myGrid.getHeight()][myGrid.getWidth()];
-    for (int i = 0; i < colorgrid.length; i++) {
-      for (int j = 0; j < colorgrid[i].length; j++) {
-        colorgrid[i][j] = myColorMap.get(myGrid.getState(i, j));
+  protected int[] getPalette() {
+    if (myPalette == null) {
+      int highest = 0;
+      for (int state : myColorMap.keySet()) {
+        highest = Math.max(highest, state);
+      }
+      myPalette = new int[highest + 1];
+      for (Map.Entry<Integer, Color> entry : myColorMap.entrySet()) {
+        if (entry.getKey() >= 0) {
+          myPalette[entry.getKey()] = toArgb(entry.getValue());
+        }
       }
     }
-    return colorgrid;
+    return myPalette;
+  }
+
+  private static int toArgb(Color color) {
+    return (int) Math.round(color.getOpacity() * 255) << 24 | (int) Math.round(color.getRed() * 255) << 16
+        | (int) Math.round(color.getGreen() * 255) << 8 | (int) Math.round(color.getBlue() * 255);
   }
 
   /**
-   * Sets the Visualizer's Grid instance variable to a new grid
-   * @param newGrid - The grid to which the Visualizer's Grid instance variable will be set to
+   * Hands the simulation loop a new grid to step in place of the current one. The new grid is drawn once the
+   * loop hands out its first snapshot
+   * @param newGrid - The grid the loop will step from now on
    */
   public void setGrid(Grid newGrid) {
-    myGrid = newGrid;
+    mySimulation.setGrid(newGrid);
+  }
+
+  /**
+   * Asks the simulation loop to increment the state of a cell, if the grid is still big enough to hold it
+   * by the time the loop gets to it. The change is drawn with the next snapshot
+   * @param r row of the cell
+   * @param c column of the cell
+   */
+  protected void incrementCellState(int r, int c) {
+    mySimulation.submit(grid -> {
+      if (r < grid.getHeight() && c < grid.getWidth()) {
+        grid.incrementCellState(r, c);
+      }
+    });
   }
 
   /**
@@ -218,7 +285,7 @@ public abstract class Visualizer {
    */
   private Node setParamBar() {
     HBox parameters = new HBox();
-    String[] paramList = myGrid.getParams();
+    String[] paramList = myParams;
     for (String s : paramList) {
       TextField paramField = makeParamField(s);
       parameters.getChildren().add(paramField);
@@ -245,7 +312,7 @@ public abstract class Visualizer {
     paramField.setOnAction(e -> {
       if (paramField.getText() != null && !paramField.getText().isEmpty()) {
         double value = Double.parseDouble(paramField.getText());
-        myGrid.setParam(param, value);
+        mySimulation.submit(grid -> grid.setParam(param, value));
       } else {
         Alert errorAlert = new Alert(AlertType.WARNING);
         errorAlert.setHeaderText("Enter a valid double");
@@ -260,20 +327,20 @@ public abstract class Visualizer {
    * @return the current size of the grid being rendered
    */
   public int getWidth() {
-    return myGrid.getWidth();
+    return mySnapshot.getWidth();
   }
 
   /**
    * @return the current size of the grid being rendered
    */
   public int getHeight() {
-    return myGrid.getHeight();
+    return mySnapshot.getHeight();
   }
 
   /**
-   * @return the current Grid object
+   * @return the loop stepping the grid, through which the grid is played, paused, stepped, and read
    */
-  public Grid getGrid() {return myGrid;}
+  public SimulationLoop getSimulation() {return mySimulation;}
 
   /**
    * Sets whether gridLines should be rendered or not
@@ -0,0 +1,134 @@
+package cellsociety.batch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.RectGrid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks when a BatchRun stops: after maxSteps, once the populations have stayed the same for the
+ * number of steady steps, or once a state has died out, and that a grid in a HashLifeEngine is counted in
+ * generations rather than updates.
+ *
+ * Dependencies: BatchRun, RectGrid
+ */
+class BatchRunTest {
+
+  private static final long SEED = 308;
+  private static final int SIZE = 20;
+  private static final int MAX_STEPS = 1000;
+  private static final int STEADY_STEPS = 5;
+  private static final int ALIVE = 1;
+
+  private static Grid makeGrid(int edge, int size) throws ClassNotFoundException {
+    Grid grid = new RectGrid();
+    grid.setSeed(SEED);
+    grid.setRandomGrid("ConwayCell", new HashMap<>(), new double[]{2, 1}, edge, null, size, size);
+    grid.addState(ALIVE);
+    grid.setFlatStorage(true);
+    grid.setThreads(1);
+    return grid;
+  }
+
+  private static Grid makeEmptyGrid() throws ClassNotFoundException {
+    Grid grid = new RectGrid();
+    grid.setRandomGrid("ConwayCell", new HashMap<>(), new double[]{1, 0}, 0, null, SIZE, SIZE);
+    grid.addState(ALIVE);
+    return grid;
+  }
+
+  @Test
+  void stopsWhenSteady() throws Exception {
+    BatchRun run = new BatchRun(makeGrid(0, SIZE), MAX_STEPS);
+    run.setSteadySteps(STEADY_STEPS);
+    run.run();
+    assertTrue(run.getSteps() < MAX_STEPS, "never steady");
+    assertTrue(run.getSteadyStep() > 0, "steady from the start");
+    assertEquals(run.getSteadyStep() + STEADY_STEPS, run.getSteps());
+    assertEquals(run.getSteps(), run.getUpdates());
+
+    Grid replay = makeGrid(0, SIZE);
+    List<int[]> populations = new ArrayList<>();
+    populations.add(replay.getPopulations().clone());
+    for (long step = 0; step < run.getSteps(); step++) {
+      replay.update();
+      populations.add(replay.getPopulations().clone());
+    }
+    int steady = (int) run.getSteadyStep();
+    assertFalse(Arrays.equals(populations.get(steady - 1), populations.get(steady)), "changed at the steady step");
+    for (int step = steady; step <= run.getSteps(); step++) {
+      assertArrayEquals(populations.get(steady), populations.get(step), "populations at step " + step);
+    }
+    assertArrayEquals(populations.get(populations.size() - 1), run.getGrid().getPopulations());
+  }
+
+  @Test
+  void makesEveryStepWithoutStops() throws Exception {
+    BatchRun run = new BatchRun(makeGrid(0, SIZE), 50);
+    run.run();
+    assertEquals(50, run.getSteps());
+    assertEquals(BatchRun.OFF, run.getSteadyStep());
+  }
+
+  @Test
+  void stopsWhenExtinct() throws Exception {
+    Grid grid = makeEmptyGrid();
+    grid.incrementCellState(5, 5);
+    grid.incrementCellState(5, 6);
+    BatchRun run = new BatchRun(grid, MAX_STEPS);
+    run.setExtinctState(ALIVE);
+    run.run();
+    assertEquals(1, run.getSteps(), "a pair of live cells dies in one step");
+    assertEquals(0, grid.getPopulations()[ALIVE]);
+    assertEquals(BatchRun.OFF, run.getSteadyStep());
+
+    Grid block = makeEmptyGrid();
+    block.incrementCellState(5, 5);
+    block.incrementCellState(5, 6);
+    block.incrementCellState(6, 5);
+    block.incrementCellState(6, 6);
+    BatchRun still = new BatchRun(block, 30);
+    still.setExtinctState(ALIVE);
+    still.run();
+    assertEquals(30, still.getSteps(), "a block never dies out");
+
+    BatchRun unknown = new BatchRun(makeGrid(0, SIZE), MAX_STEPS);
+    unknown.setExtinctState(ALIVE + 1);
+    unknown.run();
+    assertEquals(1, unknown.getSteps(), "a state past the highest one has no cells");
+  }
+
+  @Test
+  void countsHashLifeGenerations() throws Exception {
+    int stepLog = 3;
+    int size = 32;
+    Grid grid = makeGrid(Cell.INFINTE, size);
+    assertTrue(grid.setHashLife(stepLog, 0));
+    assertEquals(1 << stepLog, grid.getGenerationsPerUpdate());
+    List<Long> reported = new ArrayList<>();
+    grid.addPopulationListener((step, populations) -> reported.add(step));
+    BatchRun run = new BatchRun(grid, 20);
+    run.run();
+    assertEquals(3, run.getUpdates());
+    assertEquals(24, run.getSteps());
+    assertEquals(List.of(8L, 16L, 24L), reported);
+
+    Grid chunked = makeGrid(Cell.INFINTE, size);
+    assertEquals(1, chunked.getGenerationsPerUpdate());
+    for (int generation = 0; generation < 24; generation++) {
+      chunked.update();
+    }
+    assertEquals(chunked.getPopulations()[ALIVE], grid.getPopulations()[ALIVE]);
+  }
+}
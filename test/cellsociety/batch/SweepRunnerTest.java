@@ -0,0 +1,58 @@
+package cellsociety.batch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks the parameter values a SweepRunner sweeps over: ranges that include their end despite
+ * rounding, lists of values, and combinations counted through the last parameter fastest, each once.
+ *
+ * Dependencies: SweepRunner
+ */
+class SweepRunnerTest {
+
+  private static final double TOLERANCE = 1e-12;
+  private static final File CONFIG = new File("data/Fire.xml");
+
+  @Test
+  void parsesRanges() {
+    assertArrayEquals(new double[]{0, .25, .5, .75, 1}, SweepRunner.parseRange("0:1:0.25"), TOLERANCE);
+    double[] tenths = SweepRunner.parseRange("0:0.3:0.1");
+    assertEquals(4, tenths.length, "the end is kept even though 0.3 / 0.1 rounds below 3");
+    assertEquals(.3, tenths[3], TOLERANCE);
+    assertArrayEquals(new double[]{2, 5}, SweepRunner.parseRange("2:6:3"), TOLERANCE);
+    assertEquals(0, SweepRunner.parseRange("1:0:1").length);
+    assertArrayEquals(new double[]{1, 2.5, 3}, SweepRunner.parseRange("1,2.5, 3"), TOLERANCE);
+    assertArrayEquals(new double[]{.6}, SweepRunner.parseRange(".6"), TOLERANCE);
+  }
+
+  @Test
+  void countsThroughLastParameterFastest() {
+    SweepRunner sweep = new SweepRunner(CONFIG, 10, 1);
+    assertEquals(1, sweep.getCombinations());
+    assertEquals(0, sweep.getSetting(0).length);
+    sweep.addParam("probCatch", "1,2");
+    sweep.addParam("probGrow", "10:30:10");
+    assertEquals(6, sweep.getCombinations());
+    assertArrayEquals(new double[]{1, 10}, sweep.getSetting(0));
+    assertArrayEquals(new double[]{1, 20}, sweep.getSetting(1));
+    assertArrayEquals(new double[]{1, 30}, sweep.getSetting(2));
+    assertArrayEquals(new double[]{2, 10}, sweep.getSetting(3));
+    assertArrayEquals(new double[]{2, 30}, sweep.getSetting(5));
+    Set<List<Double>> settings = new HashSet<>();
+    for (int combination = 0; combination < sweep.getCombinations(); combination++) {
+      settings.add(DoubleStream.of(sweep.getSetting(combination)).boxed().collect(Collectors.toList()));
+    }
+    assertEquals(sweep.getCombinations(), settings.size());
+  }
+}
@@ -0,0 +1,62 @@
+package cellsociety.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a LatencyHistogram puts every duration in the bucket of its power of two, and that its
+ * percentiles, count, sum and maximum come from the durations recorded.
+ *
+ * Dependencies: LatencyHistogram
+ */
+class LatencyHistogramTest {
+
+  @Test
+  void bucketsByPowersOfTwo() {
+    assertEquals(0, LatencyHistogram.getBucket(0));
+    assertEquals(0, LatencyHistogram.getBucket(-5));
+    assertEquals(1, LatencyHistogram.getBucket(1));
+    assertEquals(2, LatencyHistogram.getBucket(2));
+    assertEquals(2, LatencyHistogram.getBucket(3));
+    assertEquals(10, LatencyHistogram.getBucket(1023));
+    assertEquals(11, LatencyHistogram.getBucket(1024));
+    assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.getBucket(Long.MAX_VALUE));
+    for (int shift = 0; shift < Long.SIZE - 1; shift++) {
+      for (long nanos : new long[]{(1L << shift) - 1, 1L << shift, (1L << shift) + 1}) {
+        int bucket = LatencyHistogram.getBucket(nanos);
+        assertTrue(nanos < LatencyHistogram.getUpperBound(bucket), nanos + " is past bucket " + bucket);
+        assertTrue(bucket == 0 || nanos >= LatencyHistogram.getUpperBound(bucket - 1),
+            nanos + " fits in the bucket before " + bucket);
+      }
+    }
+  }
+
+  @Test
+  void findsPercentilesFromBuckets() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentile(50));
+    for (int i = 0; i < 90; i++) {
+      histogram.record(100);
+    }
+    for (int i = 0; i < 10; i++) {
+      histogram.record(10_000);
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(90 * 100 + 10 * 10_000, histogram.getTotalNanos());
+    assertEquals(10_000, histogram.getMaxNanos());
+    assertEquals(90, histogram.getBucketCount(LatencyHistogram.getBucket(100)));
+    assertEquals(128, histogram.getPercentile(50));
+    assertEquals(128, histogram.getPercentile(90));
+    assertEquals(10_000, histogram.getPercentile(91), "capped at the longest duration");
+    assertEquals(10_000, histogram.getPercentile(100));
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getTotalNanos());
+    assertEquals(0, histogram.getMaxNanos());
+    assertEquals(0, histogram.getBucketCount(LatencyHistogram.getBucket(100)));
+  }
+}
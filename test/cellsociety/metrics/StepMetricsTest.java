@@ -0,0 +1,76 @@
+package cellsociety.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks the Prometheus text StepMetrics writes: cumulative buckets in seconds for every phase, and
+ * the step and cell counts, and that steps are only counted while metrics are on.
+ *
+ * Dependencies: StepMetrics, LatencyHistogram
+ */
+class StepMetricsTest {
+
+  @BeforeEach
+  void resetMetrics() {
+    StepMetrics.reset();
+    StepMetrics.setEnabled(true);
+  }
+
+  @AfterEach
+  void turnOff() {
+    StepMetrics.setEnabled(false);
+    StepMetrics.reset();
+  }
+
+  private static List<String> getLines(String prefix) {
+    return Arrays.stream(StepMetrics.toText().split("\n"))
+        .filter(line -> line.startsWith(prefix))
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  void writesCumulativeBuckets() {
+    StepMetrics.getHistogram(StepMetrics.PLAN).record(1500);
+    StepMetrics.getHistogram(StepMetrics.PLAN).record(3000);
+    List<String> buckets = getLines("cellsociety_phase_seconds_bucket{phase=\"plan\"");
+    assertEquals(StepMetrics.LAST_TEXT_BUCKET - StepMetrics.FIRST_TEXT_BUCKET + 2, buckets.size());
+    assertEquals("cellsociety_phase_seconds_bucket{phase=\"plan\",le=\"1.024E-6\"} 0", buckets.get(0));
+    assertEquals("cellsociety_phase_seconds_bucket{phase=\"plan\",le=\"2.048E-6\"} 1", buckets.get(1));
+    assertEquals("cellsociety_phase_seconds_bucket{phase=\"plan\",le=\"4.096E-6\"} 2", buckets.get(2));
+    assertEquals("cellsociety_phase_seconds_bucket{phase=\"plan\",le=\"+Inf\"} 2", buckets.get(buckets.size() - 1));
+    assertEquals(List.of("cellsociety_phase_seconds_sum{phase=\"plan\"} 4.5E-6"),
+        getLines("cellsociety_phase_seconds_sum{phase=\"plan\""));
+    assertEquals(List.of("cellsociety_phase_seconds_count{phase=\"plan\"} 2"),
+        getLines("cellsociety_phase_seconds_count{phase=\"plan\""));
+    for (String phase : StepMetrics.PHASE_NAMES) {
+      assertEquals(1, getLines("cellsociety_phase_seconds_count{phase=\"" + phase + "\"").size(), phase);
+    }
+  }
+
+  @Test
+  void countsStepsWhileOn() {
+    StepMetrics.recordStep(100, 7);
+    StepMetrics.recordStep(-1, -1);
+    StepMetrics.setEnabled(false);
+    StepMetrics.recordStep(1000, 1000);
+    assertEquals(0, StepMetrics.start());
+    StepMetrics.stop(StepMetrics.PLAN, 0);
+    assertEquals(0, StepMetrics.getHistogram(StepMetrics.PLAN).getCount());
+    String text = StepMetrics.toText();
+    assertTrue(text.contains("cellsociety_steps_total 2\n"), text);
+    assertTrue(text.contains("cellsociety_cells_evaluated_total 100\n"), text);
+    assertTrue(text.contains("cellsociety_cells_changed_total 7\n"), text);
+    assertTrue(text.contains("cellsociety_last_step_cells_evaluated -1\n"), text);
+    assertTrue(text.contains("cellsociety_last_step_cells_changed -1\n"), text);
+  }
+}
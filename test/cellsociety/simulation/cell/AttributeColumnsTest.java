@@ -0,0 +1,96 @@
+package cellsociety.simulation.cell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that rows of AttributeColumns are cleared and handed out again once freed, and that cells
+ * joining a simulation share its parameters and take a row of its columns, bringing their attributes along.
+ *
+ * Dependencies: AttributeColumns, ParamTable, WaTorCell
+ */
+class AttributeColumnsTest {
+
+  private static final int ENERGY = AttributeColumns.getColumn("energy");
+  private static final int CELLS = 100;
+
+  @Test
+  void reusesFreedRows() {
+    AttributeColumns columns = new AttributeColumns();
+    List<Integer> rows = new ArrayList<>();
+    for (int i = 0; i < CELLS; i++) {
+      int row = columns.addRow();
+      columns.set(ENERGY, row, i + 1);
+      rows.add(row);
+    }
+    for (int round = 0; round < 10; round++) {
+      for (int row : rows) {
+        columns.freeRow(row);
+      }
+      rows.clear();
+      for (int i = 0; i < CELLS; i++) {
+        int row = columns.addRow();
+        assertEquals(0, columns.get(ENERGY, row), "row " + row + " was not cleared");
+        columns.set(ENERGY, row, i + 1);
+        rows.add(row);
+      }
+    }
+    assertEquals(CELLS, columns.getRowCount());
+  }
+
+  @Test
+  void sharesTablesOnceJoined() {
+    Cell prototype = new WaTorCell();
+    prototype.setParam(WaTorCell.FISH_BREED_TIME, 3);
+    Cell cell = new WaTorCell();
+    assertThrows(RuntimeException.class, () -> cell.getParam(WaTorCell.FISH_BREED_TIME));
+    cell.joinSimulation(prototype);
+    assertEquals(3, cell.getParam(WaTorCell.FISH_BREED_TIME));
+    cell.setParam(WaTorCell.FISH_BREED_TIME, 4);
+    assertEquals(4, prototype.getParam(WaTorCell.FISH_BREED_TIME));
+  }
+
+  @Test
+  void bringsAttributesWhenJoining() {
+    Cell prototype = new WaTorCell();
+    Cell cell = new WaTorCell();
+    cell.setAttribute(ENERGY, 7);
+    cell.joinSimulation(prototype);
+    assertEquals(7, cell.getAttribute(ENERGY));
+    assertEquals(0, prototype.getAttribute(ENERGY));
+    Cell other = new WaTorCell();
+    other.joinSimulation(prototype);
+    other.setAttribute(ENERGY, 2);
+    cell.swap(other);
+    assertEquals(2, cell.getAttribute(ENERGY));
+    assertEquals(7, other.getAttribute(ENERGY));
+  }
+
+  @Test
+  void givesRowsBackWhenLeaving() {
+    Cell prototype = new WaTorCell();
+    List<Cell> cells = new ArrayList<>();
+    for (int round = 0; round < 10; round++) {
+      for (Cell cell : cells) {
+        cell.leaveSimulation();
+      }
+      cells.clear();
+      for (int i = 0; i < CELLS; i++) {
+        Cell cell = new WaTorCell();
+        cell.joinSimulation(prototype);
+        assertEquals(0, cell.getAttribute(ENERGY));
+        cell.setAttribute(ENERGY, i + 1);
+        cells.add(cell);
+      }
+    }
+    for (int i = 0; i < CELLS; i++) {
+      assertEquals(i + 1, cells.get(i).getAttribute(ENERGY));
+    }
+  }
+}
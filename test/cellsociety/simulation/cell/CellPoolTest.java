@@ -0,0 +1,105 @@
+package cellsociety.simulation.cell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.RectGrid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a CellPool hands every cell out exactly once however positions are taken, that it
+ * still works as a Queue for the cells that copy and refill it, and that Segregation stepped through the
+ * Cell path keeps the number of agents of each type.
+ *
+ * Dependencies: CellPool, SegregationCell, RectGrid
+ */
+class CellPoolTest {
+
+  private static final long SEED = 308;
+  private static final int CELLS = 1000;
+
+  private static List<Cell> makeCells() {
+    List<Cell> cells = new ArrayList<>();
+    for (int i = 0; i < CELLS; i++) {
+      cells.add(new ConwayCell());
+    }
+    return cells;
+  }
+
+  @Test
+  void takesEveryCellOnce() {
+    List<Cell> cells = makeCells();
+    CellPool pool = new CellPool();
+    pool.addAll(cells);
+    Random random = new Random(SEED);
+    Set<Cell> taken = new HashSet<>();
+    while (!pool.isEmpty()) {
+      int size = pool.size();
+      assertTrue(taken.add(pool.take(random.nextInt(size))));
+      assertEquals(size - 1, pool.size());
+    }
+    assertEquals(new HashSet<>(cells), taken);
+  }
+
+  @Test
+  void worksAsAQueue() {
+    List<Cell> cells = makeCells();
+    CellPool pool = new CellPool();
+    pool.addAll(cells);
+    List<Cell> copy = new ArrayList<>(pool);
+    assertEquals(cells, copy);
+    pool.clear();
+    assertNull(pool.peek());
+    assertNull(pool.poll());
+    pool.addAll(copy);
+    Set<Cell> polled = new HashSet<>();
+    for (int i = 0; i < CELLS; i++) {
+      assertEquals(pool.peek(), pool.peek());
+      polled.add(pool.poll());
+    }
+    assertEquals(CELLS, polled.size());
+    assertTrue(pool.isEmpty());
+  }
+
+  @Test
+  void keepsAgentsWhileSegregating() throws Exception {
+    int size = 60;
+    Grid grid = new RectGrid();
+    grid.setSeed(SEED);
+    grid.setRandomGrid("SegregationCell", Map.of(SegregationCell.HAPPINESS_THRESH, .5),
+        new double[]{1, 2, 2}, 0, null, size, size);
+    int[] before = count(grid, size);
+    int[] states = new int[size * size];
+    grid.getStates(states);
+    for (int step = 0; step < 20; step++) {
+      grid.update();
+    }
+    assertArrayEquals(before, count(grid, size));
+    int[] after = new int[size * size];
+    grid.getStates(after);
+    assertFalse(Arrays.equals(states, after), "no agent moved");
+  }
+
+  private static int[] count(Grid grid, int size) {
+    int[] counts = new int[3];
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        counts[grid.getState(r, c)]++;
+      }
+    }
+    return counts;
+  }
+}
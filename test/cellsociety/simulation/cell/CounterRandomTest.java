@@ -0,0 +1,114 @@
+package cellsociety.simulation.cell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.RectGrid;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that the numbers a CounterRandom gives depend only on the seed, step, location and how
+ * many numbers the location has drawn, and so do not change with the order locations draw in or the thread
+ * they draw on, and that grids made and stepped with the same seed come out the same.
+ *
+ * Dependencies: CounterRandom, RectGrid, FireCell
+ */
+class CounterRandomTest {
+
+  private static final long SEED = 308;
+  private static final int DRAWS = 16;
+  private static final int SIZE = 30;
+  private static final int STEPS = 10;
+
+  private static long[] draw(long seed, long step, long index) {
+    CounterRandom random = CounterRandom.current();
+    random.moveTo(seed, step, index);
+    long[] draws = new long[DRAWS];
+    for (int i = 0; i < DRAWS; i++) {
+      draws[i] = random.nextLong();
+    }
+    return draws;
+  }
+
+  @Test
+  void givesTheSameNumbersAtTheSameLocation() {
+    long[] first = draw(SEED, 3, 17);
+    draw(SEED, 3, 18);
+    draw(SEED + 1, 4, 17);
+    assertArrayEquals(first, draw(SEED, 3, 17));
+  }
+
+  @Test
+  void givesDifferentNumbersElsewhere() {
+    long[] first = draw(SEED, 3, 17);
+    assertFalse(Arrays.equals(first, draw(SEED + 1, 3, 17)), "seed");
+    assertFalse(Arrays.equals(first, draw(SEED, 4, 17)), "step");
+    assertFalse(Arrays.equals(first, draw(SEED, 3, 18)), "index");
+    assertFalse(Arrays.equals(first, draw(SEED, CounterRandom.SETUP_STEP, 17)), "setup step");
+  }
+
+  @Test
+  void givesTheSameNumbersOnAnyThread() throws Exception {
+    long[] first = draw(SEED, 5, 99);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertArrayEquals(first, executor.submit(() -> draw(SEED, 5, 99)).get());
+      assertNotSame(CounterRandom.current(), executor.submit(CounterRandom::current).get(),
+          "every thread has its own cursor");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void staysInRange() {
+    CounterRandom random = CounterRandom.current();
+    random.moveTo(SEED, 0, 0);
+    for (int i = 0; i < 1000; i++) {
+      double value = random.nextDouble();
+      assertTrue(value >= 0 && value < 1, "nextDouble gave " + value);
+      int bounded = random.nextInt(7);
+      assertTrue(bounded >= 0 && bounded < 7, "nextInt gave " + bounded);
+    }
+  }
+
+  @Test
+  void ignoresSetSeed() {
+    long[] first = draw(SEED, 1, 1);
+    CounterRandom.current().setSeed(SEED + 1);
+    assertArrayEquals(first, draw(SEED, 1, 1));
+  }
+
+  private static int[] runFire(long seed) throws ClassNotFoundException {
+    Map<String, Double> params = new HashMap<>();
+    params.put(FireCell.PROB_CATCH, .6);
+    params.put(FireCell.PROB_GROW, .05);
+    Grid grid = new RectGrid();
+    grid.setSeed(seed);
+    grid.setRandomGrid("FireCell", params, new double[]{1, 3, 1}, Cell.TOROIDAL, null, SIZE, SIZE);
+    for (int step = 0; step < STEPS; step++) {
+      grid.update();
+    }
+    int[] states = new int[SIZE * SIZE];
+    grid.getStates(states);
+    return states;
+  }
+
+  @Test
+  void makesTheSameGridFromTheSameSeed() throws Exception {
+    int[] first = runFire(SEED);
+    assertArrayEquals(first, runFire(SEED));
+    assertNotEquals(Arrays.toString(first), Arrays.toString(runFire(SEED + 1)));
+  }
+}
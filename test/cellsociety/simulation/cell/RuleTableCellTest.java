@@ -0,0 +1,98 @@
+package cellsociety.simulation.cell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a compiled rule table plans the same states as the original lookup, which took every
+ * other neighbor as a string and looked it up among the rotations of every rule, for the neighborhood sizes of
+ * every grid shape, for the loop cells and for a table with surrounds of more than one size.
+ *
+ * Dependencies: RuleTableCell, LangtonLoopCell, BylLoopCell, ChouReggiaLoopCell
+ */
+class RuleTableCellTest {
+
+  private static final String MIXED_TABLE = "01202 11101 0123 1221 2112 100000 0111112";
+  private static final long SEED = 308;
+  private static final int DRAWS = 20000;
+
+  private static class MixedCell extends RuleTableCell {
+
+    private static final CompiledTable TABLE = compile(MIXED_TABLE);
+
+    MixedCell() {
+      super();
+      ruleTable = MIXED_TABLE;
+      table = TABLE;
+    }
+  }
+
+  private static Map<Integer, Map<String, Integer>> makeRuleMap(String ruleTable) {
+    Map<Integer, Map<String, Integer>> ret = new HashMap<>();
+    for (String rule : ruleTable.split(" ")) {
+      int st = Integer.parseInt("" + rule.charAt(0));
+      int nextSt = Integer.parseInt("" + rule.charAt(rule.length() - 1));
+      Map<String, Integer> mapRule = ret.computeIfAbsent(st, k -> new HashMap<>());
+      String surround = rule.substring(1, rule.length() - 1);
+      for (int i = 0; i < surround.length(); i++) {
+        mapRule.put(surround, nextSt);
+        surround = surround.substring(1) + surround.charAt(0);
+      }
+    }
+    return ret;
+  }
+
+  private static int lookUp(Map<Integer, Map<String, Integer>> ruleMap, int state, int[] neighborStates) {
+    Map<String, Integer> stateRules = ruleMap.get(state);
+    if (stateRules == null) {
+      return state;
+    }
+    StringBuilder surround = new StringBuilder();
+    for (int i = 0; i < neighborStates.length; i += 2) {
+      surround.append(neighborStates[i]);
+    }
+    return stateRules.getOrDefault(surround.toString(), state);
+  }
+
+  private static void checkAgainstLookUp(RuleTableCell cell, int highestState) {
+    Map<Integer, Map<String, Integer>> ruleMap = makeRuleMap(cell.ruleTable);
+    Random random = new Random(SEED);
+    for (int neighbors : new int[]{3, 6, 7, 8, 10, 12}) {
+      for (int draw = 0; draw < DRAWS; draw++) {
+        int[] neighborStates = new int[neighbors];
+        for (int i = 0; i < neighbors; i++) {
+          neighborStates[i] = random.nextInt(4) == 0 ? random.nextInt(highestState + 2) : 0;
+        }
+        int state = random.nextInt(highestState + 2);
+        assertEquals(lookUp(ruleMap, state, neighborStates), cell.planState(state, neighborStates),
+            "state " + state + " with " + Arrays.toString(neighborStates));
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"LangtonLoopCell", "BylLoopCell", "ChouReggiaLoopCell"})
+  void plansLikeTheLookUp(String className) throws Exception {
+    RuleTableCell cell = (RuleTableCell) Class.forName("cellsociety.simulation.cell." + className)
+        .getConstructor().newInstance();
+    int highestState = 0;
+    for (char digit : cell.ruleTable.replace(" ", "").toCharArray()) {
+      highestState = Math.max(highestState, Character.digit(digit, 10));
+    }
+    checkAgainstLookUp(cell, highestState);
+  }
+
+  @Test
+  void plansSurroundsOfEverySize() {
+    checkAgainstLookUp(new MixedCell(), 3);
+  }
+}
@@ -0,0 +1,189 @@
+package cellsociety.simulation.engine;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.cell.FireCell;
+import cellsociety.simulation.cell.SegregationCell;
+import cellsociety.simulation.cell.StateRule;
+import cellsociety.simulation.cell.WaTorCell;
+import cellsociety.simulation.grid.Grid;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Builds grids that step through the original path of one Cell object per location, and reads
+ * their states back, so that engines can be checked against them.
+ *
+ * Assumptions: Cells are made with their default parameters, apart from those FireCell, WaTorCell and
+ * SegregationCell have no default for, which are set to the values below. Rules used with infinite edges are
+ * deterministic, since the Cell path numbers locations differently once it has grown.
+ *
+ * Dependencies: Grid, Cell, StateRule, Engine
+ *
+ * Example usage:
+ *     Grid grid = Baseline.makeCellGrid(new RectGrid(), "ConwayCell", new double[]{1, 1}, 0, 40, 40);
+ *     Engine engine = Baseline.copyInto(grid, new FlatEngine(...));
+ */
+final class Baseline {
+
+  static final long SEED = 308;
+  static final double PROB_CATCH = .6;
+  static final double PROB_GROW = .05;
+  static final double FISH_BREED_TIME = 3;
+  static final double SHARK_BREED_TIME = 12;
+  static final double FISH_FEED_ENERGY = 2;
+  static final double SHARK_START_ENERGY = 4;
+  static final double HAPPINESS_THRESH = .5;
+
+  private Baseline() {
+  }
+
+  /**
+   * Fills an empty grid with random Cell objects, which step without any engine, and use every neighbor
+   */
+  static Grid makeCellGrid(Grid grid, String className, double[] stateChances, int edge, int rows, int cols)
+      throws ClassNotFoundException {
+    return makeCellGrid(grid, className, stateChances, edge, null, rows, cols);
+  }
+
+  /**
+   * Fills an empty grid with random Cell objects, which step without any engine, and use the neighbors the
+   * mask leaves in
+   */
+  static Grid makeCellGrid(Grid grid, String className, double[] stateChances, int edge, int[] mask, int rows,
+      int cols) throws ClassNotFoundException {
+    grid.setSeed(SEED);
+    grid.setRandomGrid(className, getParams(className), stateChances, edge, mask, rows, cols);
+    return grid;
+  }
+
+  /**
+   * Sets every cell outside of a rectangle back to state 0, through clicks as a user would
+   */
+  static void clearOutside(Grid grid, int top, int left, int bottom, int right) {
+    for (int r = 0; r < grid.getHeight(); r++) {
+      for (int c = 0; c < grid.getWidth(); c++) {
+        boolean inside = r >= top && r < bottom && c >= left && c < right;
+        while (!inside && grid.getState(r, c) != 0) {
+          grid.incrementCellState(r, c);
+        }
+      }
+    }
+  }
+
+  /**
+   * Makes a rule with the same parameters as every cell of a grid made by makeCellGrid
+   */
+  static StateRule makeRule(String className) throws ReflectiveOperationException {
+    return (StateRule) makeCell(className);
+  }
+
+  /**
+   * Makes a cell with the same parameters as every cell of a grid made by makeCellGrid
+   */
+  static Cell makeCell(String className) throws ReflectiveOperationException {
+    Cell cell = (Cell) Class.forName("cellsociety.simulation.cell." + className).getConstructor().newInstance();
+    for (Map.Entry<String, Double> param : getParams(className).entrySet()) {
+      cell.setParam(param.getKey(), param.getValue());
+    }
+    return cell;
+  }
+
+  private static Map<String, Double> getParams(String className) {
+    Map<String, Double> params = new HashMap<>();
+    if (className.equals(FireCell.class.getSimpleName())) {
+      params.put(FireCell.PROB_CATCH, PROB_CATCH);
+      params.put(FireCell.PROB_GROW, PROB_GROW);
+    }
+    if (className.equals(WaTorCell.class.getSimpleName())) {
+      params.put(WaTorCell.FISH_BREED_TIME, FISH_BREED_TIME);
+      params.put(WaTorCell.SHARK_BREED_TIME, SHARK_BREED_TIME);
+      params.put(WaTorCell.FISH_FEED_ENERGY, FISH_FEED_ENERGY);
+      params.put(WaTorCell.SHARK_START_ENERGY, SHARK_START_ENERGY);
+    }
+    if (className.equals(SegregationCell.class.getSimpleName())) {
+      params.put(SegregationCell.HAPPINESS_THRESH, HAPPINESS_THRESH);
+    }
+    return params;
+  }
+
+  /**
+   * Copies the states of a grid into an engine of the same size, with the same seed
+   */
+  static Engine copyInto(Grid grid, Engine engine) {
+    engine.setSeed(SEED);
+    for (int r = 0; r < grid.getHeight(); r++) {
+      for (int c = 0; c < grid.getWidth(); c++) {
+        engine.setState(r, c, grid.getState(r, c));
+      }
+    }
+    return engine;
+  }
+
+  static int[] getStates(Grid grid) {
+    int[] states = new int[grid.getWidth() * grid.getHeight()];
+    grid.getStates(states);
+    return states;
+  }
+
+  static int[] getStates(Engine engine) {
+    int[] states = new int[engine.getWidth() * engine.getHeight()];
+    for (int r = 0; r < engine.getHeight(); r++) {
+      for (int c = 0; c < engine.getWidth(); c++) {
+        states[r * engine.getWidth() + c] = engine.getState(r, c);
+      }
+    }
+    return states;
+  }
+
+  /**
+   * Lists every non-zero location as row, column and state, measured from the top left of the non-zero
+   * locations, so that grids that have grown by different amounts can be compared. For shapes with parity
+   * the corner is kept on even coordinates, so hexagonal and triangular locations keep their parity
+   */
+  static List<String> getLive(int[] states, int width, Neighborhood neighborhood) {
+    int align = neighborhood.hasParity() ? ~1 : ~0;
+    int top = Integer.MAX_VALUE;
+    int left = Integer.MAX_VALUE;
+    for (int i = 0; i < states.length; i++) {
+      if (states[i] != 0) {
+        top = Math.min(top, i / width);
+        left = Math.min(left, i % width);
+      }
+    }
+    List<String> live = new ArrayList<>();
+    for (int i = 0; i < states.length; i++) {
+      if (states[i] != 0) {
+        live.add((i / width - (top & align)) + "," + (i % width - (left & align)) + "=" + states[i]);
+      }
+    }
+    return live;
+  }
+
+  /**
+   * Counts the locations whose states differ between two arrays of states
+   */
+  static int countChanged(int[] before, int[] after) {
+    int changed = 0;
+    for (int i = 0; i < before.length; i++) {
+      if (before[i] != after[i]) {
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Counts the locations in each state, up to the given highest state
+   */
+  static int[] count(int[] states, int highestState) {
+    int[] counts = new int[highestState + 1];
+    for (int state : states) {
+      counts[state]++;
+    }
+    return counts;
+  }
+}
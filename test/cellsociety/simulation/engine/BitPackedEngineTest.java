@@ -0,0 +1,82 @@
+package cellsociety.simulation.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.cell.StateRule;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.HexGrid;
+import cellsociety.simulation.grid.RectGrid;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a BitPackedEngine steps two state rules the same as the Cell path of Grid.update,
+ * for widths that do and do not fill their last word, fixed and toroidal edges, and neighbor masks.
+ *
+ * Dependencies: BitPackedEngine, Baseline
+ */
+class BitPackedEngineTest {
+
+  private static final int ROWS = 50;
+  private static final int STEPS = 40;
+
+  @ParameterizedTest(name = "{0} columns with edge {1}")
+  @CsvSource({"64, 0", "64, -1", "150, 0", "150, -1", "7, -1", "130, 1"})
+  void stepsLikeCells(int columns, int edge) throws Exception {
+    for (int threads : new int[]{1, 4}) {
+      Grid grid = Baseline.makeCellGrid(new RectGrid(), "ConwayCell", new double[]{1, 1}, edge, ROWS, columns);
+      Engine engine = Baseline.copyInto(grid, new BitPackedEngine(Baseline.makeRule("ConwayCell"),
+          grid.getNeighborhood(), edge, null, ROWS, columns));
+      engine.setThreads(threads);
+      for (int step = 0; step < STEPS; step++) {
+        grid.update();
+        engine.step();
+        int[] expected = Baseline.getStates(grid);
+        int[] states = new int[expected.length];
+        engine.getStates(states);
+        assertArrayEquals(expected, states, "states after step " + step);
+        int[] populations = new int[2];
+        engine.getPopulations(populations);
+        assertArrayEquals(Baseline.count(expected, 1), populations, "populations after step " + step);
+      }
+    }
+  }
+
+  @Test
+  void stepsMaskedNeighborhoods() throws Exception {
+    int[] mask = {1, 0, 1, 1, 0, 1, 1, 1};
+    StateRule rule = Baseline.makeRule("ConwayCell");
+    Neighborhood neighborhood = new RectGrid().getNeighborhood();
+    assertTrue(BitPackedEngine.supports(rule, neighborhood, Cell.TOROIDAL, mask));
+    FlatEngine flat = new FlatEngine(rule, neighborhood, Cell.TOROIDAL, mask, ROWS, 100);
+    BitPackedEngine packed = new BitPackedEngine(rule, neighborhood, Cell.TOROIDAL, mask, ROWS, 100);
+    for (int r = 0; r < ROWS; r++) {
+      for (int c = 0; c < 100; c++) {
+        int state = (r * 31 + c * 17) % 7 < 3 ? 1 : 0;
+        flat.setState(r, c, state);
+        packed.setState(r, c, state);
+      }
+    }
+    for (int step = 0; step < STEPS; step++) {
+      flat.step();
+      packed.step();
+      assertArrayEquals(Baseline.getStates(flat), Baseline.getStates(packed), "states after step " + step);
+    }
+  }
+
+  @Test
+  void refusesWhatItCannotRun() throws Exception {
+    assertFalse(BitPackedEngine.supports(Baseline.makeRule("ConwayCell"), new HexGrid().getNeighborhood(),
+        Cell.TOROIDAL, null));
+    assertFalse(BitPackedEngine.supports(Baseline.makeRule("FireCell"), new RectGrid().getNeighborhood(),
+        Cell.TOROIDAL, null));
+    assertFalse(BitPackedEngine.supports(Baseline.makeRule("LangtonLoopCell"), new RectGrid().getNeighborhood(),
+        Cell.TOROIDAL, null));
+  }
+}
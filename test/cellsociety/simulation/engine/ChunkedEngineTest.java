@@ -0,0 +1,121 @@
+package cellsociety.simulation.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.HexGrid;
+import cellsociety.simulation.grid.RectGrid;
+import cellsociety.simulation.grid.TriGrid;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a ChunkedEngine grows and steps deterministic rules the same as the Cell path of
+ * Grid.update with infinite edges, across the edges of chunks, that chunks are found again after others are
+ * released, and that chunks are kept next to still lifes and reused rather than made again. The soup starts far enough from the border that the Cell path never wraps or pads.
+ *
+ * Dependencies: ChunkedEngine, Baseline
+ */
+class ChunkedEngineTest {
+
+  private static final int SIZE = 72;
+  private static final int SOUP_START = 24;
+  private static final int SOUP_END = 48;
+  private static final int STEPS = 20;
+  private static final int CHUNK_SIZE = 64;
+  private static final int MAX_GLIDER_CHUNKS = 9;
+
+  static Stream<Arguments> cases() {
+    return Stream.of(
+        Arguments.of("ConwayCell", (Supplier<Grid>) RectGrid::new, 1),
+        Arguments.of("ConwayCell", (Supplier<Grid>) HexGrid::new, 1),
+        Arguments.of("ConwayCell", (Supplier<Grid>) TriGrid::new, 1),
+        Arguments.of("LangtonLoopCell", (Supplier<Grid>) RectGrid::new, 7),
+        Arguments.of("BylLoopCell", (Supplier<Grid>) RectGrid::new, 5),
+        Arguments.of("ChouReggiaLoopCell", (Supplier<Grid>) RectGrid::new, 7));
+  }
+
+  @ParameterizedTest(name = "{0} on {1}")
+  @MethodSource("cases")
+  void growsLikeCells(String className, Supplier<Grid> shape, int highestState) throws Exception {
+    for (int threads : new int[]{1, 4}) {
+      double[] chances = new double[highestState + 1];
+      chances[0] = 2 * highestState;
+      for (int state = 1; state <= highestState; state++) {
+        chances[state] = 1;
+      }
+      Grid grid = Baseline.makeCellGrid(shape.get(), className, chances, Cell.INFINTE, SIZE, SIZE);
+      Baseline.clearOutside(grid, SOUP_START, SOUP_START, SOUP_END, SOUP_END);
+      Engine engine = Baseline.copyInto(grid,
+          new ChunkedEngine(Baseline.makeRule(className), grid.getNeighborhood(), null, SIZE, SIZE));
+      engine.setThreads(threads);
+      for (int step = 0; step < STEPS; step++) {
+        grid.update();
+        engine.step();
+        int[] expected = Baseline.getStates(grid);
+        int[] states = Baseline.getStates(engine);
+        assertEquals(Baseline.getLive(expected, grid.getWidth(), grid.getNeighborhood()),
+            Baseline.getLive(states, engine.getWidth(), grid.getNeighborhood()), "live locations after step " + step);
+        int[] populations = new int[highestState + 1];
+        engine.getPopulations(populations);
+        assertArrayEquals(Baseline.count(states, highestState), populations, "populations after step " + step);
+      }
+    }
+  }
+
+  @Test
+  void findsChunksAfterOthersAreReleased() throws Exception {
+    Grid grid = new RectGrid();
+    ChunkedEngine engine = new ChunkedEngine(Baseline.makeRule("ConwayCell"), grid.getNeighborhood(), null,
+        SIZE, SIZE);
+    int[][] glider = {{0, 1}, {1, 2}, {2, 0}, {2, 1}, {2, 2}};
+    for (int[] location : glider) {
+      engine.setState(location[0], location[1], 1);
+    }
+    for (int step = 0; step < 4 * 200; step++) {
+      engine.step();
+    }
+    int[] populations = new int[2];
+    engine.getPopulations(populations);
+    assertEquals(glider.length, populations[1]);
+    int[] states = Baseline.getStates(engine);
+    assertEquals(Baseline.getLive(new int[]{0, 1, 0, 0, 0, 1, 1, 1, 1}, 3, grid.getNeighborhood()),
+        Baseline.getLive(states, engine.getWidth(), grid.getNeighborhood()));
+    assertTrue(engine.getChunkCount() + engine.getFreeChunkCount() <= MAX_GLIDER_CHUNKS,
+        "released chunks should be reused");
+  }
+
+  /**
+   * Puts a block in the corner of a chunk, so the three chunks it reaches stay empty, and checks that they are
+   * kept instead of being made and released again every step
+   */
+  @Test
+  void keepsEmptyChunksNextToStillLife() throws Exception {
+    Grid grid = new RectGrid();
+    ChunkedEngine engine = new ChunkedEngine(Baseline.makeRule("ConwayCell"), grid.getNeighborhood(), null,
+        SIZE, SIZE);
+    int corner = CHUNK_SIZE - 2;
+    for (int r = corner; r < corner + 2; r++) {
+      for (int c = corner; c < corner + 2; c++) {
+        engine.setState(r, c, 1);
+      }
+    }
+    for (int step = 0; step < STEPS; step++) {
+      engine.step();
+      assertEquals(4, engine.getChunkCount(), "chunks after step " + step);
+      assertEquals(0, engine.getFreeChunkCount(), "released chunks after step " + step);
+    }
+    int[] populations = new int[2];
+    engine.getPopulations(populations);
+    assertEquals(4, populations[1]);
+  }
+}
@@ -0,0 +1,163 @@
+package cellsociety.simulation.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.RectGrid;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that DirtyTiles marks, finds and bounds the right tiles, including the partial tiles at the
+ * bottom and right of a grid and tiles past the first word of bits, that resizing and merging mark everything
+ * when they should, and that a grid marks the tile of every cell a step changes and no others, with and
+ * without an engine.
+ *
+ * Dependencies: DirtyTiles, Baseline
+ */
+class DirtyTilesTest {
+
+  private static final int ROWS = 200;
+  private static final int COLUMNS = 150;
+
+  private static DirtyTiles makeCleared() {
+    DirtyTiles tiles = new DirtyTiles();
+    tiles.resize(ROWS, COLUMNS);
+    tiles.clear();
+    return tiles;
+  }
+
+  private static List<Integer> listMarked(DirtyTiles tiles) {
+    List<Integer> marked = new ArrayList<>();
+    for (int tile = tiles.nextMarked(0); tile >= 0; tile = tiles.nextMarked(tile + 1)) {
+      marked.add(tile);
+    }
+    return marked;
+  }
+
+  @Test
+  void marksEverythingUntilCleared() {
+    DirtyTiles tiles = new DirtyTiles();
+    tiles.resize(ROWS, COLUMNS);
+    int tileCount = ((ROWS + DirtyTiles.TILE_SIZE - 1) / DirtyTiles.TILE_SIZE)
+        * ((COLUMNS + DirtyTiles.TILE_SIZE - 1) / DirtyTiles.TILE_SIZE);
+    assertEquals(tileCount, tiles.getTileCount());
+    assertTrue(tiles.isAllMarked());
+    assertEquals(tileCount, tiles.countMarked());
+    assertEquals(tileCount, listMarked(tiles).size());
+    tiles.clear();
+    assertFalse(tiles.isAllMarked());
+    assertEquals(0, tiles.countMarked());
+    assertEquals(-1, tiles.nextMarked(0));
+  }
+
+  @Test
+  void findsMarkedTilesAcrossWords() {
+    DirtyTiles tiles = makeCleared();
+    tiles.mark(0, 0);
+    tiles.mark(5, 20);
+    tiles.mark(100, 70);
+    tiles.mark(ROWS - 1, COLUMNS - 1);
+    List<Integer> expected = List.of(tiles.getTile(0, 0), tiles.getTile(5, 20), tiles.getTile(100, 70),
+        tiles.getTile(ROWS - 1, COLUMNS - 1));
+    assertEquals(expected, listMarked(tiles));
+    assertTrue(expected.get(3) >= Long.SIZE, "the last tile should be past the first word");
+  }
+
+  @Test
+  void boundsEveryCellInItsTile() {
+    DirtyTiles tiles = makeCleared();
+    for (int r = 0; r < ROWS; r++) {
+      for (int c = 0; c < COLUMNS; c++) {
+        int tile = tiles.getTile(r, c);
+        assertTrue(tiles.getTop(tile) <= r && r < tiles.getBottom(tile), "row " + r);
+        assertTrue(tiles.getLeft(tile) <= c && c < tiles.getRight(tile), "column " + c);
+      }
+    }
+    int last = tiles.getTile(ROWS - 1, COLUMNS - 1);
+    assertEquals(ROWS, tiles.getBottom(last));
+    assertEquals(COLUMNS, tiles.getRight(last));
+  }
+
+  @Test
+  void marksEveryTileOfAnArea() {
+    DirtyTiles tiles = makeCleared();
+    tiles.markArea(10, 30, 40, 33);
+    TreeSet<Integer> expected = new TreeSet<>();
+    for (int r = 10; r < 40; r++) {
+      for (int c = 30; c < 33; c++) {
+        expected.add(tiles.getTile(r, c));
+      }
+    }
+    assertEquals(new ArrayList<>(expected), listMarked(tiles));
+  }
+
+  @Test
+  void marksEverythingWhenResizedOrMergedFromAnotherSize() {
+    DirtyTiles tiles = makeCleared();
+    tiles.resize(ROWS, COLUMNS);
+    assertFalse(tiles.isAllMarked(), "same size keeps the marks");
+    tiles.resize(ROWS + 1, COLUMNS);
+    assertTrue(tiles.isAllMarked());
+
+    DirtyTiles merged = makeCleared();
+    DirtyTiles other = makeCleared();
+    other.mark(50, 50);
+    merged.mark(0, 0);
+    merged.markAll(other);
+    assertEquals(List.of(merged.getTile(0, 0), merged.getTile(50, 50)), listMarked(merged));
+    DirtyTiles resized = new DirtyTiles();
+    resized.resize(ROWS, COLUMNS + 1);
+    resized.clear();
+    merged.markAll(resized);
+    assertTrue(merged.isAllMarked());
+  }
+
+  @ParameterizedTest(name = "flat storage {0}")
+  @ValueSource(booleans = {false, true})
+  void gridMarksEveryChangedCell(boolean flat) throws Exception {
+    int size = 70;
+    Grid grid = Baseline.makeCellGrid(new RectGrid(), "ConwayCell", new double[]{2, 1}, Cell.TOROIDAL, size, size);
+    grid.setFlatStorage(flat);
+    DirtyTiles tiles = grid.getChangedTiles();
+    for (int step = 0; step < 10; step++) {
+      int[] before = Baseline.getStates(grid);
+      tiles.clear();
+      grid.update();
+      int[] after = Baseline.getStates(grid);
+      for (int i = 0; i < after.length; i++) {
+        if (before[i] != after[i]) {
+          int tile = tiles.getTile(i / size, i % size);
+          assertEquals(tile, tiles.nextMarked(tile), "changed cell " + i + " after step " + step);
+        }
+      }
+    }
+  }
+
+  @ParameterizedTest(name = "flat storage {0}")
+  @ValueSource(booleans = {false, true})
+  void gridMarksOnlyWhatChanged(boolean flat) throws Exception {
+    int size = 70;
+    Grid grid = Baseline.makeCellGrid(new RectGrid(), "ConwayCell", new double[]{1, 0}, Cell.TOROIDAL, size, size);
+    grid.setFlatStorage(flat);
+    grid.addState(1);
+    for (int c = 20; c < 23; c++) {
+      grid.incrementCellState(20, c);
+    }
+    DirtyTiles tiles = grid.getChangedTiles();
+    for (int step = 0; step < 4; step++) {
+      tiles.clear();
+      grid.update();
+      assertEquals(List.of(tiles.getTile(20, 20)), listMarked(tiles), "after step " + step);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package cellsociety.simulation.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.HexGrid;
+import cellsociety.simulation.grid.RectGrid;
+import cellsociety.simulation.grid.TriGrid;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a FlatEngine steps every rule to the same states and populations as the Cell path
+ * of Grid.update, for fixed and toroidal edges, with every neighbor and with masks that leave neighbors out
+ * on one side or shrink the reach, on one thread and on several, and that engines keep stepping after the
+ * pools are shut down.
+ *
+ * Dependencies: FlatEngine, Baseline
+ */
+class FlatEngineTest {
+
+  private static final int ROWS = 37;
+  private static final int COLUMNS = 45;
+  private static final int STEPS = 30;
+
+  private static final int[] RECT_NESW = {1, 0, 1, 0, 1, 0, 1, 0};
+  private static final int[] HEX_ALTERNATE = {1, 0, 1, 0, 1, 0};
+  private static final int[] RECT_NORTH_EAST = {1, 1, 1, 0, 0, 0, 0, 0};
+  private static final int[] HEX_NORTH = {1, 1, 0, 0, 0, 1};
+  private static final int[] TRI_EAST = {1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 1};
+  private static final int[] TRI_NEAR = {1, 1, 1, 0, 0, 1, 1, 1, 0, 0, 1, 1};
+
+  static Stream<Arguments> cases() {
+    Stream.Builder<Arguments> cases = Stream.builder();
+    for (int edge : new int[]{0, Cell.TOROIDAL}) {
+      cases.add(Arguments.of("ConwayCell", (Supplier<Grid>) RectGrid::new, 1, edge, null));
+      cases.add(Arguments.of("ConwayCell", (Supplier<Grid>) HexGrid::new, 1, edge, null));
+      cases.add(Arguments.of("ConwayCell", (Supplier<Grid>) TriGrid::new, 1, edge, null));
+      cases.add(Arguments.of("FireCell", (Supplier<Grid>) RectGrid::new, 2, edge, null));
+      cases.add(Arguments.of("FireCell", (Supplier<Grid>) HexGrid::new, 2, edge, null));
+      cases.add(Arguments.of("RPSCell", (Supplier<Grid>) RectGrid::new, 3, edge, null));
+      cases.add(Arguments.of("RPSCell", (Supplier<Grid>) TriGrid::new, 3, edge, null));
+      cases.add(Arguments.of("LangtonLoopCell", (Supplier<Grid>) RectGrid::new, 7, edge, null));
+      cases.add(Arguments.of("BylLoopCell", (Supplier<Grid>) RectGrid::new, 5, edge, null));
+      cases.add(Arguments.of("ChouReggiaLoopCell", (Supplier<Grid>) RectGrid::new, 7, edge, null));
+      cases.add(Arguments.of("FireCell", (Supplier<Grid>) RectGrid::new, 2, edge, RECT_NESW));
+      cases.add(Arguments.of("FireCell", (Supplier<Grid>) HexGrid::new, 2, edge, HEX_ALTERNATE));
+      cases.add(Arguments.of("FireCell", (Supplier<Grid>) TriGrid::new, 2, edge, TRI_EAST));
+      cases.add(Arguments.of("ConwayCell", (Supplier<Grid>) RectGrid::new, 1, edge, RECT_NORTH_EAST));
+      cases.add(Arguments.of("ConwayCell", (Supplier<Grid>) HexGrid::new, 1, edge, HEX_NORTH));
+      cases.add(Arguments.of("ConwayCell", (Supplier<Grid>) TriGrid::new, 1, edge, TRI_EAST));
+      cases.add(Arguments.of("ConwayCell", (Supplier<Grid>) TriGrid::new, 1, edge, TRI_NEAR));
+      cases.add(Arguments.of("RPSCell", (Supplier<Grid>) TriGrid::new, 3, edge, TRI_NEAR));
+    }
+    return cases.build();
+  }
+
+  @Test
+  void usesFireMaskByDefault() throws Exception {
+    assertArrayEquals(RECT_NESW, Baseline.makeCell("FireCell").getMask());
+  }
+
+  @ParameterizedTest(name = "{0} on {1} with edge {3} and mask {4}")
+  @MethodSource("cases")
+  void stepsLikeCells(String className, Supplier<Grid> shape, int highestState, int edge, int[] mask)
+      throws Exception {
+    for (int threads : new int[]{1, 4}) {
+      double[] chances = new double[highestState + 1];
+      chances[0] = highestState;
+      for (int state = 1; state <= highestState; state++) {
+        chances[state] = 1;
+      }
+      Grid grid = Baseline.makeCellGrid(shape.get(), className, chances, edge, mask, ROWS, COLUMNS);
+      Engine engine = Baseline.copyInto(grid, new FlatEngine(Baseline.makeRule(className), grid.getNeighborhood(),
+          edge, mask, ROWS, COLUMNS));
+      engine.setThreads(threads);
+      for (int step = 0; step < STEPS; step++) {
+        grid.update();
+        engine.step();
+        int[] expected = Baseline.getStates(grid);
+        assertArrayEquals(expected, Baseline.getStates(engine), "states after step " + step);
+        int[] populations = new int[highestState + 1];
+        engine.getPopulations(populations);
+        assertArrayEquals(Baseline.count(expected, highestState), populations, "populations after step " + step);
+      }
+    }
+  }
+
+  @Test
+  void stepsAfterPoolsAreShutDown() throws Exception {
+    Grid grid = Baseline.makeCellGrid(new RectGrid(), "ConwayCell", new double[]{1, 1}, Cell.TOROIDAL, ROWS, COLUMNS);
+    Engine engine = Baseline.copyInto(grid, new FlatEngine(Baseline.makeRule("ConwayCell"), grid.getNeighborhood(),
+        Cell.TOROIDAL, null, ROWS, COLUMNS));
+    engine.setThreads(4);
+    for (int step = 0; step < STEPS; step++) {
+      grid.update();
+      engine.step();
+      Engine.shutdownPools();
+      assertArrayEquals(Baseline.getStates(grid), Baseline.getStates(engine), "states after step " + step);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package cellsociety.simulation.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.RectGrid;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a HashLifeEngine moves deterministic rules forward the same as the Cell path of
+ * Grid.update with infinite edges, for steps of one generation and of several, that getStates copies the same
+ * states as getState, and that the node limit holds inside of a single step.
+ *
+ * Dependencies: HashLifeEngine, ChunkedEngine, Baseline
+ */
+class HashLifeEngineTest {
+
+  private static final int SIZE = 72;
+  private static final int SOUP_START = 24;
+  private static final int SOUP_END = 48;
+  private static final int GENERATIONS = 20;
+
+  @ParameterizedTest(name = "{0} in steps of 2^{2}")
+  @CsvSource({"ConwayCell, 1, 0", "ConwayCell, 1, 2", "LangtonLoopCell, 7, 0", "LangtonLoopCell, 7, 2",
+      "BylLoopCell, 5, 0", "ChouReggiaLoopCell, 7, 2"})
+  void advancesLikeCells(String className, int highestState, int stepLog) throws Exception {
+    double[] chances = new double[highestState + 1];
+    chances[0] = 2 * highestState;
+    for (int state = 1; state <= highestState; state++) {
+      chances[state] = 1;
+    }
+    Grid grid = Baseline.makeCellGrid(new RectGrid(), className, chances, Cell.INFINTE, SIZE, SIZE);
+    Baseline.clearOutside(grid, SOUP_START, SOUP_START, SOUP_END, SOUP_END);
+    Engine engine = Baseline.copyInto(grid,
+        new HashLifeEngine(Baseline.makeRule(className), grid.getNeighborhood(), null, SIZE, SIZE, stepLog));
+    for (int generation = 0; generation < GENERATIONS; generation += 1 << stepLog) {
+      for (int i = 0; i < 1 << stepLog; i++) {
+        grid.update();
+      }
+      engine.step();
+      int[] states = new int[engine.getWidth() * engine.getHeight()];
+      engine.getStates(states);
+      assertArrayEquals(Baseline.getStates(engine), states, "getStates after generation " + generation);
+      assertEquals(Baseline.getLive(Baseline.getStates(grid), grid.getWidth(), grid.getNeighborhood()),
+          Baseline.getLive(states, engine.getWidth(), grid.getNeighborhood()), "live after generation " + generation);
+      int[] populations = new int[highestState + 1];
+      engine.getPopulations(populations);
+      assertArrayEquals(Baseline.count(states, highestState), populations, "populations after generation " + generation);
+    }
+  }
+
+  @Test
+  void staysUnderNodeLimitWithinOneStep() throws Exception {
+    int stepLog = 7;
+    int maxNodes = 2000;
+    Grid grid = Baseline.makeCellGrid(new RectGrid(), "ConwayCell", new double[]{2, 1}, Cell.INFINTE, 40, 40);
+    HashLifeEngine unbounded = (HashLifeEngine) Baseline.copyInto(grid,
+        new HashLifeEngine(Baseline.makeRule("ConwayCell"), grid.getNeighborhood(), null, 40, 40, stepLog));
+    HashLifeEngine bounded = (HashLifeEngine) Baseline.copyInto(grid,
+        new HashLifeEngine(Baseline.makeRule("ConwayCell"), grid.getNeighborhood(), null, 40, 40, stepLog));
+    bounded.setMaxNodes(maxNodes);
+    ChunkedEngine chunked = (ChunkedEngine) Baseline.copyInto(grid,
+        new ChunkedEngine(Baseline.makeRule("ConwayCell"), grid.getNeighborhood(), null, 40, 40));
+    unbounded.step();
+    bounded.step();
+    for (int i = 0; i < 1 << stepLog; i++) {
+      chunked.step();
+    }
+    assertTrue(bounded.getNodeCount() < unbounded.getNodeCount() / 2,
+        bounded.getNodeCount() + " nodes kept of " + unbounded.getNodeCount());
+    assertEquals(Baseline.getLive(Baseline.getStates(chunked), chunked.getWidth(), grid.getNeighborhood()),
+        Baseline.getLive(Baseline.getStates(bounded), bounded.getWidth(), grid.getNeighborhood()));
+    assertEquals(Baseline.getLive(Baseline.getStates(unbounded), unbounded.getWidth(), grid.getNeighborhood()),
+        Baseline.getLive(Baseline.getStates(bounded), bounded.getWidth(), grid.getNeighborhood()));
+  }
+
+  @Test
+  void forgetsResultsWhenStepSizeChanges() throws Exception {
+    Grid grid = Baseline.makeCellGrid(new RectGrid(), "ConwayCell", new double[]{2, 1}, Cell.INFINTE, 30, 30);
+    HashLifeEngine engine = (HashLifeEngine) Baseline.copyInto(grid,
+        new HashLifeEngine(Baseline.makeRule("ConwayCell"), grid.getNeighborhood(), null, 30, 30, 3));
+    ChunkedEngine chunked = (ChunkedEngine) Baseline.copyInto(grid,
+        new ChunkedEngine(Baseline.makeRule("ConwayCell"), grid.getNeighborhood(), null, 30, 30));
+    engine.step();
+    engine.setStepLog(1);
+    engine.step();
+    for (int i = 0; i < 8 + 2; i++) {
+      chunked.step();
+    }
+    assertEquals(Baseline.getLive(Baseline.getStates(chunked), chunked.getWidth(), grid.getNeighborhood()),
+        Baseline.getLive(Baseline.getStates(engine), engine.getWidth(), grid.getNeighborhood()));
+  }
+}
@@ -0,0 +1,186 @@
+package cellsociety.simulation.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.HexGrid;
+import cellsociety.simulation.grid.RectGrid;
+import cellsociety.simulation.grid.TriGrid;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a SegregationEngine keeps its pool holding exactly the empty locations as agents move
+ * and states are set, keeps the number of agents of each type and the populations it counts, never moves a
+ * happy agent, counts a fixed edge as a neighbor as SegregationCell does, and marks and counts every location
+ * that changed. Moves cannot be compared with the Cell path, since the grid refills its queue of empty cells in
+ * a different order every step.
+ *
+ * Dependencies: SegregationEngine, Baseline
+ */
+class SegregationEngineTest {
+
+  private static final int ROWS = 37;
+  private static final int COLUMNS = 45;
+  private static final int STEPS = 30;
+  private static final int EMPTY = 0;
+  private static final int HIGHEST_STATE = 2;
+
+  static Stream<Arguments> cases() {
+    Stream.Builder<Arguments> cases = Stream.builder();
+    for (int edge : new int[]{0, 1, Cell.TOROIDAL}) {
+      cases.add(Arguments.of((Supplier<Grid>) RectGrid::new, edge));
+      cases.add(Arguments.of((Supplier<Grid>) HexGrid::new, edge));
+      cases.add(Arguments.of((Supplier<Grid>) TriGrid::new, edge));
+    }
+    return cases.build();
+  }
+
+  private static Cell makeRule(int edge) throws ReflectiveOperationException {
+    Cell rule = Baseline.makeCell("SegregationCell");
+    rule.setDefaultEdge(edge);
+    return rule;
+  }
+
+  @ParameterizedTest(name = "{0} with edge {1}")
+  @MethodSource("cases")
+  void keepsAgentsAndPool(Supplier<Grid> shape, int edge) throws Exception {
+    Grid grid = Baseline.makeCellGrid(shape.get(), "SegregationCell", new double[]{1, 2, 2}, edge, ROWS, COLUMNS);
+    Neighborhood neighborhood = grid.getNeighborhood();
+    SegregationEngine engine = (SegregationEngine) Baseline.copyInto(grid,
+        new SegregationEngine(makeRule(edge), neighborhood, ROWS, COLUMNS));
+    assertPool(engine, "after setting states");
+    int[] agents = Baseline.count(Baseline.getStates(engine), HIGHEST_STATE);
+    DirtyTiles tiles = new DirtyTiles();
+    tiles.resize(ROWS, COLUMNS);
+    int moves = 0;
+    for (int step = 0; step < STEPS; step++) {
+      int[] before = Baseline.getStates(engine);
+      engine.step();
+      int[] after = Baseline.getStates(engine);
+      assertPool(engine, "after step " + step);
+      assertArrayEquals(agents, Baseline.count(after, HIGHEST_STATE), "agents after step " + step);
+      int[] populations = new int[HIGHEST_STATE + 1];
+      engine.getPopulations(populations);
+      assertArrayEquals(agents, populations, "populations after step " + step);
+      assertEquals(Baseline.countChanged(before, after), engine.getCellsChanged(), "changes in step " + step);
+      assertEquals(ROWS * COLUMNS, engine.getCellsEvaluated());
+      tiles.clear();
+      engine.markChanged(tiles);
+      for (int i = 0; i < after.length; i++) {
+        if (before[i] != EMPTY && happy(before, neighborhood, edge, i / COLUMNS, i % COLUMNS)) {
+          assertEquals(before[i], after[i], "happy agent at " + i + " moved in step " + step);
+        }
+        if (before[i] != after[i]) {
+          moves++;
+          int tile = tiles.getTile(i / COLUMNS, i % COLUMNS);
+          assertEquals(tile, tiles.nextMarked(tile), "changed location " + i + " after step " + step);
+        }
+      }
+    }
+    assertTrue(moves > 0, "no agent moved");
+  }
+
+  @ParameterizedTest(name = "{0} with edge {1}")
+  @MethodSource("cases")
+  void keepsPoolWhenStatesAreSet(Supplier<Grid> shape, int edge) throws Exception {
+    Grid grid = Baseline.makeCellGrid(shape.get(), "SegregationCell", new double[]{1, 2, 2}, edge, ROWS, COLUMNS);
+    SegregationEngine engine = (SegregationEngine) Baseline.copyInto(grid,
+        new SegregationEngine(makeRule(edge), grid.getNeighborhood(), ROWS, COLUMNS));
+    Random random = new Random(Baseline.SEED);
+    for (int i = 0; i < ROWS * COLUMNS; i++) {
+      engine.setState(random.nextInt(ROWS), random.nextInt(COLUMNS), random.nextInt(HIGHEST_STATE + 1));
+      if (i % COLUMNS == 0) {
+        engine.step();
+      }
+    }
+    assertPool(engine, "after setting states");
+    int[] populations = new int[HIGHEST_STATE + 1];
+    engine.getPopulations(populations);
+    assertArrayEquals(Baseline.count(Baseline.getStates(engine), HIGHEST_STATE), populations);
+  }
+
+  /**
+   * Puts one agent in the corner of an empty grid, for the engine and for SegregationCells. Only a fixed edge
+   * of the other type makes it unhappy, since the edge counts as a neighbor, and an unhappy agent always finds
+   * an empty location to move to
+   */
+  @ParameterizedTest(name = "{0} with edge {1}")
+  @MethodSource("cases")
+  void countsFixedEdgeAsNeighbor(Supplier<Grid> shape, int edge) throws Exception {
+    int agent = 2;
+    Grid grid = Baseline.makeCellGrid(shape.get(), "SegregationCell", new double[]{1, 0, 0}, edge, ROWS, COLUMNS);
+    SegregationEngine engine = new SegregationEngine(makeRule(edge), grid.getNeighborhood(), ROWS, COLUMNS);
+    engine.setState(0, 0, agent);
+    engine.step();
+    assertEquals(edge == 1, engine.getState(0, 0) != agent);
+    grid.addState(agent);
+    grid.incrementCellState(0, 0);
+    grid.incrementCellState(0, 0);
+    grid.update();
+    assertEquals(edge == 1, grid.getState(0, 0) != agent, "the Cell path");
+    assertArrayEquals(new int[]{ROWS * COLUMNS - 1, 0, 1}, Baseline.count(Baseline.getStates(engine), agent));
+  }
+
+  /**
+   * Checks that the pool holds exactly the empty locations, each at the position the engine keeps for it
+   */
+  private static void assertPool(SegregationEngine engine, String when) {
+    int empty = 0;
+    for (int r = 0; r < ROWS; r++) {
+      for (int c = 0; c < COLUMNS; c++) {
+        int index = r * COLUMNS + c;
+        int position = engine.getPoolPosition(index);
+        if (engine.getState(r, c) == EMPTY) {
+          empty++;
+          assertTrue(position >= 0 && position < engine.getPoolSize(), "empty location " + index + " " + when);
+          assertEquals(index, engine.getPooled(position), "pool position of " + index + " " + when);
+        } else {
+          assertEquals(-1, position, "agent at " + index + " is pooled " + when);
+        }
+      }
+    }
+    assertEquals(empty, engine.getPoolSize(), "pool size " + when);
+  }
+
+  /**
+   * Returns whether the agent at r,c has more than Baseline.HAPPINESS_THRESH of its non-empty neighbors of its own type,
+   * reading locations past a fixed edge as the edge state
+   */
+  private static boolean happy(int[] states, Neighborhood neighborhood, int edge, int r, int c) {
+    int parity = neighborhood.getParity(r, c);
+    int[] dr = neighborhood.getRowOffsets(parity);
+    int[] dc = neighborhood.getColumnOffsets(parity);
+    int state = states[r * COLUMNS + c];
+    double total = 0;
+    double same = 0;
+    for (int i = 0; i < dr.length; i++) {
+      int row = r + dr[i];
+      int column = c + dc[i];
+      int neighborState;
+      if (edge == Cell.TOROIDAL) {
+        neighborState = states[Math.floorMod(row, ROWS) * COLUMNS + Math.floorMod(column, COLUMNS)];
+      } else if (row < 0 || row >= ROWS || column < 0 || column >= COLUMNS) {
+        neighborState = edge;
+      } else {
+        neighborState = states[row * COLUMNS + column];
+      }
+      if (neighborState > EMPTY) {
+        total++;
+      }
+      if (neighborState == state) {
+        same++;
+      }
+    }
+    return total == 0 || same / total > Baseline.HAPPINESS_THRESH;
+  }
+}
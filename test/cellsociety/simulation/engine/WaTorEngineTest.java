@@ -0,0 +1,61 @@
+package cellsociety.simulation.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.HexGrid;
+import cellsociety.simulation.grid.RectGrid;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks that a WaTorEngine moves, feeds, breeds and starves fish and sharks to the same oceans as
+ * WaTorCells stepped by Grid.update with the same seed, and that the populations it keeps while planning
+ * match a count of the ocean after every step, as does the number of locations it counts as changed.
+ *
+ * Dependencies: WaTorEngine, Baseline
+ */
+class WaTorEngineTest {
+
+  private static final int ROWS = 37;
+  private static final int COLUMNS = 45;
+  private static final int STEPS = 60;
+  private static final int SHARK = 2;
+
+  static Stream<Arguments> cases() {
+    return Stream.of(
+        Arguments.of((Supplier<Grid>) RectGrid::new, Cell.TOROIDAL),
+        Arguments.of((Supplier<Grid>) RectGrid::new, SHARK),
+        Arguments.of((Supplier<Grid>) HexGrid::new, Cell.TOROIDAL));
+  }
+
+  @ParameterizedTest(name = "{0} with edge {1}")
+  @MethodSource("cases")
+  void stepsLikeCells(Supplier<Grid> shape, int edge) throws Exception {
+    Grid grid = Baseline.makeCellGrid(shape.get(), "WaTorCell", new double[]{6, 3, 1}, edge, ROWS, COLUMNS);
+    Cell rule = Baseline.makeCell("WaTorCell");
+    rule.setDefaultEdge(edge);
+    Engine engine = Baseline.copyInto(grid, new WaTorEngine(rule, grid.getNeighborhood(), ROWS, COLUMNS));
+    for (int step = 0; step < STEPS; step++) {
+      int[] before = Baseline.getStates(engine);
+      grid.update();
+      engine.step();
+      int[] expected = Baseline.getStates(grid);
+      int[] states = Baseline.getStates(engine);
+      assertArrayEquals(expected, states, "states after step " + step);
+      assertEquals(Baseline.countChanged(before, states), engine.getCellsChanged(), "changes in step " + step);
+      assertTrue(engine.getCellsEvaluated() > 0 && engine.getCellsEvaluated() <= states.length);
+      int[] populations = new int[SHARK + 1];
+      engine.getPopulations(populations);
+      assertArrayEquals(Baseline.count(states, SHARK), populations, "populations after step " + step);
+    }
+  }
+}
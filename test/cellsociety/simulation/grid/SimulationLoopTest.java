@@ -0,0 +1,162 @@
+package cellsociety.simulation.grid;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.engine.DirtyTiles;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Maverick Chung, mc608
+ *
+ * Purpose: Checks the hand-off of snapshots from a SimulationLoop: the first snapshot is ready before the
+ * loop starts, each snapshot is only taken once, the newest one matches a grid stepped directly the same
+ * number of times, snapshots the view never took fold their changed tiles into the next, and commands run
+ * between steps.
+ *
+ * Dependencies: SimulationLoop, GridSnapshot, RectGrid, DirtyTiles
+ */
+class SimulationLoopTest {
+
+  private static final long SEED = 308;
+  private static final int SIZE = 50;
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private SimulationLoop loop;
+
+  private static Grid makeGrid() throws ClassNotFoundException {
+    Grid grid = new RectGrid();
+    grid.setSeed(SEED);
+    grid.setRandomGrid("ConwayCell", new HashMap<>(), new double[]{2, 1}, Cell.TOROIDAL, null, SIZE, SIZE);
+    return grid;
+  }
+
+  /**
+   * Makes an empty grid with a glider heading down and right, across the corner of four tiles
+   */
+  private static Grid makeGlider() throws ClassNotFoundException {
+    Grid grid = new RectGrid();
+    grid.setRandomGrid("ConwayCell", new HashMap<>(), new double[]{1, 0}, Cell.TOROIDAL, null, SIZE, SIZE);
+    grid.addState(1);
+    int[][] glider = {{0, 1}, {1, 2}, {2, 0}, {2, 1}, {2, 2}};
+    for (int[] location : glider) {
+      grid.incrementCellState(DirtyTiles.TILE_SIZE - 2 + location[0], DirtyTiles.TILE_SIZE - 2 + location[1]);
+    }
+    return grid;
+  }
+
+  private static int[] getStates(Grid grid) {
+    int[] states = new int[SIZE * SIZE];
+    grid.getStates(states);
+    return states;
+  }
+
+  /**
+   * Takes snapshots until one has been stepped the given number of times, keeping only the newest
+   */
+  private GridSnapshot waitForStep(long step) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    while (System.nanoTime() < deadline) {
+      GridSnapshot snapshot = loop.takeLatest();
+      if (snapshot != null && snapshot.getStep() == step) {
+        return snapshot;
+      }
+      Thread.sleep(1);
+    }
+    fail("no snapshot of step " + step);
+    return null;
+  }
+
+  /**
+   * Waits until every command sent so far has run, by sending one more that counts down a latch
+   */
+  private void waitForCommands() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    loop.submit(grid -> latch.countDown());
+    assertTrue(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "commands never ran");
+  }
+
+  @AfterEach
+  void stopLoop() {
+    if (loop != null) {
+      loop.stop();
+    }
+  }
+
+  @Test
+  void handsOverTheFirstSnapshotOnce() throws Exception {
+    Grid grid = makeGrid();
+    int[] states = getStates(grid);
+    loop = new SimulationLoop(grid);
+    GridSnapshot first = loop.takeLatest();
+    assertNotNull(first);
+    assertEquals(0, first.getStep());
+    assertArrayEquals(states, first.getStates());
+    assertTrue(first.getChangedTiles().isAllMarked());
+    assertNull(loop.takeLatest());
+  }
+
+  @Test
+  void matchesSteppingDirectly() throws Exception {
+    int steps = 25;
+    Grid direct = makeGrid();
+    loop = new SimulationLoop(makeGrid());
+    loop.takeLatest();
+    loop.start();
+    for (int step = 1; step <= steps; step++) {
+      loop.step();
+      direct.update();
+      GridSnapshot snapshot = waitForStep(step);
+      assertArrayEquals(getStates(direct), snapshot.getStates(), "states after step " + step);
+      assertArrayEquals(direct.getPopulations(), snapshot.getPopulations(), "populations after step " + step);
+    }
+  }
+
+  @Test
+  void foldsSkippedSnapshotsIntoTheNext() throws Exception {
+    int steps = 8;
+    Grid direct = makeGlider();
+    loop = new SimulationLoop(makeGlider());
+    loop.takeLatest();
+    DirtyTiles expected = direct.getChangedTiles();
+    expected.clear();
+    for (int step = 0; step < steps; step++) {
+      direct.update();
+    }
+    loop.start();
+    for (int step = 0; step < steps; step++) {
+      loop.step();
+    }
+    waitForCommands();
+    DirtyTiles tiles = waitForStep(steps).getChangedTiles();
+    assertFalse(tiles.isAllMarked());
+    assertTrue(expected.countMarked() > 1, "the glider should cross tiles");
+    for (int tile = expected.nextMarked(0); tile >= 0; tile = expected.nextMarked(tile + 1)) {
+      assertEquals(tile, tiles.nextMarked(tile), "tile " + tile + " was changed by a skipped step");
+    }
+  }
+
+  @Test
+  void runsCommandsBetweenSteps() throws Exception {
+    Grid direct = makeGrid();
+    loop = new SimulationLoop(makeGrid());
+    loop.takeLatest();
+    loop.start();
+    loop.submit(grid -> grid.incrementCellState(3, 4));
+    direct.incrementCellState(3, 4);
+    loop.step();
+    direct.update();
+    GridSnapshot snapshot = waitForStep(1);
+    assertArrayEquals(getStates(direct), snapshot.getStates());
+  }
+}
@@ -0,0 +1,124 @@
+package cellsociety.visualizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import cellsociety.simulation.cell.Cell;
+import cellsociety.simulation.engine.DirtyTiles;
+import cellsociety.simulation.grid.Grid;
+import cellsociety.simulation.grid.GridSnapshot;
+import cellsociety.simulation.grid.RectGrid;
+import cellsociety.simulation.grid.SimulationLoop;
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author: axo
+ * Checks that every block of a ColorPyramid is the mean of the cells under it, rounded once, including the
+ * partial blocks on the right and bottom of a grid that does not divide evenly, and levels past the packed
+ * ones, and that updating the blocks over changed tiles gives the same colors as building again.
+ *
+ * Dependencies: ColorPyramid, GridSnapshot, SimulationLoop, DirtyTiles
+ */
+class ColorPyramidTest {
+
+  private static final long SEED = 308;
+  private static final int ROWS = 150;
+  private static final int COLUMNS = 130;
+  private static final int TOP_LEVEL = 7;
+  private static final int HIGHEST_STATE = 3;
+  private static final int[] PALETTE = {0x00000000, 0xff0a0b0c, 0x80ff0102, 0x01020304};
+
+  private static Grid makeGrid() throws ClassNotFoundException {
+    Grid grid = new RectGrid();
+    grid.setSeed(SEED);
+    grid.setRandomGrid("RPSCell", new HashMap<>(), new double[]{1, 1, 1, 1}, Cell.TOROIDAL, null, ROWS, COLUMNS);
+    grid.addState(HIGHEST_STATE);
+    return grid;
+  }
+
+  private static GridSnapshot takeSnapshot(Grid grid) {
+    return new SimulationLoop(grid).takeLatest();
+  }
+
+  /**
+   * Works out the mean color of the block of a level holding a cell straight from the cells, a channel at a
+   * time, rounding half up
+   */
+  private static int getMean(int[] states, int level, int r, int c) {
+    int top = r >> level << level;
+    int left = c >> level << level;
+    int bottom = Math.min(ROWS, top + (1 << level));
+    int right = Math.min(COLUMNS, left + (1 << level));
+    long count = (long) (bottom - top) * (right - left);
+    int color = 0;
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      long sum = 0;
+      for (int row = top; row < bottom; row++) {
+        for (int column = left; column < right; column++) {
+          sum += (PALETTE[states[row * COLUMNS + column]] >>> shift) & 0xff;
+        }
+      }
+      color = color << 8 | (int) ((sum + count / 2) / count);
+    }
+    return color;
+  }
+
+  private static void assertMeans(ColorPyramid pyramid, int[] states, String when) {
+    for (int level = 1; level <= TOP_LEVEL; level++) {
+      for (int r = 0; r < ROWS; r++) {
+        for (int c = 0; c < COLUMNS; c++) {
+          assertEquals(getMean(states, level, r, c), pyramid.getColor(level, r, c),
+              "level " + level + " at " + r + "," + c + " " + when);
+        }
+      }
+    }
+  }
+
+  @Test
+  void keepsExactMeans() throws Exception {
+    GridSnapshot snapshot = takeSnapshot(makeGrid());
+    ColorPyramid pyramid = new ColorPyramid();
+    pyramid.build(snapshot, PALETTE, TOP_LEVEL);
+    assertMeans(pyramid, snapshot.getStates(), "after building");
+  }
+
+  @Test
+  void updatesLikeBuildingAgain() throws Exception {
+    Grid grid = makeGrid();
+    GridSnapshot before = takeSnapshot(grid);
+    ColorPyramid pyramid = new ColorPyramid();
+    pyramid.build(before, PALETTE, TOP_LEVEL);
+    int[] states = before.getStates().clone();
+    Random random = new Random(SEED);
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 20; i++) {
+        grid.incrementCellState(random.nextInt(ROWS), random.nextInt(COLUMNS));
+      }
+      GridSnapshot after = takeSnapshot(grid);
+      DirtyTiles tiles = new DirtyTiles();
+      tiles.resize(ROWS, COLUMNS);
+      tiles.clear();
+      int[] next = after.getStates();
+      for (int i = 0; i < next.length; i++) {
+        if (next[i] != states[i]) {
+          tiles.mark(i / COLUMNS, i % COLUMNS);
+        }
+      }
+      pyramid.update(after, tiles);
+      assertFalse(pyramid.isStale(), "round " + round);
+      assertMeans(pyramid, next, "after update " + round);
+      ColorPyramid built = new ColorPyramid();
+      built.build(after, PALETTE, TOP_LEVEL);
+      for (int level = 1; level <= TOP_LEVEL; level++) {
+        for (int r = 0; r < ROWS; r++) {
+          for (int c = 0; c < COLUMNS; c++) {
+            assertEquals(built.getColor(level, r, c), pyramid.getColor(level, r, c));
+          }
+        }
+      }
+      states = next.clone();
+    }
+  }
+}